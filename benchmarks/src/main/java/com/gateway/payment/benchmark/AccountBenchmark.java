@@ -0,0 +1,76 @@
+package com.gateway.payment.benchmark;
+
+import com.gateway.payment.domain.entity.Account;
+import com.gateway.payment.domain.value.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro benchmarks de {@link Account#debit} e {@link Account#credit}.
+ * Os métodos {@code bigDecimal*} reproduzem a aritmética anterior ao
+ * {@link Money}, como base de comparação.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountBenchmark {
+
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000000.00");
+
+    private final Money amount = Money.of(new BigDecimal("150.50"));
+
+    private final BigDecimal decimalAmount = new BigDecimal("150.50");
+
+    private Account account;
+
+    private BigDecimal decimalBalance;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        account = Account.builder()
+                .balance(Money.of(INITIAL_BALANCE))
+                .build();
+        decimalBalance = INITIAL_BALANCE;
+    }
+
+    @Benchmark
+    public Money debitThenCredit() {
+        account.debit(amount);
+        account.credit(amount);
+        return account.getBalance();
+    }
+
+    @Benchmark
+    public Money credit() {
+        account.credit(amount);
+        return account.getBalance();
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalDebitThenCredit() {
+        // Mesmas validações de Account.debit/credit antes do Money
+        if (decimalAmount.compareTo(BigDecimal.ZERO) <= 0 || decimalBalance.compareTo(decimalAmount) < 0) {
+            throw new IllegalStateException();
+        }
+        decimalBalance = decimalBalance.subtract(decimalAmount);
+        if (decimalAmount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalStateException();
+        }
+        decimalBalance = decimalBalance.add(decimalAmount);
+        return decimalBalance;
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalCredit() {
+        if (decimalAmount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalStateException();
+        }
+        decimalBalance = decimalBalance.add(decimalAmount);
+        return decimalBalance;
+    }
+}
@@ -0,0 +1,103 @@
+package com.gateway.payment.benchmark;
+
+import com.gateway.payment.GatewayApplication;
+import com.gateway.payment.domain.entity.Account;
+import com.gateway.payment.domain.entity.User;
+import com.gateway.payment.domain.enums.Role;
+import com.gateway.payment.domain.value.Money;
+import com.gateway.payment.repository.AccountRepository;
+import com.gateway.payment.repository.UserRepository;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Infraestrutura compartilhada pelos macro benchmarks: sobe o contexto Spring
+ * contra um H2 em memória no modo PostgreSQL e cria usuários e contas pelos
+ * próprios repositórios da aplicação.
+ */
+public final class BenchmarkSupport {
+
+    public static final String JWT_SECRET =
+            "minhaChaveMuitoSecretaEExtremamenteLongaParaGarantirSeguranca2026_Gateway";
+
+    public static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000000.00");
+
+    private BenchmarkSupport() {
+    }
+
+    public static ConfigurableApplicationContext startApplication(String databaseName) {
+        return startApplication(databaseName, Map.of());
+    }
+
+    public static ConfigurableApplicationContext startApplication(String databaseName,
+                                                                  Map<String, Object> overrides) {
+        return start(databaseName, overrides, WebApplicationType.NONE);
+    }
+
+    /**
+     * Sobe a aplicação com o Tomcat em uma porta livre, para benchmarks via HTTP.
+     */
+    public static ConfigurableApplicationContext startWebApplication(String databaseName,
+                                                                     Map<String, Object> overrides) {
+        Map<String, Object> properties = new HashMap<>(overrides);
+        properties.putIfAbsent("server.port", 0);
+        // Sem o actuator, que ocuparia a porta de gerenciamento fixa
+        properties.putIfAbsent("management.server.port", -1);
+        // Poucos usuários geram toda a carga: o limite por usuário mediria o limitador, não a aplicação
+        properties.putIfAbsent("app.rate-limit.enabled", false);
+        return start(databaseName, properties, WebApplicationType.SERVLET);
+    }
+
+    private static ConfigurableApplicationContext start(String databaseName, Map<String, Object> overrides,
+                                                        WebApplicationType webApplicationType) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:" + databaseName
+                + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000");
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.jpa.properties.hibernate.format_sql", "false");
+        properties.put("logging.level.root", "WARN");
+        properties.put("app.security.jwt.secret", JWT_SECRET);
+        properties.putAll(overrides);
+
+        SpringApplication application = new SpringApplication(GatewayApplication.class);
+        application.setWebApplicationType(webApplicationType);
+        return application.run(properties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new));
+    }
+
+    public static User createUser(ConfigurableApplicationContext context, String email, Role role,
+                                  BigDecimal balance) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        AccountRepository accountRepository = context.getBean(AccountRepository.class);
+
+        User user = userRepository.save(User.builder()
+                .name(email)
+                .email(email)
+                .password("{noop}benchmark")
+                .role(role)
+                .build());
+        Account account = accountRepository.save(Account.builder()
+                .user(user)
+                .balance(Money.of(balance))
+                .build());
+        user.setAccount(account);
+        return user;
+    }
+
+    public static void authenticate(User user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}
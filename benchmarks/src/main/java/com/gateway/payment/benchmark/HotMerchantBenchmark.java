@@ -0,0 +1,115 @@
+package com.gateway.payment.benchmark;
+
+import com.gateway.payment.domain.entity.User;
+import com.gateway.payment.domain.enums.Role;
+import com.gateway.payment.dto.payment.PaymentRequest;
+import com.gateway.payment.dto.payment.PaymentResponse;
+import com.gateway.payment.service.HotAccountService;
+import com.gateway.payment.service.PaymentService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Um único merchant recebendo pagamentos de 64 pagadores concorrentes, com e
+ * sem o modo hot (sub-saldos). Falhas de concorrência (timeouts de lock,
+ * conflitos de versão) são contabilizadas em {@link ConflictCounters}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(HotMerchantBenchmark.PAYERS)
+public class HotMerchantBenchmark {
+
+    static final int PAYERS = 64;
+
+    @Param({"false", "true"})
+    public boolean hot;
+
+    @Param({"16"})
+    public int slots;
+
+    private ConfigurableApplicationContext context;
+    private PaymentService paymentService;
+    private User merchant;
+    private final List<User> payers = new ArrayList<>();
+    private final AtomicInteger nextPayer = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.startApplication("hot_merchant_" + hot,
+                Map.of("spring.datasource.hikari.maximum-pool-size", PAYERS));
+        paymentService = context.getBean(PaymentService.class);
+
+        merchant = BenchmarkSupport.createUser(context, "merchant@bench.com", Role.MERCHANT, BigDecimal.ZERO);
+        for (int i = 0; i < PAYERS; i++) {
+            payers.add(BenchmarkSupport.createUser(context,
+                    "payer" + i + "@bench.com", Role.CLIENT, BenchmarkSupport.INITIAL_BALANCE));
+        }
+        if (hot) {
+            context.getBean(HotAccountService.class).enable(merchant.getAccount().getId(), slots);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class PayerState {
+        private User payer;
+        private PaymentRequest request;
+
+        @Setup(Level.Trial)
+        public void setUp(HotMerchantBenchmark benchmark) {
+            payer = benchmark.payers.get(benchmark.nextPayer.getAndIncrement() % PAYERS);
+            request = new PaymentRequest();
+            request.setMerchantId(benchmark.merchant.getId());
+            request.setAmount(new BigDecimal("1.00"));
+            request.setDescription("hot merchant benchmark");
+        }
+
+        @Setup(Level.Invocation)
+        public void authenticate() {
+            BenchmarkSupport.authenticate(payer);
+        }
+
+        @TearDown(Level.Invocation)
+        public void clear() {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ConflictCounters {
+        public long concurrencyFailures;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            concurrencyFailures = 0;
+        }
+    }
+
+    @Benchmark
+    public PaymentResponse payHotMerchant(PayerState state, ConflictCounters counters) {
+        try {
+            return paymentService.processPayment(state.request);
+        } catch (ConcurrencyFailureException ex) {
+            counters.concurrencyFailures++;
+            return null;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.gateway.payment.benchmark;
+
+import com.gateway.payment.config.JwtConfig;
+import com.gateway.payment.security.JwtTokenProvider;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro benchmarks da validação de tokens executada em toda requisição autenticada.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+
+    /**
+     * TTL do cache de tokens verificados; {@code 0s} mede o custo integral do HS512.
+     */
+    @Param({"0s", "30s"})
+    public String verifiedTokenCacheTtl;
+
+    private JwtTokenProvider jwtTokenProvider;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtConfig jwtConfig = new JwtConfig();
+        jwtConfig.setSecret(BenchmarkSupport.JWT_SECRET);
+        jwtConfig.setExpiration(86400000);
+        jwtConfig.setVerifiedTokenCacheTtl(Duration.parse("PT" + verifiedTokenCacheTtl.toUpperCase()));
+        jwtTokenProvider = new JwtTokenProvider(jwtConfig);
+
+        UserDetails user = User.withUsername("bench@gateway.com")
+                .password("n/a")
+                .roles("CLIENT")
+                .build();
+        token = jwtTokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(user, null, List.of()));
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtTokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public String getUsernameFromToken() {
+        return jwtTokenProvider.getUsernameFromToken(token);
+    }
+
+    /**
+     * Caminho completo do filtro: um único parse devolvendo as claims.
+     */
+    @Benchmark
+    public Optional<Claims> verifyToken() {
+        return jwtTokenProvider.verifyToken(token);
+    }
+
+    /**
+     * Caminho antigo do filtro: valida e depois extrai o usuário.
+     */
+    @Benchmark
+    public String validateAndGetUsername() {
+        if (!jwtTokenProvider.validateToken(token)) {
+            throw new IllegalStateException("Token inválido");
+        }
+        return jwtTokenProvider.getUsernameFromToken(token);
+    }
+}
@@ -0,0 +1,128 @@
+package com.gateway.payment.benchmark;
+
+import com.gateway.payment.domain.entity.User;
+import com.gateway.payment.domain.enums.Role;
+import com.gateway.payment.dto.payment.PaymentRequest;
+import com.gateway.payment.dto.payment.PaymentResponse;
+import com.gateway.payment.service.PaymentService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Macro benchmark de {@link PaymentService#processPayment} contra um H2 em
+ * memória (modo PostgreSQL). Cada thread paga com a sua própria conta; o
+ * parâmetro {@code merchants} controla quantos merchants recebem os pagamentos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentServiceBenchmark {
+
+    private static final int MAX_PAYERS = 64;
+
+    @Param({"1", "16"})
+    public int merchants;
+
+    private ConfigurableApplicationContext context;
+    private PaymentService paymentService;
+    private final List<User> payers = new ArrayList<>();
+    private final List<User> merchantUsers = new ArrayList<>();
+    private final AtomicInteger nextPayer = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.startApplication("payment_bench_" + merchants);
+        paymentService = context.getBean(PaymentService.class);
+
+        for (int i = 0; i < merchants; i++) {
+            merchantUsers.add(BenchmarkSupport.createUser(context,
+                    "merchant" + i + "@bench.com", Role.MERCHANT, BigDecimal.ZERO));
+        }
+        for (int i = 0; i < MAX_PAYERS; i++) {
+            payers.add(BenchmarkSupport.createUser(context,
+                    "payer" + i + "@bench.com", Role.CLIENT, BenchmarkSupport.INITIAL_BALANCE));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class PayerState {
+        private User payer;
+        private final List<PaymentRequest> requests = new ArrayList<>();
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp(PaymentServiceBenchmark benchmark) {
+            payer = benchmark.payers.get(benchmark.nextPayer.getAndIncrement() % MAX_PAYERS);
+            for (User merchant : benchmark.merchantUsers) {
+                PaymentRequest request = new PaymentRequest();
+                request.setMerchantId(merchant.getId());
+                request.setAmount(new BigDecimal("1.00"));
+                request.setDescription("benchmark");
+                requests.add(request);
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void authenticate() {
+            BenchmarkSupport.authenticate(payer);
+        }
+
+        @TearDown(Level.Invocation)
+        public void clear() {
+            SecurityContextHolder.clearContext();
+        }
+
+        PaymentRequest nextRequest() {
+            PaymentRequest request = requests.get(next);
+            next = (next + 1) % requests.size();
+            return request;
+        }
+    }
+
+    @Benchmark
+    public PaymentResponse processPayment(PayerState state) {
+        return paymentService.processPayment(state.nextRequest());
+    }
+
+    /**
+     * Vários pagadores concorrentes. Conflitos de versão na conta do merchant
+     * são contabilizados em {@link ConflictCounters} em vez de abortar a medição.
+     */
+    @Benchmark
+    @Threads(8)
+    public PaymentResponse processPaymentConcurrent(PayerState state, ConflictCounters counters) {
+        try {
+            return paymentService.processPayment(state.nextRequest());
+        } catch (OptimisticLockingFailureException ex) {
+            counters.optimisticLockFailures++;
+            return null;
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ConflictCounters {
+        public long optimisticLockFailures;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            optimisticLockFailures = 0;
+        }
+    }
+}
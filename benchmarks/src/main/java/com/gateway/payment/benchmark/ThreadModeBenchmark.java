@@ -0,0 +1,189 @@
+package com.gateway.payment.benchmark;
+
+import com.gateway.payment.domain.entity.User;
+import com.gateway.payment.domain.enums.Role;
+import com.gateway.payment.security.JwtTokenProvider;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compara o Tomcat com threads de plataforma e com virtual threads
+ * ({@code spring.threads.virtual.enabled}) sob 1k–10k clientes concorrentes
+ * fazendo {@code POST /api/payments} via HTTP. Cada cliente é uma virtual thread
+ * em loop fechado; as latências vão para um HdrHistogram e o resumo (vazão e
+ * percentis) é impresso e gravado em {@code target/thread-modes-result.csv}.
+ * <p>
+ * Argumentos (todos opcionais): {@code --modes=platform,virtual
+ * --clients=1000,5000,10000 --warmup=10 --duration=30 --payers=1000
+ * --merchants=16 --pool=50 --tomcat-threads=200}.
+ */
+public class ThreadModeBenchmark {
+
+    private static final Path RESULT_FILE = Path.of("target/thread-modes-result.csv");
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        List<String> modes = List.of(options.getOrDefault("modes", "platform,virtual").split(","));
+        int[] clientLevels = Arrays.stream(options.getOrDefault("clients", "1000,5000,10000").split(","))
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+        int payers = Integer.parseInt(options.getOrDefault("payers", "1000"));
+        int merchants = Integer.parseInt(options.getOrDefault("merchants", "16"));
+
+        List<String> rows = new ArrayList<>();
+        rows.add("mode,clients,requests,errors,throughput,p50_ms,p90_ms,p99_ms,p999_ms,max_ms");
+
+        for (String mode : modes) {
+            Map<String, Object> overrides = new HashMap<>();
+            overrides.put("spring.threads.virtual.enabled", "virtual".equals(mode));
+            overrides.put("spring.datasource.hikari.maximum-pool-size", options.getOrDefault("pool", "50"));
+            overrides.put("spring.datasource.hikari.connection-timeout", 60_000);
+            overrides.put("server.tomcat.threads.max", options.getOrDefault("tomcat-threads", "200"));
+            overrides.put("server.tomcat.max-connections", 20_000);
+            overrides.put("server.tomcat.accept-count", 10_000);
+            overrides.put("app.security.principal-cache.enabled", true);
+
+            try (ConfigurableApplicationContext context =
+                         BenchmarkSupport.startWebApplication("thread_modes_" + mode, overrides)) {
+                Target target = prepare(context, payers, merchants);
+                for (int clients : clientLevels) {
+                    run(target, clients, warmup);
+                    Result result = run(target, clients, duration);
+                    String row = result.toCsv(mode, clients);
+                    rows.add(row);
+                    System.out.printf("%-8s clients=%-6d %s%n", mode, clients, result);
+                }
+            }
+        }
+
+        Files.createDirectories(RESULT_FILE.getParent());
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(RESULT_FILE))) {
+            rows.forEach(out::println);
+        }
+        System.out.println("Resultados gravados em " + RESULT_FILE.toAbsolutePath());
+    }
+
+    private record Target(URI uri, List<String> tokens, List<String> bodies) {
+    }
+
+    private record Result(long requests, long errors, double seconds, Histogram latencies) {
+
+        String toCsv(String mode, int clients) {
+            return String.format("%s,%d,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%.2f", mode, clients, requests, errors,
+                    requests / seconds, ms(50), ms(90), ms(99), ms(99.9), latencies.getMaxValue() / 1000.0);
+        }
+
+        private double ms(double percentile) {
+            return latencies.getValueAtPercentile(percentile) / 1000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("req/s=%.1f erros=%d p50=%.2fms p90=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms",
+                    requests / seconds, errors, ms(50), ms(90), ms(99), ms(99.9), latencies.getMaxValue() / 1000.0);
+        }
+    }
+
+    private static Target prepare(ConfigurableApplicationContext context, int payers, int merchants) {
+        JwtTokenProvider tokenProvider = context.getBean(JwtTokenProvider.class);
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+        List<String> bodies = new ArrayList<>(merchants);
+        for (int i = 0; i < merchants; i++) {
+            User merchant = BenchmarkSupport.createUser(context,
+                    "merchant" + i + "@bench.com", Role.MERCHANT, BigDecimal.ZERO);
+            bodies.add("{\"merchantId\":" + merchant.getId() + ",\"amount\":1.00}");
+        }
+        List<String> tokens = new ArrayList<>(payers);
+        for (int i = 0; i < payers; i++) {
+            User payer = BenchmarkSupport.createUser(context,
+                    "payer" + i + "@bench.com", Role.CLIENT, BenchmarkSupport.INITIAL_BALANCE);
+            tokens.add(tokenProvider.generateToken(
+                    new UsernamePasswordAuthenticationToken(payer, null, payer.getAuthorities())));
+        }
+        return new Target(URI.create("http://localhost:" + port + "/api/payments"), tokens, bodies);
+    }
+
+    private static Result run(Target target, int clients, Duration duration) {
+        Histogram latencies = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+        LongAdder requests = new LongAdder();
+        LongAdder errors = new LongAdder();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        // Fechados em ordem inversa: primeiro espera os clientes, depois encerra o HttpClient
+        try (ExecutorService httpExecutor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .executor(httpExecutor)
+                     .connectTimeout(Duration.ofSeconds(30))
+                     .build();
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                int clientIndex = i;
+                executor.submit(() -> {
+                    HttpRequest request = HttpRequest.newBuilder(target.uri())
+                            .header("Content-Type", "application/json")
+                            .header("Authorization", "Bearer " + target.tokens().get(clientIndex % target.tokens().size()))
+                            .POST(HttpRequest.BodyPublishers.ofString(
+                                    target.bodies().get(clientIndex % target.bodies().size())))
+                            .timeout(Duration.ofMinutes(2))
+                            .build();
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 201) {
+                                errors.increment();
+                            }
+                        } catch (IOException e) {
+                            errors.increment();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        latencies.recordValue(Math.min(MAX_LATENCY_MICROS,
+                                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start)));
+                        requests.increment();
+                    }
+                });
+            }
+        }
+        return new Result(requests.sum(), errors.sum(), duration.toNanos() / 1e9, latencies);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+}
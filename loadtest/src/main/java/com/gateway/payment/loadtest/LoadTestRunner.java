@@ -0,0 +1,103 @@
+package com.gateway.payment.loadtest;
+
+import com.gateway.payment.domain.entity.User;
+import com.gateway.payment.domain.enums.Role;
+import com.gateway.payment.service.AccountService;
+import com.gateway.payment.service.HotAccountService;
+import com.gateway.payment.service.PaymentService;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Carga em processo sobre {@code PaymentService.processPayment} e
+ * {@code AccountService.getBalance}, em modelo aberto (ver
+ * {@link OpenLoadGenerator}). Cada cenário sobe um contexto novo, cria
+ * {@code payers} clientes e {@code merchants} merchants pelos repositórios,
+ * aquece por {@code warmup} segundos e mede por {@code duration}. O resumo é
+ * impresso e gravado em {@code target/loadtest-result.csv}.
+ * <p>
+ * Argumentos (todos opcionais): {@code --scenarios=one-merchant,many-merchants,mixed
+ * --rate=500 --warmup=10 --duration=30 --payers=1000 --merchants=64 --read-ratio=0.8
+ * --concurrency=128 --pool=64 --hot-slots=0}. Com {@code --hot-slots} maior que zero
+ * os merchants entram no modo hot com esse número de sub-saldos.
+ */
+public class LoadTestRunner {
+
+    private static final Path RESULT_FILE = Path.of("target/loadtest-result.csv");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        List<Scenario> scenarios = Arrays.stream(
+                        options.getOrDefault("scenarios", "one-merchant,many-merchants,mixed").split(","))
+                .map(Scenario::from)
+                .toList();
+        double rate = Double.parseDouble(options.getOrDefault("rate", "500"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+        int payers = Integer.parseInt(options.getOrDefault("payers", "1000"));
+        int merchants = Integer.parseInt(options.getOrDefault("merchants", "64"));
+        double readRatio = Double.parseDouble(options.getOrDefault("read-ratio", "0.8"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "128"));
+        int hotSlots = Integer.parseInt(options.getOrDefault("hot-slots", "0"));
+
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("spring.datasource.hikari.maximum-pool-size", options.getOrDefault("pool", "64"));
+        overrides.put("spring.datasource.hikari.connection-timeout", 60_000);
+
+        OpenLoadGenerator generator = new OpenLoadGenerator(concurrency);
+        List<String> rows = new ArrayList<>();
+        rows.add(OpenLoadGenerator.Result.csvHeader());
+
+        for (Scenario scenario : scenarios) {
+            try (ConfigurableApplicationContext context =
+                         LoadTestSupport.startApplication("loadtest_" + scenario.name().toLowerCase(), overrides)) {
+                Scenario.Target target = prepare(context, payers, scenario == Scenario.ONE_MERCHANT ? 1 : merchants,
+                        readRatio, hotSlots);
+                generator.run(rate, warmup, () -> scenario.next(target));
+                OpenLoadGenerator.Result result = generator.run(rate, duration, () -> scenario.next(target));
+                rows.add(result.toCsv(scenario.label()));
+                System.out.printf("%-15s %s%n", scenario.label(), result);
+            }
+        }
+
+        Files.createDirectories(RESULT_FILE.getParent());
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(RESULT_FILE))) {
+            rows.forEach(out::println);
+        }
+        System.out.println("Resultados gravados em " + RESULT_FILE.toAbsolutePath());
+    }
+
+    private static Scenario.Target prepare(ConfigurableApplicationContext context, int payers, int merchants,
+                                           double readRatio, int hotSlots) {
+        List<User> merchantUsers = LoadTestSupport.seedUsers(context, "merchant", merchants, Role.MERCHANT,
+                BigDecimal.ZERO);
+        List<User> payerUsers = LoadTestSupport.seedUsers(context, "payer", payers, Role.CLIENT,
+                LoadTestSupport.INITIAL_BALANCE);
+        if (hotSlots > 0) {
+            HotAccountService hotAccountService = context.getBean(HotAccountService.class);
+            merchantUsers.forEach(merchant -> hotAccountService.enable(merchant.getAccount().getId(), hotSlots));
+        }
+        return new Scenario.Target(context.getBean(PaymentService.class), context.getBean(AccountService.class),
+                payerUsers, merchantUsers, readRatio);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,90 @@
+package com.gateway.payment.loadtest;
+
+import com.gateway.payment.GatewayApplication;
+import com.gateway.payment.domain.entity.Account;
+import com.gateway.payment.domain.entity.User;
+import com.gateway.payment.domain.enums.Role;
+import com.gateway.payment.domain.value.Money;
+import com.gateway.payment.repository.AccountRepository;
+import com.gateway.payment.repository.UserRepository;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sobe a aplicação sem servidor web contra um H2 em memória no modo
+ * PostgreSQL e cria usuários e contas pelos repositórios da aplicação.
+ */
+final class LoadTestSupport {
+
+    static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000000.00");
+
+    private static final String JWT_SECRET =
+            "minhaChaveMuitoSecretaEExtremamenteLongaParaGarantirSeguranca2026_Gateway";
+    private static final int SEED_CHUNK = 500;
+
+    private LoadTestSupport() {
+    }
+
+    static ConfigurableApplicationContext startApplication(String databaseName, Map<String, Object> overrides) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:" + databaseName
+                + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000");
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.jpa.properties.hibernate.format_sql", "false");
+        properties.put("logging.level.root", "WARN");
+        properties.put("app.security.jwt.secret", JWT_SECRET);
+        properties.putAll(overrides);
+
+        SpringApplication application = new SpringApplication(GatewayApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        return application.run(properties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new));
+    }
+
+    /**
+     * Cria {@code count} usuários com conta, em lotes de {@value #SEED_CHUNK}
+     * por transação.
+     */
+    static List<User> seedUsers(ConfigurableApplicationContext context, String prefix, int count, Role role,
+                                BigDecimal balance) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        AccountRepository accountRepository = context.getBean(AccountRepository.class);
+        TransactionTemplate transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        List<User> users = new ArrayList<>(count);
+        for (int from = 0; from < count; from += SEED_CHUNK) {
+            int start = from;
+            int end = Math.min(count, from + SEED_CHUNK);
+            users.addAll(transactionTemplate.execute(status -> {
+                List<User> chunk = new ArrayList<>(end - start);
+                for (int i = start; i < end; i++) {
+                    String email = prefix + i + "@loadtest.com";
+                    chunk.add(User.builder().name(email).email(email).password("{noop}loadtest").role(role).build());
+                }
+                userRepository.saveAll(chunk);
+                List<Account> accounts = chunk.stream()
+                        .map(user -> Account.builder().user(user).balance(Money.of(balance)).build())
+                        .toList();
+                accountRepository.saveAll(accounts);
+                for (int i = 0; i < chunk.size(); i++) {
+                    chunk.get(i).setAccount(accounts.get(i));
+                }
+                return chunk;
+            }));
+        }
+        return users;
+    }
+}
@@ -0,0 +1,171 @@
+package com.gateway.payment.loadtest;
+
+import com.gateway.payment.exception.BusinessException;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.dao.DeadlockLoserDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Gerador de carga em modelo aberto: as chegadas seguem uma taxa fixa,
+ * independente de quanto as requisições anteriores demoram. A chegada
+ * {@code i} tem horário planejado {@code início + i / taxa}; a latência é
+ * medida a partir desse horário, não de quando a requisição começou de fato,
+ * então a espera na fila quando o sistema satura entra no percentil (sem
+ * coordinated omission). O tempo de serviço (início real até o fim) é
+ * registrado à parte.
+ * <p>
+ * As requisições rodam em um pool fixo de threads de plataforma com fila sem
+ * limite: o despachante nunca bloqueia. Virtual threads ficariam presas
+ * (pinned) nos {@code synchronized} do H2 enquanto esperam locks de linha.
+ */
+final class OpenLoadGenerator {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final int concurrency;
+
+    OpenLoadGenerator(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    enum Outcome { OK, REJECTED, OPTIMISTIC_LOCK, DEADLOCK, LOCK_TIMEOUT, ERROR }
+
+    record Result(double offeredRate, long completed, double seconds, long[] outcomes, int maxQueued,
+                  Histogram latencies, Histogram serviceTimes) {
+
+        long count(Outcome outcome) {
+            return outcomes[outcome.ordinal()];
+        }
+
+        double throughput() {
+            return count(Outcome.OK) / seconds;
+        }
+
+        static String csvHeader() {
+            return "scenario,offered_rate,completed,ok,rejected,optimistic_lock,deadlock,lock_timeout,errors," +
+                    "throughput,p50_ms,p99_ms,p999_ms,max_ms,service_p99_ms,max_queued";
+        }
+
+        String toCsv(String scenario) {
+            return String.format(Locale.ROOT, "%s,%.0f,%d,%d,%d,%d,%d,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%.2f,%d",
+                    scenario, offeredRate, completed, count(Outcome.OK), count(Outcome.REJECTED),
+                    count(Outcome.OPTIMISTIC_LOCK), count(Outcome.DEADLOCK), count(Outcome.LOCK_TIMEOUT),
+                    count(Outcome.ERROR), throughput(), ms(latencies, 50), ms(latencies, 99), ms(latencies, 99.9),
+                    latencies.getMaxValue() / 1000.0, ms(serviceTimes, 99), maxQueued);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "ok/s=%.1f (oferta %.0f/s) p50=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms serviço p99=%.2fms " +
+                            "| otimista=%d deadlock=%d lock-timeout=%d rejeitadas=%d erros=%d fila-máx=%d",
+                    throughput(), offeredRate, ms(latencies, 50), ms(latencies, 99), ms(latencies, 99.9),
+                    latencies.getMaxValue() / 1000.0, ms(serviceTimes, 99), count(Outcome.OPTIMISTIC_LOCK),
+                    count(Outcome.DEADLOCK), count(Outcome.LOCK_TIMEOUT), count(Outcome.REJECTED),
+                    count(Outcome.ERROR), maxQueued);
+        }
+
+        private static double ms(Histogram histogram, double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+
+    /**
+     * Dispara {@code rate * duration} chegadas e espera todas terminarem.
+     */
+    Result run(double rate, Duration duration, Supplier<Scenario.Operation> operations) throws InterruptedException {
+        Histogram latencies = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+        Histogram serviceTimes = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+        LongAdder[] outcomes = new LongAdder[Outcome.values().length];
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] = new LongAdder();
+        }
+        AtomicInteger threadIndex = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "loadtest-" + threadIndex.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.prestartAllCoreThreads();
+
+        long arrivals = (long) (rate * duration.toNanos() / 1e9);
+        double intervalNanos = 1e9 / rate;
+        int maxQueued = 0;
+        long start = System.nanoTime();
+        for (long i = 0; i < arrivals; i++) {
+            long intended = start + (long) (i * intervalNanos);
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Scenario.Operation operation = operations.get();
+            executor.execute(() -> {
+                long begin = System.nanoTime();
+                Outcome outcome = execute(operation);
+                long end = System.nanoTime();
+                latencies.recordValue(Math.min(MAX_LATENCY_MICROS, TimeUnit.NANOSECONDS.toMicros(end - intended)));
+                serviceTimes.recordValue(Math.min(MAX_LATENCY_MICROS, TimeUnit.NANOSECONDS.toMicros(end - begin)));
+                outcomes[outcome.ordinal()].increment();
+            });
+            maxQueued = Math.max(maxQueued, executor.getQueue().size());
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.MINUTES)) {
+            executor.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] counts = new long[outcomes.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = outcomes[i].sum();
+        }
+        return new Result(rate, executor.getCompletedTaskCount(), seconds, counts, maxQueued, latencies, serviceTimes);
+    }
+
+    private static Outcome execute(Scenario.Operation operation) {
+        try {
+            operation.run();
+            return Outcome.OK;
+        } catch (RuntimeException e) {
+            return classify(e);
+        }
+    }
+
+    // Deadlock: DeadlockLoserDataAccessException ou, quando o driver não é traduzido assim,
+    // o SQLState 40P01 (PostgreSQL) / código 40001 (H2) na causa
+    static Outcome classify(Throwable error) {
+        if (error instanceof OptimisticLockingFailureException) {
+            return Outcome.OPTIMISTIC_LOCK;
+        }
+        if (error instanceof BusinessException) {
+            return Outcome.REJECTED;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DeadlockLoserDataAccessException) {
+                return Outcome.DEADLOCK;
+            }
+            if (cause instanceof SQLException sql
+                    && ("40P01".equals(sql.getSQLState()) || sql.getErrorCode() == 40001)) {
+                return Outcome.DEADLOCK;
+            }
+        }
+        if (error instanceof PessimisticLockingFailureException) {
+            return Outcome.LOCK_TIMEOUT;
+        }
+        return Outcome.ERROR;
+    }
+}
@@ -0,0 +1,76 @@
+package com.gateway.payment.loadtest;
+
+import com.gateway.payment.domain.entity.User;
+import com.gateway.payment.dto.payment.PaymentRequest;
+import com.gateway.payment.service.AccountService;
+import com.gateway.payment.service.PaymentService;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Perfis de contenção. Cada chegada sorteia um pagador (uniforme) e, conforme
+ * o cenário, o merchant ou uma leitura de saldo.
+ * <ul>
+ *     <li>{@code one-merchant}: todos os pagadores pagam o mesmo merchant (conta quente);</li>
+ *     <li>{@code many-merchants}: pagamentos espalhados entre todos os merchants;</li>
+ *     <li>{@code mixed}: {@code readRatio} das chegadas são {@code getBalance} do pagador,
+ *     o restante pagamentos como em {@code many-merchants}.</li>
+ * </ul>
+ */
+enum Scenario {
+    ONE_MERCHANT,
+    MANY_MERCHANTS,
+    MIXED;
+
+    static final BigDecimal AMOUNT = new BigDecimal("0.01");
+
+    /**
+     * Uma requisição sorteada; executa autenticada como o pagador.
+     */
+    interface Operation {
+        void run();
+    }
+
+    record Target(PaymentService paymentService, AccountService accountService, List<User> payers,
+                  List<User> merchants, double readRatio) {
+    }
+
+    static Scenario from(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+
+    String label() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    Operation next(Target target) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        User payer = target.payers().get(random.nextInt(target.payers().size()));
+        if (this == MIXED && random.nextDouble() < target.readRatio()) {
+            return () -> as(payer, () -> target.accountService().getBalance());
+        }
+        User merchant = this == ONE_MERCHANT
+                ? target.merchants().get(0)
+                : target.merchants().get(random.nextInt(target.merchants().size()));
+        PaymentRequest request = new PaymentRequest();
+        request.setMerchantId(merchant.getId());
+        request.setAmount(AMOUNT);
+        request.setDescription("loadtest " + label());
+        return () -> as(payer, () -> target.paymentService().processPayment(request));
+    }
+
+    private static void as(User user, Runnable action) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        try {
+            action.run();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.gateway.payment.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+// @Async usa o applicationTaskExecutor do Spring Boot, que passa a criar virtual
+// threads quando spring.threads.virtual.enabled=true
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+}
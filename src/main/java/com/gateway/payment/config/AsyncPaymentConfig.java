@@ -0,0 +1,24 @@
+package com.gateway.payment.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "app.payment.async")
+public class AsyncPaymentConfig {
+    private boolean enabled = false;
+    // Cada pagador é sempre liquidado pelo mesmo worker (id da conta módulo workers)
+    private int workers = 4;
+    private int batchSize = 100;
+    private long pollIntervalMs = 200;
+    private long queueDepthRefreshMs = 5000;
+    // Janela de created_at em que pendentes são procurados (poda das partições mensais);
+    // um pagamento só fica PENDING por segundos
+    private Duration pendingLookback = Duration.ofDays(30);
+}
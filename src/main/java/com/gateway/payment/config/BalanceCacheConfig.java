@@ -0,0 +1,23 @@
+package com.gateway.payment.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "app.accounts.balance-cache")
+public class BalanceCacheConfig {
+    // Local a cada instância, sem invalidação entre elas: só é seguro com uma única instância
+    private boolean enabled = false;
+    // Limite de segurança para alterações feitas fora da aplicação (ex.: SQL manual)
+    private Duration ttl = Duration.ofMinutes(5);
+    private long maxSize = 100_000;
+    // Por quanto tempo a última versão confirmada de cada conta é lembrada; deve
+    // superar o atraso tolerado das réplicas (app.datasource.routing.max-lag)
+    private Duration committedVersionTtl = Duration.ofMinutes(1);
+}
@@ -0,0 +1,35 @@
+package com.gateway.payment.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "app.datasource.routing")
+public class DataSourceRoutingConfig {
+    private boolean enabled = false;
+    private List<Replica> replicas = new ArrayList<>();
+    private long healthCheckIntervalMs = 5000;
+    // Réplicas com atraso maior que este são ignoradas até alcançarem o primário
+    private Duration maxLag = Duration.ofSeconds(5);
+    // Atraso em segundos; vazio desativa a verificação (ex.: bancos embarcados sem replicação)
+    private String lagQuery = "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END";
+    private Duration checkTimeout = Duration.ofSeconds(2);
+
+    @Getter
+    @Setter
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
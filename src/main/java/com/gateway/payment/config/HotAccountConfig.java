@@ -0,0 +1,16 @@
+package com.gateway.payment.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "app.payment.hot-accounts")
+public class HotAccountConfig {
+    private int defaultSlots = 16;
+    private int maxSlots = 256;
+    private long consolidationIntervalMs = 5000;
+}
@@ -0,0 +1,22 @@
+package com.gateway.payment.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "app.payment.idempotency")
+public class IdempotencyConfig {
+    // Por quanto tempo uma chave devolve a resposta original
+    private Duration ttl = Duration.ofHours(24);
+    private Duration cacheTtl = Duration.ofMinutes(10);
+    private long cacheMaxSize = 10_000;
+    private long sweepIntervalMs = 600_000;
+    private long waitTimeoutMs = 10_000;
+    private int maxKeyLength = 255;
+}
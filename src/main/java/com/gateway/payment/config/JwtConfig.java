@@ -5,6 +5,8 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Getter
 @Setter
 @Configuration
@@ -12,4 +14,9 @@ import org.springframework.context.annotation.Configuration;
 public class JwtConfig {
     private String secret;
     private long expiration;
+    // Validade dos refresh tokens; cada uso emite um novo
+    private Duration refreshExpiration = Duration.ofDays(30);
+    // Cache de tokens já verificados; zero desativa
+    private Duration verifiedTokenCacheTtl = Duration.ofSeconds(30);
+    private long verifiedTokenCacheMaxSize = 10_000;
 }
\ No newline at end of file
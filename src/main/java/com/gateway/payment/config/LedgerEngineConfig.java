@@ -0,0 +1,24 @@
+package com.gateway.payment.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "app.ledger.engine")
+public class LedgerEngineConfig {
+    // jpa (padrão) ou memory
+    private String type = "jpa";
+    private int partitions = 4;
+    private int ringBufferSize = 4096;
+    private String journalDirectory = "data/ledger";
+    private int fsyncBatchSize = 256;
+    private int dbFlushBatchSize = 500;
+    private long snapshotIntervalRecords = 100_000;
+    private long timeoutMs = 5000;
+    // Espera máxima no desligamento para gravar no banco o que já está no journal
+    private long shutdownTimeoutMs = 30_000;
+}
@@ -0,0 +1,23 @@
+package com.gateway.payment.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "app.ledger.reconciliation")
+public class LedgerReconciliationConfig {
+    // Execução agendada (cron); a execução sob demanda pelo endpoint de admin não depende disso
+    private boolean enabled = true;
+    private String cron = "0 0 3 * * *";
+    private int parallelism = 4;
+    // Ids de conta por partição; cada partição é uma consulta curta e independente
+    private long rangeSize = 10_000;
+    private int fetchSize = 500;
+    // Contas verificadas por segundo somando todas as threads; 0 desliga o limite
+    private long maxAccountsPerSecond = 20_000;
+    private int maxReportedMismatches = 1000;
+}
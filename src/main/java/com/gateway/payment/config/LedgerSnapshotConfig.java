@@ -0,0 +1,18 @@
+package com.gateway.payment.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "app.ledger.snapshots")
+public class LedgerSnapshotConfig {
+    private long intervalMs = 60_000;
+    // Distância entre o corte e o agora; lançamentos confirmados depois do corte entram no snapshot seguinte
+    private Duration safetyMargin = Duration.ofMinutes(1);
+}
@@ -0,0 +1,23 @@
+package com.gateway.payment.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "app.merchants.rollups")
+public class MerchantRollupConfig {
+    private boolean enabled = true;
+    private long flushIntervalMs = 5_000;
+    // Intervalos de minuto mais antigos que isso são descartados; hora e dia são mantidos
+    private Duration minuteRetention = Duration.ofDays(2);
+    private long pruneIntervalMs = 3_600_000;
+    // Reconstrução na inicialização conta em dobro o que outras instâncias ainda não gravaram;
+    // só vale para uma instância única. Fora isso, POST /admin/merchants/volume/rebuild
+    private boolean rebuildOnStartup = false;
+}
@@ -0,0 +1,19 @@
+package com.gateway.payment.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "app.outbox")
+public class OutboxConfig {
+    private boolean enabled = false;
+    // in-process (eventos Spring) ou file (JSON por linha, para testes e integrações simples)
+    private String sink = "in-process";
+    private int batchSize = 500;
+    private long pollIntervalMs = 500;
+    private String filePath = "data/outbox/events.jsonl";
+}
@@ -0,0 +1,22 @@
+package com.gateway.payment.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "app.security.password")
+public class PasswordHashingConfig {
+    // Custo do BCrypt; hashes com custo menor são regravados no próximo login bem-sucedido
+    private int bcryptStrength = 10;
+    // Threads dedicadas ao BCrypt, separadas do pool do Tomcat
+    private int hashingThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    // Hashes aguardando thread; acima disso o login é recusado com 503
+    private int queueCapacity = 64;
+    private Duration timeout = Duration.ofSeconds(5);
+}
@@ -0,0 +1,15 @@
+package com.gateway.payment.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "app.payment.batch")
+public class PaymentBatchConfig {
+    private int maxItems = 1000;
+    private int chunkSize = 100;
+}
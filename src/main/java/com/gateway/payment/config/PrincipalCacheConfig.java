@@ -0,0 +1,18 @@
+package com.gateway.payment.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "app.security.principal-cache")
+public class PrincipalCacheConfig {
+    private boolean enabled = true;
+    private Duration ttl = Duration.ofMinutes(5);
+    private long maxSize = 10_000;
+}
@@ -0,0 +1,41 @@
+package com.gateway.payment.config;
+
+import com.gateway.payment.domain.enums.Role;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitConfig {
+    private boolean enabled = true;
+    // Requisições autenticadas por usuário, conforme o papel; papel sem limite não é limitado
+    private Map<Role, Limit> roles = new EnumMap<>(Map.of(
+            Role.CLIENT, new Limit(20, 40),
+            Role.MERCHANT, new Limit(50, 100),
+            Role.ADMIN, new Limit(100, 200)));
+    // Pagamentos recebidos por merchant, somando todos os pagadores
+    private Limit merchant = new Limit(500, 1000);
+    // Buckets cheios são descartados nesse intervalo (equivalem a um bucket novo)
+    private long idleSweepIntervalMs = 60000;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    public static class Limit {
+        private double requestsPerSecond;
+        private int burst;
+
+        public Limit(double requestsPerSecond, int burst) {
+            this.requestsPerSecond = requestsPerSecond;
+            this.burst = burst;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.gateway.payment.config;
+
+import com.gateway.payment.datasource.ReadWriteRoutingDataSource;
+import com.gateway.payment.datasource.ReplicaHealthMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Com {@code app.datasource.routing.enabled=true}, transações
+ * {@code readOnly} declaradas pelos serviços são atendidas pelas réplicas e todo
+ * o resto, inclusive chamadas avulsas a repositórios, pelo primário configurado
+ * em {@code spring.datasource}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.routing", name = "enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaHealthMonitor replicaHealthMonitor(DataSourceRoutingConfig config, MeterRegistry meterRegistry) {
+        Map<String, HikariDataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < config.getReplicas().size(); i++) {
+            DataSourceRoutingConfig.Replica replica = config.getReplicas().get(i);
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica-" + i);
+            dataSource.setJdbcUrl(replica.getUrl());
+            dataSource.setUsername(replica.getUsername());
+            dataSource.setPassword(replica.getPassword());
+            dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+            dataSource.setReadOnly(true);
+            // Uma réplica fora do ar não impede a subida; o monitor a mantém fora da rotação
+            dataSource.setInitializationFailTimeout(-1);
+            dataSource.setConnectionTimeout(Math.max(250, config.getCheckTimeout().toMillis()));
+            // Os pools das réplicas não são beans; as métricas do Hikari são ligadas aqui
+            dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.put(dataSource.getPoolName(), dataSource);
+        }
+        return new ReplicaHealthMonitor(replicas, config);
+    }
+
+    // A conexão física só é obtida no primeiro comando, quando o readOnly da transação já é conhecido
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaHealthMonitor replicaHealthMonitor) {
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primaryDataSource, replicaHealthMonitor));
+    }
+}
@@ -0,0 +1,15 @@
+package com.gateway.payment.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "app.transactions.export")
+public class TransactionExportConfig {
+    // Linhas trazidas do banco por ida ao cursor; limita a memória usada pela exportação
+    private int fetchSize = 500;
+}
@@ -0,0 +1,15 @@
+package com.gateway.payment.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "app.transactions.page")
+public class TransactionPageConfig {
+    private int defaultSize = 50;
+    private int maxSize = 200;
+}
@@ -0,0 +1,27 @@
+package com.gateway.payment.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "app.transactions.partitioning")
+public class TransactionPartitionConfig {
+    // Só PostgreSQL, com a tabela já migrada por db/transactions-partitioning.sql
+    private boolean enabled = false;
+    private String cron = "0 30 2 * * *";
+    // Partições mensais criadas à frente do mês corrente
+    private int premakeMonths = 3;
+    // Meses mantidos no banco além do corrente; os anteriores são arquivados
+    private int hotMonths = 3;
+    private String archiveDirectory = "data/archive/transactions";
+    // Partição restaurada sob demanda fica anexada por este tempo antes de voltar ao arquivo
+    private Duration restoreTtl = Duration.ofDays(7);
+    private int fetchSize = 1000;
+    private int restoreBatchSize = 1000;
+}
@@ -5,11 +5,14 @@ import com.gateway.payment.dto.account.DepositRequest;
 import com.gateway.payment.service.AccountService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+
 @RestController
 @RequestMapping("/accounts")
 @RequiredArgsConstructor
@@ -19,8 +22,9 @@ public class AccountController {
 
     @GetMapping("/balance")
     @PreAuthorize("hasAnyRole('CLIENT', 'MERCHANT')")
-    public ResponseEntity<BalanceResponse> getBalance() {
-        BalanceResponse response = accountService.getBalance();
+    public ResponseEntity<BalanceResponse> getBalance(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        BalanceResponse response = at != null ? accountService.getBalanceAt(at) : accountService.getBalance();
         return ResponseEntity.ok(response);
     }
 
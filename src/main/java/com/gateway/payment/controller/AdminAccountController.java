@@ -0,0 +1,40 @@
+package com.gateway.payment.controller;
+
+import com.gateway.payment.dto.account.BalanceCacheStatsResponse;
+import com.gateway.payment.dto.account.HotModeRequest;
+import com.gateway.payment.service.BalanceCache;
+import com.gateway.payment.service.HotAccountService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/admin/accounts")
+@RequiredArgsConstructor
+public class AdminAccountController {
+
+    private final HotAccountService hotAccountService;
+    private final BalanceCache balanceCache;
+
+    @PutMapping("/{accountId}/hot-mode")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> enableHotMode(@PathVariable Long accountId,
+                                              @RequestBody(required = false) HotModeRequest request) {
+        hotAccountService.enable(accountId, request != null ? request.getSlots() : null);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/{accountId}/hot-mode")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> disableHotMode(@PathVariable Long accountId) {
+        hotAccountService.disable(accountId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/balance-cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BalanceCacheStatsResponse> balanceCacheStats() {
+        return ResponseEntity.ok(balanceCache.stats());
+    }
+}
@@ -0,0 +1,29 @@
+package com.gateway.payment.controller;
+
+import com.gateway.payment.dto.ledger.ReconciliationReport;
+import com.gateway.payment.service.LedgerReconciliationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/admin/ledger")
+@RequiredArgsConstructor
+public class AdminLedgerController {
+
+    private final LedgerReconciliationService reconciliationService;
+
+    // Roda em segundo plano; o progresso é acompanhado pelo GET
+    @PostMapping("/reconciliation")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ReconciliationReport> startReconciliation() {
+        return ResponseEntity.accepted().body(reconciliationService.start());
+    }
+
+    @GetMapping("/reconciliation")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ReconciliationReport> getReconciliation() {
+        return ResponseEntity.ok(reconciliationService.getReport());
+    }
+}
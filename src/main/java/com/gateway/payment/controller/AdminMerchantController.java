@@ -0,0 +1,25 @@
+package com.gateway.payment.controller;
+
+import com.gateway.payment.dto.merchant.MerchantVolumeRebuildResponse;
+import com.gateway.payment.service.MerchantVolumeService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/admin/merchants")
+@RequiredArgsConstructor
+public class AdminMerchantController {
+
+    private final MerchantVolumeService merchantVolumeService;
+
+    // Recalcula merchant_volume_rollups a partir de transactions; rode sem tráfego de pagamentos
+    @PostMapping("/volume/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<MerchantVolumeRebuildResponse> rebuildVolume() {
+        return ResponseEntity.ok(new MerchantVolumeRebuildResponse(merchantVolumeService.rebuild()));
+    }
+}
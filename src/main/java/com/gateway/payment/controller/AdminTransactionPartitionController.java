@@ -0,0 +1,44 @@
+package com.gateway.payment.controller;
+
+import com.gateway.payment.dto.transaction.TransactionPartitionResponse;
+import com.gateway.payment.exception.BusinessException;
+import com.gateway.payment.partition.TransactionPartitionManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.util.List;
+
+@RestController
+@RequestMapping("/admin/transactions/partitions")
+@RequiredArgsConstructor
+public class AdminTransactionPartitionController {
+
+    private final ObjectProvider<TransactionPartitionManager> partitionManager;
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<TransactionPartitionResponse>> listPartitions() {
+        return ResponseEntity.ok(manager().list());
+    }
+
+    // Mês no formato yyyy-MM
+    @PostMapping("/{month}/restore")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<TransactionPartitionResponse> restorePartition(
+            @PathVariable @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+        return ResponseEntity.ok(manager().restore(month));
+    }
+
+    private TransactionPartitionManager manager() {
+        TransactionPartitionManager manager = partitionManager.getIfAvailable();
+        if (manager == null) {
+            throw new BusinessException("Particionamento de transações desabilitado");
+        }
+        return manager;
+    }
+}
@@ -2,6 +2,7 @@ package com.gateway.payment.controller;
 
 import com.gateway.payment.dto.auth.LoginRequest;
 import com.gateway.payment.dto.auth.LoginResponse;
+import com.gateway.payment.dto.auth.RefreshTokenRequest;
 import com.gateway.payment.dto.auth.RegisterRequest;
 import com.gateway.payment.service.AuthService;
 import jakarta.validation.Valid;
@@ -28,4 +29,9 @@ public class AuthController {
         LoginResponse response = authService.login(request);
         return ResponseEntity.ok(response);
     }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<LoginResponse> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        return ResponseEntity.ok(authService.refresh(request));
+    }
 }
\ No newline at end of file
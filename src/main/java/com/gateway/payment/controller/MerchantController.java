@@ -0,0 +1,29 @@
+package com.gateway.payment.controller;
+
+import com.gateway.payment.domain.enums.RollupGranularity;
+import com.gateway.payment.dto.merchant.MerchantVolumeResponse;
+import com.gateway.payment.service.MerchantVolumeService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/merchants")
+@RequiredArgsConstructor
+public class MerchantController {
+
+    private final MerchantVolumeService merchantVolumeService;
+
+    // Quantidade, volume e ticket médio do intervalo que contém "at" (padrão: o dia corrente)
+    @GetMapping("/me/volume")
+    @PreAuthorize("hasRole('MERCHANT')")
+    public ResponseEntity<MerchantVolumeResponse> getVolume(
+            @RequestParam(defaultValue = "DAY") RollupGranularity granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return ResponseEntity.ok(merchantVolumeService.getVolume(granularity, at));
+    }
+}
@@ -1,7 +1,11 @@
 package com.gateway.payment.controller;
 
+import com.gateway.payment.dto.payment.BatchPaymentRequest;
+import com.gateway.payment.dto.payment.BatchPaymentResponse;
 import com.gateway.payment.dto.payment.PaymentRequest;
 import com.gateway.payment.dto.payment.PaymentResponse;
+import com.gateway.payment.service.AsyncPaymentService;
+import com.gateway.payment.service.BatchPaymentService;
 import com.gateway.payment.service.PaymentService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -16,12 +20,33 @@ import org.springframework.web.bind.annotation.*;
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final BatchPaymentService batchPaymentService;
+    private final AsyncPaymentService asyncPaymentService;
 
     @PostMapping
     @PreAuthorize("hasRole('CLIENT')")
     public ResponseEntity<PaymentResponse> processPayment(
-            @Valid @RequestBody PaymentRequest request) {
-        PaymentResponse response = paymentService.processPayment(request);
+            @Valid @RequestBody PaymentRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (asyncPaymentService.isEnabled()) {
+            // Aceito como PENDING; o cliente acompanha a liquidação em GET /payments/{id}
+            return ResponseEntity.accepted().body(asyncPaymentService.accept(request, idempotencyKey));
+        }
+        PaymentResponse response = paymentService.processPayment(request, idempotencyKey);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
+
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyRole('CLIENT','MERCHANT')")
+    public ResponseEntity<PaymentResponse> getPayment(@PathVariable Long id) {
+        return ResponseEntity.ok(asyncPaymentService.getStatus(id));
+    }
+
+    @PostMapping("/batch")
+    @PreAuthorize("hasRole('CLIENT')")
+    public ResponseEntity<BatchPaymentResponse> processBatch(
+            @Valid @RequestBody BatchPaymentRequest request) {
+        BatchPaymentResponse response = batchPaymentService.processBatch(request);
+        return ResponseEntity.ok(response);
+    }
 }
\ No newline at end of file
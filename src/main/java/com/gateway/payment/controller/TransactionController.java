@@ -1,13 +1,20 @@
 package com.gateway.payment.controller;
 
-import com.gateway.payment.dto.transaction.TransactionResponse;
+import com.gateway.payment.domain.enums.TransactionStatus;
+import com.gateway.payment.dto.transaction.ExportFormat;
+import com.gateway.payment.dto.transaction.TransactionPageResponse;
+import com.gateway.payment.service.TransactionExportService;
 import com.gateway.payment.service.TransactionService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/transactions")
@@ -15,11 +22,30 @@ import java.util.List;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final TransactionExportService transactionExportService;
 
     @GetMapping
     @PreAuthorize("hasAnyRole('CLIENT', 'MERCHANT')")
-    public ResponseEntity<List<TransactionResponse>> getUserTransactions() {
-        List<TransactionResponse> transactions = transactionService.getUserTransactions();
+    public ResponseEntity<TransactionPageResponse> getUserTransactions(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        TransactionPageResponse transactions = transactionService.getUserTransactions(cursor, size);
         return ResponseEntity.ok(transactions);
     }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('CLIENT', 'MERCHANT')")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) TransactionStatus status) {
+        ExportFormat exportFormat = ExportFormat.from(format);
+        StreamingResponseBody body = transactionExportService.export(exportFormat, from, to, status);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"transacoes." + exportFormat.getExtension() + "\"")
+                .body(body);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.gateway.payment.datasource;
+
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Envia transações {@code readOnly} declaradas pelos serviços para uma réplica
+ * saudável e todo o resto (escritas, locks pessimistas, acessos sem transação)
+ * para o primário. Os métodos herdados de {@link SimpleJpaRepository} abrem a
+ * própria transação {@code readOnly} quando chamados fora de uma; essas ficam
+ * no primário, para que leituras avulsas logo após uma escrita não caiam em uma
+ * réplica atrasada. Deve ser usado atrás de um {@code LazyConnectionDataSourceProxy}:
+ * o gerenciador de transações abre a conexão antes de marcar a transação como
+ * somente leitura.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    // Nome das transações abertas pelo proxy do repositório: classe alvo + método
+    private static final String REPOSITORY_TRANSACTION_PREFIX = SimpleJpaRepository.class.getName() + ".";
+
+    private final ReplicaHealthMonitor replicaHealthMonitor;
+
+    public ReadWriteRoutingDataSource(DataSource primary, ReplicaHealthMonitor replicaHealthMonitor) {
+        this.replicaHealthMonitor = replicaHealthMonitor;
+        Map<Object, Object> targets = new HashMap<>(replicaHealthMonitor.dataSources());
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (isDeclaredReadOnlyTransaction()) {
+            String replica = replicaHealthMonitor.pick();
+            if (replica != null) {
+                return replica;
+            }
+        }
+        return PRIMARY;
+    }
+
+    private static boolean isDeclaredReadOnlyTransaction() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return false;
+        }
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        return name == null || !name.startsWith(REPOSITORY_TRANSACTION_PREFIX);
+    }
+}
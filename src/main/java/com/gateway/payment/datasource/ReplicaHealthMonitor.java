@@ -0,0 +1,97 @@
+package com.gateway.payment.datasource;
+
+import com.gateway.payment.config.DataSourceRoutingConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Verifica periodicamente cada réplica ({@code SELECT 1} e atraso de replicação)
+ * e escolhe, em round-robin, entre as saudáveis. Sem réplica saudável as
+ * leituras voltam para o primário.
+ */
+@Slf4j
+public class ReplicaHealthMonitor {
+
+    private final DataSourceRoutingConfig config;
+    private final Map<String, DataSource> dataSources;
+    private final List<Node> nodes = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile List<String> healthy = List.of();
+
+    public ReplicaHealthMonitor(Map<String, ? extends DataSource> replicas, DataSourceRoutingConfig config) {
+        this.config = config;
+        this.dataSources = new LinkedHashMap<>(replicas);
+        replicas.forEach((name, dataSource) -> {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.setQueryTimeout((int) Math.max(1, config.getCheckTimeout().toSeconds()));
+            nodes.add(new Node(name, jdbcTemplate));
+        });
+        checkReplicas();
+    }
+
+    public Map<String, DataSource> dataSources() {
+        return dataSources;
+    }
+
+    /**
+     * Nome da réplica para a próxima leitura, ou {@code null} se nenhuma estiver saudável.
+     */
+    public String pick() {
+        List<String> current = healthy;
+        if (current.isEmpty()) {
+            return null;
+        }
+        return current.get(Math.floorMod(next.getAndIncrement(), current.size()));
+    }
+
+    public List<String> healthyReplicas() {
+        return healthy;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.routing.health-check-interval-ms:5000}")
+    public void checkReplicas() {
+        List<String> up = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            boolean wasHealthy = healthy.contains(node.name());
+            String problem = check(node);
+            if (problem == null) {
+                up.add(node.name());
+                if (!wasHealthy) {
+                    log.info("Réplica {} disponível para leituras", node.name());
+                }
+            } else if (wasHealthy) {
+                log.warn("Réplica {} removida da rotação: {}", node.name(), problem);
+            }
+        }
+        healthy = List.copyOf(up);
+    }
+
+    private String check(Node node) {
+        try {
+            node.jdbcTemplate().queryForObject("SELECT 1", Integer.class);
+            if (config.getLagQuery() == null || config.getLagQuery().isBlank()) {
+                return null;
+            }
+            // Nulo quando o servidor não está em recuperação (nada a reaplicar)
+            Number lag = node.jdbcTemplate().queryForObject(config.getLagQuery(), Number.class);
+            double maxLag = config.getMaxLag().toMillis() / 1000.0;
+            if (lag != null && lag.doubleValue() > maxLag) {
+                return "atraso de replicação de " + lag + "s";
+            }
+            return null;
+        } catch (RuntimeException e) {
+            return e.getMessage();
+        }
+    }
+
+    private record Node(String name, JdbcTemplate jdbcTemplate) {
+    }
+}
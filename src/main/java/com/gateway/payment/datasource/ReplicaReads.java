@@ -0,0 +1,28 @@
+package com.gateway.payment.datasource;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Leituras avulsas que aceitam vir de uma réplica: roda a consulta em uma
+ * transação {@code readOnly} declarada, que o {@link ReadWriteRoutingDataSource}
+ * envia à réplica quando o roteamento está ligado. Quem usa deve tolerar o
+ * atraso de replicação (ou reler no primário).
+ */
+@Component
+public class ReplicaReads {
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ReplicaReads(PlatformTransactionManager transactionManager) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public <T> T execute(Supplier<T> read) {
+        return readOnlyTransaction.execute(status -> read.get());
+    }
+}
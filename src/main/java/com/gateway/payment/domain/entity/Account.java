@@ -1,10 +1,9 @@
 package com.gateway.payment.domain.entity;
 
+import com.gateway.payment.domain.value.Money;
 import jakarta.persistence.*;
 import lombok.*;
 
-import java.math.BigDecimal;
-
 @Entity
 @Table(name = "accounts")
 @Getter
@@ -15,7 +14,8 @@ import java.math.BigDecimal;
 public class Account {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "accounts_seq")
+    @SequenceGenerator(name = "accounts_seq", sequenceName = "accounts_seq", allocationSize = 50)
     private Long id;
 
     @OneToOne
@@ -23,25 +23,37 @@ public class Account {
     private User user;
 
     @Column(nullable = false, precision = 15, scale = 2)
-    private BigDecimal balance;
+    private Money balance;
 
     @Version
     private Long version;
 
-    public void debit(BigDecimal amount) {
-        if (balance.compareTo(amount) < 0) {
+    // Quantidade de sub-saldos quando a conta está em modo "hot"; null = conta comum
+    @Column(name = "balance_slots")
+    private Integer balanceSlots;
+
+    // Último número de sequência dos eventos do outbox da conta; só o OutboxService o altera, por JDBC
+    @Column(name = "outbox_sequence", insertable = false, updatable = false)
+    private Long outboxSequence;
+
+    public boolean isHot() {
+        return balanceSlots != null;
+    }
+
+    public void debit(Money amount) {
+        if (balance.isLessThan(amount)) {
             throw new IllegalArgumentException("Saldo insuficiente");
         }
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+        if (!amount.isPositive()) {
             throw new IllegalArgumentException("Valor do débito deve ser positivo");
         }
-        this.balance = this.balance.subtract(amount);
+        this.balance = this.balance.minus(amount);
     }
 
-    public void credit(BigDecimal amount) {
-        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+    public void credit(Money amount) {
+        if (!amount.isPositive()) {
             throw new IllegalArgumentException("Valor do crédito deve ser positivo");
         }
-        this.balance = this.balance.add(amount);
+        this.balance = this.balance.plus(amount);
     }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.gateway.payment.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Sub-saldo de uma conta em modo "hot". Os créditos são espalhados entre os
+ * slots e consolidados periodicamente no saldo da conta.
+ */
+@Entity
+@Table(name = "account_balance_slots",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"account_id", "slot"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountBalanceSlot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_balance_slots_seq")
+    @SequenceGenerator(name = "account_balance_slots_seq", sequenceName = "account_balance_slots_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(nullable = false)
+    private int slot;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal balance;
+}
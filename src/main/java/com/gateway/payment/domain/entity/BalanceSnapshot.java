@@ -0,0 +1,38 @@
+package com.gateway.payment.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Saldo de uma conta considerando os lançamentos com {@code created_at < asOf}
+ * já confirmados quando o snapshot foi gerado: saldo da conta menos os
+ * lançamentos a partir de {@code asOf}. O saldo em um instante entre dois
+ * snapshots é o anterior mais os lançamentos a partir de {@code asOf}.
+ */
+@Entity
+@Table(name = "balance_snapshots",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"account_id", "as_of"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BalanceSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "balance_snapshots_seq")
+    @SequenceGenerator(name = "balance_snapshots_seq", sequenceName = "balance_snapshots_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(nullable = false, precision = 15, scale = 2)
+    private BigDecimal balance;
+
+    @Column(name = "as_of", nullable = false)
+    private LocalDateTime asOf;
+}
@@ -0,0 +1,24 @@
+package com.gateway.payment.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Última posição do journal do engine em memória já gravada nas tabelas
+ * {@code accounts} e {@code transactions}.
+ */
+@Entity
+@Table(name = "ledger_checkpoints")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerCheckpoint {
+
+    @Id
+    private String name;
+
+    @Column(name = "last_sequence", nullable = false)
+    private long lastSequence;
+}
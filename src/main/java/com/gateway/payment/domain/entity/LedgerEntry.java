@@ -0,0 +1,55 @@
+package com.gateway.payment.domain.entity;
+
+import com.gateway.payment.domain.enums.EntryDirection;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Lançamento contábil imutável. Cada movimentação gera um débito e um crédito
+ * com o mesmo {@code transactionId}; {@code accountId} nulo representa o lado
+ * externo (origem dos depósitos).
+ */
+@Entity
+@Table(name = "ledger_entries", indexes = {
+        @Index(name = "idx_ledger_entries_account_created", columnList = "account_id, created_at"),
+        @Index(name = "idx_ledger_entries_created", columnList = "created_at"),
+        @Index(name = "idx_ledger_entries_transaction", columnList = "transaction_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_entries_seq")
+    @SequenceGenerator(name = "ledger_entries_seq", sequenceName = "ledger_entries_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "transaction_id", nullable = false, updatable = false)
+    private Long transactionId;
+
+    @Column(name = "account_id", updatable = false)
+    private Long accountId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false, length = 6)
+    private EntryDirection direction;
+
+    @Column(nullable = false, updatable = false, precision = 15, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.gateway.payment.domain.entity;
+
+import com.gateway.payment.domain.enums.RollupGranularity;
+import com.gateway.payment.domain.value.Money;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Quantidade e volume de pagamentos aprovados de um merchant em um intervalo
+ * (minuto, hora ou dia). Mantido incrementalmente a cada aprovação e
+ * reconstruído a partir de {@code transactions} na inicialização.
+ */
+@Entity
+@Table(name = "merchant_volume_rollups")
+@IdClass(MerchantVolumeRollup.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MerchantVolumeRollup {
+
+    // Id do usuário merchant, o mesmo informado em PaymentRequest.merchantId
+    @Id
+    @Column(name = "merchant_id")
+    private Long merchantId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private RollupGranularity granularity;
+
+    @Id
+    @Column(name = "bucket_start")
+    private LocalDateTime bucketStart;
+
+    @Column(name = "tx_count", nullable = false)
+    private long txCount;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private Money volume;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long merchantId;
+        private RollupGranularity granularity;
+        private LocalDateTime bucketStart;
+    }
+}
@@ -0,0 +1,54 @@
+package com.gateway.payment.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento gravado na mesma transação que alterou o status de uma {@link Transaction}
+ * e removido depois de publicado pelo relay. O {@code payload} é o JSON do evento.
+ * Há um evento por conta envolvida (pagador e merchant), numerado pela sequência
+ * da conta em {@code accountSequence}.
+ */
+@Entity
+@Table(name = "outbox_events", uniqueConstraints = @UniqueConstraint(
+        name = "uk_outbox_events_account_sequence", columnNames = {"account_id", "account_sequence"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "event_type", nullable = false, updatable = false, length = 50)
+    private String eventType;
+
+    @Column(name = "transaction_id", nullable = false, updatable = false)
+    private Long transactionId;
+
+    @Column(name = "account_id", updatable = false)
+    private Long accountId;
+
+    // Ordem do evento entre os da conta, atribuída na ordem de commit
+    @Column(name = "account_sequence", updatable = false)
+    private Long accountSequence;
+
+    @Column(nullable = false, updatable = false, length = 2000)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+}
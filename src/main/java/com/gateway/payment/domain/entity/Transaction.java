@@ -1,14 +1,19 @@
 package com.gateway.payment.domain.entity;
 
+import com.gateway.payment.domain.enums.RejectionReason;
 import com.gateway.payment.domain.enums.TransactionStatus;
+import com.gateway.payment.domain.value.Money;
 import jakarta.persistence.*;
 import lombok.*;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_payer_created", columnList = "payer_account_id, created_at, id"),
+        @Index(name = "idx_transactions_merchant_created", columnList = "merchant_account_id, created_at, id"),
+        @Index(name = "idx_transactions_status", columnList = "status, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -17,7 +22,8 @@ import java.time.LocalDateTime;
 public class Transaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
@@ -29,7 +35,7 @@ public class Transaction {
     private Account merchantAccount;
 
     @Column(nullable = false, precision = 15, scale = 2)
-    private BigDecimal amount;
+    private Money amount;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
@@ -41,6 +47,14 @@ public class Transaction {
     @Column
     private String description;
 
+    // Preenchidos na liquidação assíncrona; pagamentos síncronos já nascem liquidados
+    @Column(name = "settled_at")
+    private LocalDateTime settledAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "failure_reason")
+    private RejectionReason failureReason;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,43 @@
+package com.gateway.payment.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Saldo líquido (créditos menos débitos aprovados) de uma conta dentro de uma
+ * partição mensal de {@code transactions} que foi arquivada. Gravado na mesma
+ * transação que remove a partição e apagado quando ela é restaurada, para que
+ * a reconciliação continue fechando sem ler o arquivo.
+ */
+@Entity
+@Table(name = "transaction_archive_totals")
+@IdClass(TransactionArchiveTotal.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionArchiveTotal {
+
+    @Id
+    @Column(name = "partition_name", length = 32)
+    private String partitionName;
+
+    @Id
+    @Column(name = "account_id")
+    private Long accountId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal net;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String partitionName;
+        private Long accountId;
+    }
+}
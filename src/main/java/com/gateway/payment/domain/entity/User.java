@@ -1,6 +1,7 @@
 package com.gateway.payment.domain.entity;
 
 import com.gateway.payment.domain.enums.Role;
+import com.gateway.payment.security.PrincipalCacheEvictionListener;
 import jakarta.persistence.*;
 import lombok.*;
 import org.springframework.security.core.GrantedAuthority;
@@ -12,6 +13,7 @@ import java.util.Collections;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(PrincipalCacheEvictionListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -20,7 +22,8 @@ import java.util.Collections;
 public class User implements UserDetails {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -0,0 +1,6 @@
+package com.gateway.payment.domain.enums;
+
+public enum EntryDirection {
+    DEBIT,
+    CREDIT
+}
@@ -0,0 +1,13 @@
+package com.gateway.payment.domain.enums;
+
+public enum RejectionReason {
+    PAYER_NOT_FOUND,
+    MERCHANT_NOT_FOUND,
+    NOT_A_MERCHANT,
+    INSUFFICIENT_BALANCE,
+    INVALID_AMOUNT,
+    LOCK_CONFLICT,
+    ENGINE_OVERLOADED,
+    BUSINESS_RULE,
+    ERROR
+}
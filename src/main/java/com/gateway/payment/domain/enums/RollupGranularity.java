@@ -0,0 +1,28 @@
+package com.gateway.payment.domain.enums;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Tamanho dos intervalos das consolidações de volume por merchant.
+ */
+public enum RollupGranularity {
+    MINUTE(ChronoUnit.MINUTES),
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    RollupGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    public LocalDateTime bucketOf(LocalDateTime at) {
+        return at.truncatedTo(unit);
+    }
+
+    // Unidade aceita por DATE_TRUNC no PostgreSQL e no H2
+    public String sqlUnit() {
+        return name().toLowerCase();
+    }
+}
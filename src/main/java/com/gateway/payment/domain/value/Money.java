@@ -0,0 +1,112 @@
+package com.gateway.payment.domain.value;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.gateway.payment.exception.BusinessException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+
+/**
+ * Valor monetário em centavos ({@code long}) com a moeda. Soma, subtração e
+ * comparação são aritmética inteira, sem as alocações do {@link BigDecimal};
+ * a conversão para {@code BigDecimal} acontece só nas bordas (banco, JSON, SQL).
+ * <p>
+ * No JSON é serializado como número decimal com duas casas ({@code 150.50}),
+ * como antes; no banco usa as colunas {@code numeric(15, 2)} existentes por meio
+ * do {@link MoneyConverter}.
+ * <p>
+ * Soma ou subtração que estoura o {@code long} lança {@link BusinessException}
+ * (400), não um {@link ArithmeticException} que chegaria ao cliente como 500.
+ */
+public record Money(long minorUnits, Currency currency) implements Comparable<Money> {
+
+    public static final Currency BRL = Currency.getInstance("BRL");
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0, BRL);
+
+    public Money {
+        if (currency == null) {
+            throw new IllegalArgumentException("Moeda é obrigatória");
+        }
+        if (currency.getDefaultFractionDigits() != SCALE) {
+            throw new IllegalArgumentException("Moeda não suportada: " + currency);
+        }
+    }
+
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits, BRL);
+    }
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static Money of(BigDecimal amount) {
+        if (amount == null) {
+            return null;
+        }
+        try {
+            return ofMinor(amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Valor inválido: " + amount.toPlainString()
+                    + " (máximo de " + SCALE + " casas decimais)");
+        }
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        try {
+            return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+        } catch (ArithmeticException e) {
+            throw outOfRange(e);
+        }
+    }
+
+    public Money minus(Money other) {
+        requireSameCurrency(other);
+        try {
+            return new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+        } catch (ArithmeticException e) {
+            throw outOfRange(e);
+        }
+    }
+
+    public boolean isLessThan(Money other) {
+        requireSameCurrency(other);
+        return minorUnits < other.minorUnits;
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+
+    private static BusinessException outOfRange(ArithmeticException cause) {
+        return new BusinessException("Valor excede o limite suportado", cause);
+    }
+
+    // Currency é um singleton por código: comparação por referência
+    private void requireSameCurrency(Money other) {
+        if (currency != other.currency) {
+            throw new IllegalArgumentException("Moedas diferentes: " + currency + " e " + other.currency);
+        }
+    }
+}
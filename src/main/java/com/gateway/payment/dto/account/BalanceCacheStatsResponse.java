@@ -0,0 +1,14 @@
+package com.gateway.payment.dto.account;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BalanceCacheStatsResponse {
+    private long hits;
+    private long misses;
+    private double hitRatio;
+    private long evictions;
+    private long size;
+}
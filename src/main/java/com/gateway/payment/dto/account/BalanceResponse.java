@@ -1,13 +1,12 @@
 package com.gateway.payment.dto.account;
 
+import com.gateway.payment.domain.value.Money;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
-import java.math.BigDecimal;
-
 @Data
 @AllArgsConstructor
 public class BalanceResponse {
-    private BigDecimal balance;
+    private Money balance;
     private String accountHolder;
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.gateway.payment.dto.account;
 
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
@@ -11,6 +12,7 @@ public class DepositRequest {
 
     @NotNull(message = "Valor é obrigatório")
     @DecimalMin(value = "0.01", message = "Valor mínimo é 0.01")
+    @Digits(integer = 13, fraction = 2, message = "Valor deve ter no máximo duas casas decimais")
     private BigDecimal amount;
 
     private String description;
@@ -0,0 +1,9 @@
+package com.gateway.payment.dto.account;
+
+import lombok.Data;
+
+@Data
+public class HotModeRequest {
+    // Opcional: usa app.payment.hot-accounts.default-slots quando ausente
+    private Integer slots;
+}
@@ -8,6 +8,7 @@ import lombok.Data;
 @AllArgsConstructor
 public class LoginResponse {
     private String token;
+    private String refreshToken;
     private String email;
     private Role role;
     private String name;
@@ -0,0 +1,16 @@
+package com.gateway.payment.dto.ledger;
+
+import com.gateway.payment.domain.value.Money;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ReconciliationMismatch {
+    private Long accountId;
+    // Saldo da conta, incluindo os sub-saldos de contas hot
+    private Money balance;
+    // Créditos menos débitos das transações APPROVED
+    private Money expected;
+    private Money difference;
+}
@@ -0,0 +1,16 @@
+package com.gateway.payment.dto.ledger;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ReconciliationPartitionResponse {
+    // Intervalo de ids [fromAccountId, toAccountId)
+    private long fromAccountId;
+    private long toAccountId;
+    private String status;
+    private long accounts;
+    private long mismatches;
+    private long durationMs;
+}
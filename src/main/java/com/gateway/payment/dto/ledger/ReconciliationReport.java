@@ -0,0 +1,28 @@
+package com.gateway.payment.dto.ledger;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationReport {
+    // RUNNING, COMPLETED ou FAILED (alguma partição falhou)
+    private String status;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private int partitionsTotal;
+    private int partitionsDone;
+    private long accountsChecked;
+    private double accountsPerSecond;
+    private long mismatchCount;
+    // Limitado a app.ledger.reconciliation.max-reported-mismatches
+    private List<ReconciliationMismatch> mismatches;
+    private List<ReconciliationPartitionResponse> partitions;
+}
@@ -0,0 +1,12 @@
+package com.gateway.payment.dto.merchant;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MerchantVolumeRebuildResponse {
+    private int rows;
+}
@@ -0,0 +1,22 @@
+package com.gateway.payment.dto.merchant;
+
+import com.gateway.payment.domain.enums.RollupGranularity;
+import com.gateway.payment.domain.value.Money;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MerchantVolumeResponse {
+    private RollupGranularity granularity;
+    private LocalDateTime bucketStart;
+    private long count;
+    private Money volume;
+    private Money averageTicket;
+}
@@ -0,0 +1,18 @@
+package com.gateway.payment.dto.payment;
+
+import com.gateway.payment.domain.enums.TransactionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchPaymentItemResult {
+    private int index;
+    private Long transactionId;
+    private TransactionStatus status;
+    private String error;
+}
@@ -0,0 +1,14 @@
+package com.gateway.payment.dto.payment;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchPaymentRequest {
+
+    @NotEmpty(message = "Informe ao menos um pagamento")
+    private List<@Valid PaymentRequest> payments;
+}
@@ -0,0 +1,19 @@
+package com.gateway.payment.dto.payment;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchPaymentResponse {
+    private int total;
+    private int approved;
+    private int failed;
+    private List<BatchPaymentItemResult> results;
+}
@@ -14,6 +14,7 @@ public class PaymentRequest {
     @NotNull(message = "Valor é obrigatório")
     @DecimalMin(value = "0.01", message = "Valor mínimo é 0.01")
     @DecimalMax(value = "1000000.00", message = "Valor máximo é 1.000.000,00")
+    @Digits(integer = 13, fraction = 2, message = "Valor deve ter no máximo duas casas decimais")
     private BigDecimal amount;
 
     private String description;
@@ -1,12 +1,14 @@
 package com.gateway.payment.dto.payment;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.gateway.payment.domain.enums.RejectionReason;
 import com.gateway.payment.domain.enums.TransactionStatus;
+import com.gateway.payment.domain.value.Money;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
@@ -15,9 +17,12 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class PaymentResponse {
     private Long transactionId;
-    private BigDecimal amount;
+    private Money amount;
     private TransactionStatus status;
     private String merchantName;
     private String description;
     private LocalDateTime createdAt;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private RejectionReason failureReason;
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.gateway.payment.dto.transaction;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionPageResponse {
+    private List<TransactionResponse> items;
+    // Cursor da próxima página; null quando não há mais itens
+    private String nextCursor;
+}
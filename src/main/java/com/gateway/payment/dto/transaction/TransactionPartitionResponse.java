@@ -0,0 +1,21 @@
+package com.gateway.payment.dto.transaction;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionPartitionResponse {
+    // ATTACHED (no banco), RESTORED (restaurada sob demanda) ou ARCHIVED (só no arquivo)
+    public enum State { ATTACHED, RESTORED, ARCHIVED }
+
+    private String name;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private State state;
+    private Long archiveBytes;
+}
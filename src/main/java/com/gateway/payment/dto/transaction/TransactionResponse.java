@@ -1,12 +1,12 @@
 package com.gateway.payment.dto.transaction;
 
 import com.gateway.payment.domain.enums.TransactionStatus;
+import com.gateway.payment.domain.value.Money;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
@@ -15,7 +15,7 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class TransactionResponse {
     private Long id;
-    private BigDecimal amount;
+    private Money amount;
     private TransactionStatus status;
     private String payerName;
     private String merchantName;
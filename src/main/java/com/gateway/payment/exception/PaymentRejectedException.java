@@ -0,0 +1,15 @@
+package com.gateway.payment.exception;
+
+import com.gateway.payment.domain.enums.RejectionReason;
+import lombok.Getter;
+
+// Recusa de pagamento com motivo conhecido, usado nas métricas por motivo
+@Getter
+public class PaymentRejectedException extends BusinessException {
+    private final RejectionReason reason;
+
+    public PaymentRejectedException(RejectionReason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+}
@@ -0,0 +1,7 @@
+package com.gateway.payment.exception;
+
+public class ServiceOverloadedException extends BusinessException {
+    public ServiceOverloadedException(String message) {
+        super(message);
+    }
+}
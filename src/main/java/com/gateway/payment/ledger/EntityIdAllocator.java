@@ -0,0 +1,42 @@
+package com.gateway.payment.ledger;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reserva ids de uma entidade pelo mesmo gerador (sequence pooled) usado pelo
+ * JPA, de modo que o engine conhece o id antes de gravar a linha e nunca colide
+ * com registros inseridos pelo caminho JPA.
+ */
+class EntityIdAllocator {
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final BeforeExecutionGenerator generator;
+    // O otimizador pooled do Hibernate é synchronized e consulta a sequence dentro do
+    // bloqueio; o lock explícito faz as virtual threads esperarem sem prender a carrier
+    private final ReentrantLock lock = new ReentrantLock();
+
+    EntityIdAllocator(EntityManagerFactory entityManagerFactory, Class<?> entityClass) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.generator = (BeforeExecutionGenerator) sessionFactory.getMappingMetamodel()
+                .getEntityDescriptor(entityClass)
+                .getGenerator();
+    }
+
+    long next() {
+        // A conexão só é obtida quando o bloco em memória da sequence se esgota
+        lock.lock();
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            Object id = generator.generate((SharedSessionContractImplementor) session, null, null, EventType.INSERT);
+            return ((Number) id).longValue();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.gateway.payment.ledger;
+
+import com.gateway.payment.config.LedgerEngineConfig;
+import com.gateway.payment.domain.entity.Account;
+import com.gateway.payment.domain.entity.LedgerEntry;
+import com.gateway.payment.domain.entity.Transaction;
+import com.gateway.payment.domain.enums.RejectionReason;
+import com.gateway.payment.domain.enums.Role;
+import com.gateway.payment.domain.value.Money;
+import com.gateway.payment.exception.BusinessException;
+import com.gateway.payment.exception.InsufficientBalanceException;
+import com.gateway.payment.exception.PaymentRejectedException;
+import com.gateway.payment.repository.AccountRepository;
+import com.gateway.payment.service.OutboxService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Engine de ledger em memória, habilitado com {@code app.ledger.engine.type=memory}.
+ * <p>
+ * Os saldos ficam em partições por id de conta, cada uma com uma única thread
+ * escritora. Um pagamento é decidido na partição do pagador (validação e débito),
+ * registrado no write-ahead journal e só então confirmado; o crédito do merchant
+ * é aplicado na partição dele depois do fsync. As tabelas {@code accounts} e
+ * {@code transactions} são atualizadas de forma assíncrona pelo {@link LedgerPersister}.
+ * <p>
+ * Na inicialização, o estado é reconstruído a partir do último snapshot (ou do
+ * banco, no checkpoint gravado) mais o replay do journal. O saldo inicial de uma
+ * conta criada depois é lido do banco uma única vez, ao resolver a conta e antes
+ * de qualquer registro do journal a referenciar; a partição e o persister partem
+ * desse mesmo valor, e não do banco em momentos diferentes (quando o persister
+ * já pode ter gravado o primeiro crédito).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.ledger.engine", name = "type", havingValue = "memory")
+public class InMemoryLedgerEngine implements LedgerEngine, SmartLifecycle {
+
+    private record AccountRef(long accountId, Role role, String name) {
+    }
+
+    private final LedgerEngineConfig config;
+    private final AccountRepository accountRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxService outboxService;
+    private final EntityIdAllocator idAllocator;
+    private final EntityIdAllocator entryIdAllocator;
+    private final Cache<Long, AccountRef> directory = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .build();
+    private final Map<Long, Long> openingBalances = new ConcurrentHashMap<>();
+
+    private LedgerPartition[] partitions;
+    private WriteAheadJournal journal;
+    private LedgerPersister persister;
+    private volatile boolean running;
+
+    public InMemoryLedgerEngine(LedgerEngineConfig config,
+                                AccountRepository accountRepository,
+                                JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                OutboxService outboxService,
+                                EntityManagerFactory entityManagerFactory) {
+        this.config = config;
+        this.accountRepository = accountRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.outboxService = outboxService;
+        this.idAllocator = new EntityIdAllocator(entityManagerFactory, Transaction.class);
+        this.entryIdAllocator = new EntityIdAllocator(entityManagerFactory, LedgerEntry.class);
+    }
+
+    @Override
+    public LedgerReceipt transfer(Long payerUserId, Long merchantUserId, Money amount, String description) {
+        long cents = toCents(amount, "Valor do pagamento deve ser positivo");
+        AccountRef payer = account(payerUserId, () -> new PaymentRejectedException(
+                RejectionReason.PAYER_NOT_FOUND, "Conta do pagador não encontrada"));
+        AccountRef merchant = account(merchantUserId, () -> new PaymentRejectedException(
+                RejectionReason.MERCHANT_NOT_FOUND, "Merchant não encontrado"));
+        if (merchant.role() != Role.MERCHANT) {
+            throw new PaymentRejectedException(RejectionReason.NOT_A_MERCHANT, "Usuário destino não é um merchant");
+        }
+        ensureRunning();
+
+        JournalRecord record = new JournalRecord(0, JournalRecord.Type.TRANSFER, idAllocator.next(),
+                payer.accountId(), merchant.accountId(), cents, System.currentTimeMillis(), description);
+
+        CompletableFuture<JournalRecord> result = new CompletableFuture<>();
+        LedgerPartition payerPartition = partitionFor(payer.accountId());
+        if (!payerPartition.offer(() -> debitAndAppend(payerPartition, record, result))) {
+            throw new PaymentRejectedException(RejectionReason.ENGINE_OVERLOADED,
+                    "Engine de pagamentos sobrecarregado; tente novamente");
+        }
+        await(result);
+
+        return new LedgerReceipt(record.transactionId(), amount, merchant.name(), description,
+                LedgerPersister.toLocalDateTime(record.timestamp()));
+    }
+
+    @Override
+    public LedgerReceipt deposit(Long userId, Money amount, String description) {
+        long cents = toCents(amount, "Valor do depósito deve ser positivo");
+        AccountRef account = account(userId, () -> new BusinessException("Conta não encontrada"));
+        ensureRunning();
+
+        // Depósito não depende de saldo: vai direto ao journal e é creditado após o fsync
+        JournalRecord record = new JournalRecord(0, JournalRecord.Type.DEPOSIT, idAllocator.next(),
+                account.accountId(), account.accountId(), cents, System.currentTimeMillis(), description);
+        CompletableFuture<JournalRecord> result = journal.append(record)
+                .thenApply(durable -> {
+                    credit(durable.merchantAccountId(), durable.amountCents());
+                    return durable;
+                });
+        await(result);
+
+        return new LedgerReceipt(record.transactionId(), amount, account.name(), description,
+                LedgerPersister.toLocalDateTime(record.timestamp()));
+    }
+
+    @Override
+    public Money getBalance(Long userId) {
+        AccountRef account = account(userId, () -> new BusinessException("Conta não encontrada"));
+        ensureRunning();
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        LedgerPartition partition = partitionFor(account.accountId());
+        if (!partition.offer(() -> result.complete(partition.balance(account.accountId()).cents))) {
+            throw new BusinessException("Engine de pagamentos sobrecarregado; tente novamente");
+        }
+        return Money.ofMinor(await(result));
+    }
+
+    // Executado na thread da partição do pagador
+    private void debitAndAppend(LedgerPartition partition, JournalRecord record,
+                                CompletableFuture<JournalRecord> result) {
+        LedgerPartition.Balance balance = partition.balance(record.payerAccountId());
+        if (balance.cents < record.amountCents()) {
+            result.completeExceptionally(new InsufficientBalanceException("Saldo insuficiente"));
+            return;
+        }
+        balance.cents -= record.amountCents();
+
+        journal.append(record).whenComplete((durable, error) -> {
+            if (error != null) {
+                // Nada foi gravado: estorna o débito na própria partição
+                partition.submitInternal(() -> partition.balance(record.payerAccountId()).cents += record.amountCents());
+                result.completeExceptionally(new BusinessException("Falha ao registrar pagamento"));
+                return;
+            }
+            credit(durable.merchantAccountId(), durable.amountCents());
+            result.complete(durable);
+        });
+    }
+
+    private void credit(long accountId, long cents) {
+        LedgerPartition partition = partitionFor(accountId);
+        partition.submitInternal(() -> partition.balance(accountId).cents += cents);
+    }
+
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get(config.getTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof BusinessException businessException) {
+                throw businessException;
+            }
+            throw new BusinessException("Falha ao processar operação no ledger");
+        } catch (TimeoutException ex) {
+            // A operação pode ainda ser confirmada; o resultado final aparece no extrato
+            throw new BusinessException("Tempo esgotado aguardando confirmação do ledger");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("Operação interrompida");
+        }
+    }
+
+    private AccountRef account(Long userId, Supplier<BusinessException> notFound) {
+        AccountRef cached = directory.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+        // Consulta fora do lock do cache e no primário, para enxergar contas recém-criadas
+        AccountRef account = transactionTemplate.execute(status -> accountRepository.findByUserId(userId))
+                .map(InMemoryLedgerEngine::toRef)
+                .orElseThrow(notFound);
+        // Ainda sem registros no journal para a conta: o saldo do banco é o inicial
+        openingBalance(account.accountId());
+        directory.put(userId, account);
+        return account;
+    }
+
+    // Saldo de uma conta ausente do estado inicial, lido do banco só na primeira vez
+    private long openingBalance(long accountId) {
+        return openingBalances.computeIfAbsent(accountId, this::loadBalance);
+    }
+
+    private static AccountRef toRef(Account account) {
+        return new AccountRef(account.getId(), account.getUser().getRole(), account.getUser().getName());
+    }
+
+    private LedgerPartition partitionFor(long accountId) {
+        return partitions[(int) Math.floorMod(accountId, (long) partitions.length)];
+    }
+
+    private void ensureRunning() {
+        if (!running || !journal.isHealthy()) {
+            throw new BusinessException("Engine de pagamentos indisponível");
+        }
+    }
+
+    private static long toCents(Money amount, String invalidMessage) {
+        if (amount == null || !amount.isPositive()) {
+            throw new BusinessException(invalidMessage);
+        }
+        return amount.minorUnits();
+    }
+
+    private long loadBalance(long accountId) {
+        BigDecimal balance = jdbcTemplate.queryForObject(
+                "SELECT balance FROM accounts WHERE id = ?", BigDecimal.class, accountId);
+        return balance != null ? balance.movePointRight(2).longValueExact() : 0L;
+    }
+
+    private LedgerSnapshot loadFromDatabase(long checkpoint) {
+        Map<Long, Long> balances = new HashMap<>();
+        jdbcTemplate.query("SELECT id, balance FROM accounts", rs -> {
+            balances.put(rs.getLong(1), rs.getBigDecimal(2).movePointRight(2).longValueExact());
+        });
+        return new LedgerSnapshot(checkpoint, balances);
+    }
+
+    @Override
+    public void start() {
+        try {
+            Path dir = Path.of(config.getJournalDirectory());
+            Files.createDirectories(dir);
+            openingBalances.clear();
+
+            if (!accountRepository.findHotAccountIds().isEmpty()) {
+                throw new IllegalStateException(
+                        "Engine em memória não suporta contas em modo hot; desative o modo hot antes de habilitá-lo");
+            }
+
+            // O banco é consistente no checkpoint; o snapshot só é usado se estiver na mesma sequência
+            long checkpoint = LedgerPersister.readCheckpoint(jdbcTemplate);
+            LedgerSnapshot base = LedgerSnapshot.read(dir)
+                    .filter(snapshot -> snapshot.sequence() == checkpoint)
+                    .orElseGet(() -> loadFromDatabase(checkpoint));
+
+            List<JournalRecord> replayed = WriteAheadJournal.replay(dir, base.sequence());
+            long lastSequence = base.sequence();
+            Map<Long, Long> balances = new HashMap<>(base.balances());
+            for (JournalRecord record : replayed) {
+                if (record.sequence() != lastSequence + 1) {
+                    throw new IllegalStateException("Journal do ledger com lacuna após a sequência " + lastSequence);
+                }
+                if (record.type() == JournalRecord.Type.TRANSFER) {
+                    balances.merge(record.payerAccountId(), -record.amountCents(), Long::sum);
+                }
+                balances.merge(record.merchantAccountId(), record.amountCents(), Long::sum);
+                lastSequence = record.sequence();
+            }
+
+            partitions = new LedgerPartition[config.getPartitions()];
+            for (int i = 0; i < partitions.length; i++) {
+                partitions[i] = new LedgerPartition(i, config.getRingBufferSize(), partitions.length,
+                        this::openingBalance);
+            }
+            balances.forEach((accountId, cents) -> partitionFor(accountId).seed(accountId, cents));
+
+            persister = new LedgerPersister(jdbcTemplate, transactionTemplate, dir,
+                    config.getDbFlushBatchSize(), config.getSnapshotIntervalRecords(), config.getShutdownTimeoutMs(),
+                    base, checkpoint, this::openingBalance, entryIdAllocator, outboxService::recordEvents);
+            persister.enqueue(replayed);
+            journal = new WriteAheadJournal(dir, lastSequence, config.getFsyncBatchSize(), persister::enqueue);
+            persister.start(journal);
+            for (LedgerPartition partition : partitions) {
+                partition.start();
+            }
+            running = true;
+
+            log.info("Engine de ledger em memória iniciado: {} contas, {} registros reaplicados, sequência {}",
+                    balances.size(), replayed.size(), lastSequence);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Falha ao iniciar o engine de ledger", ex);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (LedgerPartition partition : partitions) {
+            partition.close();
+        }
+        try {
+            journal.close();
+        } catch (IOException ex) {
+            log.error("Falha ao fechar o journal do ledger", ex);
+        }
+        persister.close();
+        log.info("Engine de ledger em memória finalizado");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,100 @@
+package com.gateway.payment.ledger;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Registro do write-ahead journal. Uma transferência é um único registro com as
+ * duas pernas (débito e crédito), o que mantém a atomicidade no replay.
+ * Formato: [tamanho][payload][crc32].
+ */
+record JournalRecord(long sequence,
+                     Type type,
+                     long transactionId,
+                     long payerAccountId,
+                     long merchantAccountId,
+                     long amountCents,
+                     long timestamp,
+                     String description) {
+
+    enum Type {
+        TRANSFER,
+        DEPOSIT
+    }
+
+    private static final int FIXED_PAYLOAD = 8 + 1 + 8 + 8 + 8 + 8 + 8 + 4;
+
+    JournalRecord withSequence(long newSequence) {
+        return new JournalRecord(newSequence, type, transactionId, payerAccountId,
+                merchantAccountId, amountCents, timestamp, description);
+    }
+
+    void writeTo(ByteBuffer buffer) {
+        byte[] text = description != null ? description.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int start = buffer.position();
+        buffer.putInt(FIXED_PAYLOAD + text.length);
+        buffer.putLong(sequence);
+        buffer.put((byte) type.ordinal());
+        buffer.putLong(transactionId);
+        buffer.putLong(payerAccountId);
+        buffer.putLong(merchantAccountId);
+        buffer.putLong(amountCents);
+        buffer.putLong(timestamp);
+        buffer.putInt(description != null ? text.length : -1);
+        buffer.put(text);
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), start + 4, buffer.position() - start - 4);
+        buffer.putInt((int) crc.getValue());
+    }
+
+    int encodedSize() {
+        int text = description != null ? description.getBytes(StandardCharsets.UTF_8).length : 0;
+        return 4 + FIXED_PAYLOAD + text + 4;
+    }
+
+    /**
+     * Lê o próximo registro. Retorna {@code null} no fim do arquivo ou em um
+     * registro truncado/corrompido (escrita interrompida por queda do processo).
+     */
+    static JournalRecord readFrom(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            if (length < FIXED_PAYLOAD || length > 1 << 20) {
+                return null;
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            int expectedCrc = in.readInt();
+
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != expectedCrc) {
+                return null;
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(payload);
+            long sequence = buffer.getLong();
+            Type type = Type.values()[buffer.get()];
+            long transactionId = buffer.getLong();
+            long payer = buffer.getLong();
+            long merchant = buffer.getLong();
+            long amount = buffer.getLong();
+            long timestamp = buffer.getLong();
+            int textLength = buffer.getInt();
+            String description = null;
+            if (textLength >= 0) {
+                byte[] text = new byte[textLength];
+                buffer.get(text);
+                description = new String(text, StandardCharsets.UTF_8);
+            }
+            return new JournalRecord(sequence, type, transactionId, payer, merchant, amount, timestamp, description);
+        } catch (EOFException ex) {
+            return null;
+        }
+    }
+}
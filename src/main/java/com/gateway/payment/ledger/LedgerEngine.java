@@ -0,0 +1,16 @@
+package com.gateway.payment.ledger;
+
+import com.gateway.payment.domain.value.Money;
+
+/**
+ * Engine alternativo de movimentação de saldos. Quando nenhum engine está
+ * configurado, os serviços usam o caminho JPA padrão.
+ */
+public interface LedgerEngine {
+
+    LedgerReceipt transfer(Long payerUserId, Long merchantUserId, Money amount, String description);
+
+    LedgerReceipt deposit(Long userId, Money amount, String description);
+
+    Money getBalance(Long userId);
+}
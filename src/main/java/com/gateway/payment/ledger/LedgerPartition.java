@@ -0,0 +1,115 @@
+package com.gateway.payment.ledger;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Partição de saldos com um único escritor: apenas a thread da partição lê ou
+ * altera {@link #balance(long)}, então não há locks sobre os saldos. Os comandos
+ * chegam por uma fila circular de tamanho fixo; comandos externos (novos
+ * pagamentos) são recusados quando a partição já tem {@code ringSize} pendentes.
+ */
+@Slf4j
+class LedgerPartition implements AutoCloseable {
+
+    static final class Balance {
+        long cents;
+
+        Balance(long cents) {
+            this.cents = cents;
+        }
+    }
+
+    private final Map<Long, Balance> balances = new HashMap<>();
+    private final LongUnaryOperator balanceLoader;
+    private final BlockingQueue<Runnable> ring;
+    private final Semaphore capacity;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    LedgerPartition(int index, int ringSize, int partitions, LongUnaryOperator balanceLoader) {
+        this.balanceLoader = balanceLoader;
+        // Espaço extra para os créditos vindos das outras partições, que não podem ser recusados
+        this.ring = new ArrayBlockingQueue<>(ringSize * (partitions + 1));
+        this.capacity = new Semaphore(ringSize);
+        this.thread = new Thread(this::run, "ledger-partition-" + index);
+    }
+
+    void seed(long accountId, long cents) {
+        balances.put(accountId, new Balance(cents));
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Enfileira um comando externo; retorna {@code false} se a partição estiver cheia.
+     */
+    boolean offer(Runnable command) {
+        if (!running || !capacity.tryAcquire()) {
+            return false;
+        }
+        ring.add(() -> {
+            capacity.release();
+            command.run();
+        });
+        return true;
+    }
+
+    /**
+     * Enfileira um comando interno (crédito ou estorno de uma transferência já
+     * decidida). Bloqueia se a fila estiver cheia em vez de descartar o comando.
+     */
+    void submitInternal(Runnable command) {
+        if (!running) {
+            return;
+        }
+        try {
+            ring.put(command);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Saldo da conta; só pode ser chamado pela thread da partição. Contas criadas
+     * depois da inicialização partem do saldo inicial resolvido pelo engine.
+     */
+    Balance balance(long accountId) {
+        return balances.computeIfAbsent(accountId, id -> new Balance(balanceLoader.applyAsLong(id)));
+    }
+
+    private void run() {
+        while (running || !ring.isEmpty()) {
+            try {
+                Runnable command = ring.poll(100, TimeUnit.MILLISECONDS);
+                if (command != null) {
+                    command.run();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                log.error("Erro ao executar comando na partição {}", thread.getName(), ex);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            thread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
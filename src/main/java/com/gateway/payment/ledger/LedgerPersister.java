@@ -0,0 +1,266 @@
+package com.gateway.payment.ledger;
+
+import com.gateway.payment.domain.enums.EntryDirection;
+import com.gateway.payment.domain.enums.TransactionStatus;
+import com.gateway.payment.domain.value.Money;
+import com.gateway.payment.outbox.TransactionStatusEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Aplica os registros já duráveis do journal em uma cópia dos saldos e os grava
+ * de forma assíncrona, em lote, nas tabelas {@code transactions},
+ * {@code ledger_entries} e {@code accounts}, junto com o checkpoint e os eventos
+ * do outbox. Após cada
+ * gravação, gera um novo snapshot quando o intervalo configurado é atingido e
+ * libera a rotação do journal.
+ */
+@Slf4j
+class LedgerPersister implements AutoCloseable {
+
+    static final String CHECKPOINT_NAME = "memory-engine";
+
+    private static final String INSERT_TRANSACTION =
+            "INSERT INTO transactions (id, payer_account_id, merchant_account_id, amount, status, created_at, description) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ENTRY =
+            "INSERT INTO ledger_entries (id, transaction_id, account_id, direction, amount, created_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_BALANCE =
+            "UPDATE accounts SET balance = ?, version = version + 1 WHERE id = ?";
+    private static final String UPDATE_CHECKPOINT =
+            "UPDATE ledger_checkpoints SET last_sequence = ? WHERE name = ?";
+    private static final String INSERT_CHECKPOINT =
+            "INSERT INTO ledger_checkpoints (name, last_sequence) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Path directory;
+    private final int flushBatchSize;
+    private final long snapshotInterval;
+    private final long shutdownTimeoutMs;
+    private final Map<Long, Long> balances;
+    private final LongUnaryOperator balanceLoader;
+    private final EntityIdAllocator entryIdAllocator;
+    private final Consumer<List<TransactionStatusEvent>> outboxWriter;
+    private final BlockingQueue<JournalRecord> queue = new LinkedBlockingQueue<>();
+    private final List<JournalRecord> pending = new ArrayList<>();
+    private final Set<Long> dirtyAccounts = new HashSet<>();
+    private final Thread worker;
+
+    private WriteAheadJournal journal;
+    private long appliedSequence;
+    private long persistedSequence;
+    private long snapshotSequence;
+    private volatile boolean running = true;
+
+    LedgerPersister(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, Path directory,
+                    int flushBatchSize, long snapshotInterval, long shutdownTimeoutMs,
+                    LedgerSnapshot snapshot, long persistedSequence,
+                    LongUnaryOperator balanceLoader, EntityIdAllocator entryIdAllocator,
+                    Consumer<List<TransactionStatusEvent>> outboxWriter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.directory = directory;
+        this.flushBatchSize = flushBatchSize;
+        this.snapshotInterval = snapshotInterval;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.balances = new HashMap<>(snapshot.balances());
+        this.balanceLoader = balanceLoader;
+        this.entryIdAllocator = entryIdAllocator;
+        this.outboxWriter = outboxWriter;
+        this.appliedSequence = snapshot.sequence();
+        this.snapshotSequence = snapshot.sequence();
+        this.persistedSequence = persistedSequence;
+        this.worker = new Thread(this::run, "ledger-persister");
+    }
+
+    void start(WriteAheadJournal journal) {
+        this.journal = journal;
+        worker.start();
+    }
+
+    void enqueue(List<JournalRecord> records) {
+        queue.addAll(records);
+    }
+
+    static long readCheckpoint(JdbcTemplate jdbcTemplate) {
+        List<Long> values = jdbcTemplate.queryForList(
+                "SELECT last_sequence FROM ledger_checkpoints WHERE name = ?", Long.class, CHECKPOINT_NAME);
+        return values.isEmpty() ? 0L : values.get(0);
+    }
+
+    private void run() {
+        while (running || !queue.isEmpty() || !pending.isEmpty()) {
+            try {
+                JournalRecord record = queue.poll(50, TimeUnit.MILLISECONDS);
+                if (record != null) {
+                    apply(record);
+                }
+                if (pending.size() >= flushBatchSize || (record == null && !pending.isEmpty())) {
+                    flush();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                log.error("Falha ao gravar o ledger no banco; nova tentativa em seguida", ex);
+                sleepQuietly();
+            }
+        }
+    }
+
+    private void apply(JournalRecord record) {
+        if (record.sequence() <= appliedSequence) {
+            return;
+        }
+        if (record.type() == JournalRecord.Type.TRANSFER) {
+            add(record.payerAccountId(), -record.amountCents());
+        }
+        add(record.merchantAccountId(), record.amountCents());
+        appliedSequence = record.sequence();
+
+        if (record.sequence() > persistedSequence) {
+            pending.add(record);
+            dirtyAccounts.add(record.payerAccountId());
+            dirtyAccounts.add(record.merchantAccountId());
+        }
+    }
+
+    // Contas fora do snapshot: o mesmo saldo inicial que a partição usa, não o banco de agora
+    private void add(long accountId, long deltaCents) {
+        long current = balances.computeIfAbsent(accountId, balanceLoader::applyAsLong);
+        balances.put(accountId, current + deltaCents);
+    }
+
+    private void flush() {
+        List<Object[]> inserts = new ArrayList<>(pending.size());
+        List<Object[]> entries = new ArrayList<>(pending.size() * 2);
+        List<TransactionStatusEvent> events = new ArrayList<>(pending.size());
+        for (JournalRecord record : pending) {
+            boolean transfer = record.type() == JournalRecord.Type.TRANSFER;
+            long payer = transfer ? record.payerAccountId() : record.merchantAccountId();
+            BigDecimal amount = BigDecimal.valueOf(record.amountCents(), 2);
+            LocalDateTime occurredAt = toLocalDateTime(record.timestamp());
+            Timestamp createdAt = Timestamp.valueOf(occurredAt);
+            inserts.add(new Object[]{
+                    record.transactionId(),
+                    payer,
+                    record.merchantAccountId(),
+                    amount,
+                    TransactionStatus.APPROVED.name(),
+                    createdAt,
+                    record.description()
+            });
+            // Depósito: o débito fica no lado externo (conta nula), como no caminho JPA
+            entries.add(new Object[]{entryIdAllocator.next(), record.transactionId(),
+                    transfer ? record.payerAccountId() : null, EntryDirection.DEBIT.name(), amount, createdAt});
+            entries.add(new Object[]{entryIdAllocator.next(), record.transactionId(),
+                    record.merchantAccountId(), EntryDirection.CREDIT.name(), amount, createdAt});
+            events.add(new TransactionStatusEvent(record.transactionId(), payer, record.merchantAccountId(),
+                    Money.ofMinor(record.amountCents()), TransactionStatus.APPROVED, null, occurredAt));
+        }
+        List<Object[]> updates = new ArrayList<>(dirtyAccounts.size());
+        for (Long accountId : dirtyAccounts) {
+            updates.add(new Object[]{BigDecimal.valueOf(balances.get(accountId), 2), accountId});
+        }
+
+        long sequence = appliedSequence;
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_TRANSACTION, inserts);
+            jdbcTemplate.batchUpdate(INSERT_ENTRY, entries);
+            jdbcTemplate.batchUpdate(UPDATE_BALANCE, updates);
+            outboxWriter.accept(events);
+            if (jdbcTemplate.update(UPDATE_CHECKPOINT, sequence, CHECKPOINT_NAME) == 0) {
+                jdbcTemplate.update(INSERT_CHECKPOINT, CHECKPOINT_NAME, sequence);
+            }
+        });
+
+        persistedSequence = sequence;
+        pending.clear();
+        dirtyAccounts.clear();
+
+        if (persistedSequence - snapshotSequence >= snapshotInterval) {
+            writeSnapshot();
+        }
+    }
+
+    private void writeSnapshot() {
+        try {
+            new LedgerSnapshot(persistedSequence, balancesAtPersistedSequence()).write(directory);
+            snapshotSequence = persistedSequence;
+            journal.requestRotation(snapshotSequence);
+            log.info("Snapshot do ledger gravado na sequência {}", snapshotSequence);
+        } catch (IOException ex) {
+            log.error("Falha ao gravar snapshot do ledger", ex);
+        }
+    }
+
+    // O snapshot fica na sequência do checkpoint do banco: registros aplicados mas ainda
+    // não gravados (banco indisponível no desligamento) são desfeitos na cópia e voltam
+    // pelo replay do journal na próxima inicialização, sem serem aplicados duas vezes
+    private Map<Long, Long> balancesAtPersistedSequence() {
+        Map<Long, Long> copy = new HashMap<>(balances);
+        for (JournalRecord record : pending) {
+            if (record.type() == JournalRecord.Type.TRANSFER) {
+                copy.merge(record.payerAccountId(), record.amountCents(), Long::sum);
+            }
+            copy.merge(record.merchantAccountId(), -record.amountCents(), Long::sum);
+        }
+        return copy;
+    }
+
+    static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static void sleepQuietly() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            worker.join(shutdownTimeoutMs);
+            if (worker.isAlive()) {
+                // Banco ainda indisponível: o que faltou gravar fica no journal
+                worker.interrupt();
+                worker.join(TimeUnit.SECONDS.toMillis(5));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            log.warn("Gravação do ledger não terminou; snapshot de desligamento não gerado");
+            return;
+        }
+        if (persistedSequence > snapshotSequence) {
+            writeSnapshot();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.gateway.payment.ledger;
+
+import com.gateway.payment.domain.value.Money;
+
+import java.time.LocalDateTime;
+
+public record LedgerReceipt(Long transactionId,
+                            Money amount,
+                            String merchantName,
+                            String description,
+                            LocalDateTime createdAt) {
+}
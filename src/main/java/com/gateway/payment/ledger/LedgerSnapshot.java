@@ -0,0 +1,63 @@
+package com.gateway.payment.ledger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Snapshot dos saldos (em centavos) na sequência {@code sequence} do journal.
+ * Gravado em arquivo temporário e movido atomicamente.
+ */
+record LedgerSnapshot(long sequence, Map<Long, Long> balances) {
+
+    private static final String FILE_NAME = "snapshot.bin";
+    private static final int MAGIC = 0x4C444753; // "LDGS"
+
+    void write(Path directory) throws IOException {
+        Path temp = directory.resolve(FILE_NAME + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeLong(sequence);
+            out.writeInt(balances.size());
+            for (Map.Entry<Long, Long> entry : balances.entrySet()) {
+                out.writeLong(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+            out.writeInt(MAGIC);
+        }
+        Files.move(temp, directory.resolve(FILE_NAME),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static Optional<LedgerSnapshot> read(Path directory) throws IOException {
+        Path file = directory.resolve(FILE_NAME);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Snapshot do ledger inválido: " + file);
+            }
+            long sequence = in.readLong();
+            int size = in.readInt();
+            Map<Long, Long> balances = new HashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                balances.put(in.readLong(), in.readLong());
+            }
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Snapshot do ledger truncado: " + file);
+            }
+            return Optional.of(new LedgerSnapshot(sequence, balances));
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.gateway.payment.ledger;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Write-ahead journal em segmentos locais ({@code journal-<primeira sequência>.log}).
+ * Uma única thread grava os registros em ordem e faz fsync por lote (group
+ * commit): todos os appends que chegaram durante um fsync entram no próximo.
+ */
+@Slf4j
+class WriteAheadJournal implements AutoCloseable {
+
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final int batchSize;
+    private final Consumer<List<JournalRecord>> onDurable;
+    private final BlockingQueue<PendingAppend> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong rotationRequest = new AtomicLong(-1);
+    private final Thread writer;
+
+    private FileChannel channel;
+    private long nextSequence;
+    private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    private volatile boolean running = true;
+    private volatile IOException failure;
+
+    private record PendingAppend(JournalRecord record, CompletableFuture<JournalRecord> future) {
+    }
+
+    WriteAheadJournal(Path directory, long lastSequence, int batchSize,
+                      Consumer<List<JournalRecord>> onDurable) throws IOException {
+        this.directory = directory;
+        this.batchSize = batchSize;
+        this.onDurable = onDurable;
+        this.nextSequence = lastSequence + 1;
+        this.channel = openSegment(nextSequence);
+        this.writer = new Thread(this::run, "ledger-journal");
+        this.writer.start();
+    }
+
+    /**
+     * Agenda o registro; o future completa com a sequência atribuída após o fsync.
+     */
+    CompletableFuture<JournalRecord> append(JournalRecord record) {
+        CompletableFuture<JournalRecord> future = new CompletableFuture<>();
+        if (failure != null || !running) {
+            future.completeExceptionally(new IllegalStateException("Journal indisponível", failure));
+            return future;
+        }
+        queue.add(new PendingAppend(record, future));
+        return future;
+    }
+
+    boolean isHealthy() {
+        return failure == null && running;
+    }
+
+    /**
+     * Solicita a abertura de um novo segmento e a remoção dos segmentos cujos
+     * registros são todos anteriores ou iguais a {@code upToSequence}.
+     */
+    void requestRotation(long upToSequence) {
+        rotationRequest.accumulateAndGet(upToSequence, Math::max);
+    }
+
+    private void run() {
+        List<PendingAppend> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingAppend first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    writeBatch(batch);
+                    batch.clear();
+                }
+                rotateIfRequested();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void writeBatch(List<PendingAppend> batch) {
+        List<JournalRecord> written = new ArrayList<>(batch.size());
+        try {
+            if (failure != null) {
+                throw failure;
+            }
+            buffer.clear();
+            for (PendingAppend pending : batch) {
+                JournalRecord record = pending.record().withSequence(nextSequence++);
+                ensureCapacity(record.encodedSize());
+                record.writeTo(buffer);
+                written.add(record);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException ex) {
+            failure = ex;
+            log.error("Falha ao gravar o journal do ledger; engine interrompido", ex);
+            batch.forEach(pending -> pending.future().completeExceptionally(
+                    new IllegalStateException("Falha ao gravar o journal", ex)));
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).future().complete(written.get(i));
+        }
+        onDurable.accept(written);
+    }
+
+    private void ensureCapacity(int size) {
+        if (buffer.remaining() < size) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + size));
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+    }
+
+    private void rotateIfRequested() {
+        long upTo = rotationRequest.getAndSet(-1);
+        if (upTo < 0 || failure != null) {
+            return;
+        }
+        try {
+            channel.close();
+            channel = openSegment(nextSequence);
+
+            List<Path> segments = listSegments(directory);
+            for (int i = 0; i < segments.size() - 1; i++) {
+                long lastInSegment = firstSequence(segments.get(i + 1)) - 1;
+                if (lastInSegment <= upTo) {
+                    Files.deleteIfExists(segments.get(i));
+                }
+            }
+        } catch (IOException ex) {
+            failure = ex;
+            log.error("Falha ao rotacionar o journal do ledger", ex);
+        }
+    }
+
+    private FileChannel openSegment(long firstSequence) throws IOException {
+        Path file = directory.resolve(String.format("%s%020d%s", PREFIX, firstSequence, SUFFIX));
+        // Um segmento com este nome só pode conter um registro truncado: é descartado
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            writer.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    /**
+     * Lê, em ordem, os registros com sequência maior que {@code afterSequence}.
+     */
+    static List<JournalRecord> replay(Path directory, long afterSequence) throws IOException {
+        List<JournalRecord> records = new ArrayList<>();
+        for (Path segment : listSegments(directory)) {
+            try (InputStream file = Files.newInputStream(segment);
+                 DataInputStream in = new DataInputStream(new BufferedInputStream(file, 64 * 1024))) {
+                JournalRecord record;
+                while ((record = JournalRecord.readFrom(in)) != null) {
+                    if (record.sequence() > afterSequence) {
+                        records.add(record);
+                    }
+                }
+            }
+        }
+        return records;
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
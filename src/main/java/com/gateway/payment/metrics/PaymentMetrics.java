@@ -0,0 +1,155 @@
+package com.gateway.payment.metrics;
+
+import com.gateway.payment.domain.enums.RejectionReason;
+import com.gateway.payment.domain.enums.TransactionStatus;
+import com.gateway.payment.exception.BusinessException;
+import com.gateway.payment.exception.InsufficientBalanceException;
+import com.gateway.payment.exception.PaymentRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métricas do pipeline de pagamento. Todos os medidores são registrados na
+ * inicialização; no caminho quente cada etapa custa um {@code System.nanoTime()}
+ * e um {@code Timer.record}. Apenas a espera por lock publica histograma, com
+ * buckets fixos.
+ * <p>
+ * Uso: {@code t = metrics.stage(Stage.X, t)} mede a etapa desde {@code t} e
+ * devolve o início da próxima.
+ */
+@Component
+public class PaymentMetrics {
+
+    public enum Stage {
+        // Resolução do usuário autenticado
+        PRINCIPAL,
+        // Conexão + SELECT ... FOR UPDATE das contas
+        LOCK,
+        // Conta do merchant (inclusive contas hot) e validação do papel
+        MERCHANT,
+        // Validação de saldo, débito e crédito em memória
+        DEBIT_CREDIT,
+        // Inserts, flush e commit
+        PERSIST,
+        // Transferência no engine em memória (journal + fsync)
+        LEDGER
+    }
+
+    private final Map<Stage, Timer> stages = new EnumMap<>(Stage.class);
+    private final Map<TransactionStatus, Counter> processed = new EnumMap<>(TransactionStatus.class);
+    private final Map<RejectionReason, Counter> rejected = new EnumMap<>(RejectionReason.class);
+    private final Timer lockWait;
+    private final Timer total;
+
+    public PaymentMetrics(MeterRegistry registry) {
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, Timer.builder("payment.stage")
+                    .description("Duração de cada etapa do processamento de pagamento")
+                    .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                    .register(registry));
+        }
+        for (TransactionStatus status : TransactionStatus.values()) {
+            processed.put(status, Counter.builder("payments.processed")
+                    .description("Pagamentos processados por status final")
+                    .tag("status", status.name())
+                    .register(registry));
+        }
+        for (RejectionReason reason : RejectionReason.values()) {
+            rejected.put(reason, Counter.builder("payments.rejected")
+                    .description("Pagamentos recusados por motivo")
+                    .tag("reason", reason.name().toLowerCase(Locale.ROOT))
+                    .register(registry));
+        }
+        this.lockWait = Timer.builder("payment.lock.wait")
+                .description("Espera pelo lock pessimista das contas do pagamento")
+                // Poucos buckets fixos em vez do histograma de percentis completo (~70 séries)
+                .serviceLevelObjectives(Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofMillis(10),
+                        Duration.ofMillis(25), Duration.ofMillis(50), Duration.ofMillis(100),
+                        Duration.ofMillis(250), Duration.ofMillis(500), Duration.ofSeconds(1),
+                        Duration.ofSeconds(2), Duration.ofSeconds(5), Duration.ofSeconds(10))
+                .register(registry);
+        this.total = Timer.builder("payment.process")
+                .description("Duração total do processamento de pagamento")
+                .register(registry);
+    }
+
+    public long stage(Stage stage, long startNanos) {
+        long now = System.nanoTime();
+        stages.get(stage).record(now - startNanos, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    public long lockAcquired(long startNanos) {
+        long now = System.nanoTime();
+        stages.get(Stage.LOCK).record(now - startNanos, TimeUnit.NANOSECONDS);
+        lockWait.record(now - startNanos, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    /**
+     * Mede a persistência até o fim da transação corrente, incluindo flush e commit.
+     */
+    public void persistUntilCompletion(long startNanos) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            stage(Stage.PERSIST, startNanos);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                stage(Stage.PERSIST, startNanos);
+            }
+        });
+    }
+
+    public void approved(long startNanos) {
+        total.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        processed.get(TransactionStatus.APPROVED).increment();
+    }
+
+    // Aceito para liquidação assíncrona; o status final é contado em settled()
+    public void accepted(long startNanos) {
+        total.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        processed.get(TransactionStatus.PENDING).increment();
+    }
+
+    public void settled(TransactionStatus status, RejectionReason reason) {
+        processed.get(status).increment();
+        if (reason != null) {
+            rejected.get(reason).increment();
+        }
+    }
+
+    public void rejected(RuntimeException failure, long startNanos) {
+        total.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        processed.get(TransactionStatus.FAILED).increment();
+        rejected.get(reasonOf(failure)).increment();
+    }
+
+    static RejectionReason reasonOf(RuntimeException failure) {
+        if (failure instanceof PaymentRejectedException rejection) {
+            return rejection.getReason();
+        }
+        if (failure instanceof InsufficientBalanceException) {
+            return RejectionReason.INSUFFICIENT_BALANCE;
+        }
+        if (failure instanceof ConcurrencyFailureException) {
+            return RejectionReason.LOCK_CONFLICT;
+        }
+        if (failure instanceof BusinessException) {
+            return RejectionReason.BUSINESS_RULE;
+        }
+        return RejectionReason.ERROR;
+    }
+}
@@ -0,0 +1,68 @@
+package com.gateway.payment.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gateway.payment.config.OutboxConfig;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Acrescenta os eventos a um arquivo, um JSON por linha, com fsync por lote.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.outbox", name = "sink", havingValue = "file")
+public class FileOutboxSink implements OutboxSink {
+
+    private final ObjectMapper objectMapper;
+    private final Path file;
+    // Um lote por vez no arquivo; ReentrantLock não prende a carrier thread durante o fsync
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public FileOutboxSink(ObjectMapper objectMapper, OutboxConfig config) {
+        this.objectMapper = objectMapper;
+        this.file = Path.of(config.getFilePath());
+    }
+
+    @Override
+    public void publish(List<OutboxMessage> messages) {
+        StringBuilder lines = new StringBuilder(messages.size() * 256);
+        try {
+            for (OutboxMessage message : messages) {
+                lines.append(objectMapper.writeValueAsString(message)).append('\n');
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar evento do outbox", e);
+        }
+
+        lock.lock();
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            if (directory != null) {
+                Files.createDirectories(directory);
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao gravar eventos do outbox em " + file, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.gateway.payment.outbox;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento do outbox entregue aos sinks, um por conta envolvida na transação.
+ * Entrega ao menos uma vez: consumidores devem ignorar ids já processados. Os
+ * eventos de uma conta chegam em ordem crescente de {@code accountSequence}.
+ */
+public record OutboxMessage(Long id,
+                            String eventType,
+                            Long transactionId,
+                            Long accountId,
+                            Long accountSequence,
+                            @JsonRawValue String payload,
+                            LocalDateTime createdAt) {
+}
@@ -0,0 +1,83 @@
+package com.gateway.payment.outbox;
+
+import com.gateway.payment.config.OutboxConfig;
+import com.gateway.payment.domain.entity.OutboxEvent;
+import com.gateway.payment.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Publica os eventos do outbox em lotes e os remove na mesma transação que os
+ * bloqueou. Se o sink falhar ou o commit não acontecer, o lote é publicado de
+ * novo: entrega ao menos uma vez.
+ * <p>
+ * A ordem é por conta: os eventos de cada conta saem em ordem de
+ * {@code account_sequence}, que segue a ordem de commit (ver
+ * {@link com.gateway.payment.service.OutboxService}). A ordem de id não serve:
+ * a sequence aloca ids em blocos por instância. Não há ordem entre contas.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.outbox", name = "enabled", havingValue = "true")
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxConfig config;
+    private final Counter published;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       OutboxSink sink,
+                       TransactionTemplate transactionTemplate,
+                       OutboxConfig config,
+                       MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.sink = sink;
+        this.transactionTemplate = transactionTemplate;
+        this.config = config;
+        this.published = Counter.builder("outbox.events.published")
+                .description("Eventos do outbox entregues ao sink")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:500}")
+    public void relay() {
+        try {
+            int count;
+            do {
+                count = relayBatch();
+            } while (count == config.getBatchSize());
+        } catch (RuntimeException e) {
+            log.error("Falha ao publicar eventos do outbox; nova tentativa no próximo ciclo: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Publica o próximo lote e devolve quantos eventos foram entregues.
+     */
+    public int relayBatch() {
+        Integer count = transactionTemplate.execute(status -> {
+            List<OutboxEvent> events = outboxEventRepository.lockNextBatch(config.getBatchSize());
+            if (events.isEmpty()) {
+                return 0;
+            }
+            sink.publish(events.stream()
+                    .map(event -> new OutboxMessage(event.getId(), event.getEventType(), event.getTransactionId(),
+                            event.getAccountId(), event.getAccountSequence(), event.getPayload(),
+                            event.getCreatedAt()))
+                    .toList());
+            outboxEventRepository.deleteAllByIdInBatch(events.stream().map(OutboxEvent::getId).toList());
+            return events.size();
+        });
+        published.increment(count);
+        return count;
+    }
+}
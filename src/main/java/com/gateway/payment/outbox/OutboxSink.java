@@ -0,0 +1,13 @@
+package com.gateway.payment.outbox;
+
+import java.util.List;
+
+/**
+ * Destino dos eventos do outbox. O lote chega ordenado por conta e, em cada
+ * conta, por sequência; uma exceção faz o relay desfazer a remoção e reenviar o
+ * lote inteiro no próximo ciclo.
+ */
+public interface OutboxSink {
+
+    void publish(List<OutboxMessage> messages);
+}
@@ -0,0 +1,34 @@
+package com.gateway.payment.outbox;
+
+import com.gateway.payment.domain.entity.Transaction;
+import com.gateway.payment.domain.enums.RejectionReason;
+import com.gateway.payment.domain.enums.TransactionStatus;
+import com.gateway.payment.domain.value.Money;
+
+import java.time.LocalDateTime;
+
+/**
+ * Payload dos eventos de status de transação. Em depósitos, pagador e merchant
+ * são a mesma conta.
+ */
+public record TransactionStatusEvent(Long transactionId,
+                                     Long payerAccountId,
+                                     Long merchantAccountId,
+                                     Money amount,
+                                     TransactionStatus status,
+                                     RejectionReason failureReason,
+                                     LocalDateTime occurredAt) {
+
+    public static final String TYPE = "TRANSACTION_STATUS_CHANGED";
+
+    public static TransactionStatusEvent of(Transaction transaction) {
+        return new TransactionStatusEvent(
+                transaction.getId(),
+                transaction.getPayerAccount().getId(),
+                transaction.getMerchantAccount().getId(),
+                transaction.getAmount(),
+                transaction.getStatus(),
+                transaction.getFailureReason(),
+                transaction.getSettledAt() != null ? transaction.getSettledAt() : transaction.getCreatedAt());
+    }
+}
@@ -0,0 +1,21 @@
+package com.gateway.payment.partition;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Linha de {@code transactions} como gravada no arquivo de uma partição.
+ * Os nomes e tipos seguem as colunas, não a entidade.
+ */
+public record ArchivedTransaction(
+        long id,
+        long payerAccountId,
+        long merchantAccountId,
+        BigDecimal amount,
+        String status,
+        LocalDateTime createdAt,
+        String description,
+        LocalDateTime settledAt,
+        String failureReason
+) {
+}
@@ -0,0 +1,132 @@
+package com.gateway.payment.partition;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Arquivo de uma partição arquivada: uma transação JSON por linha, comprimido
+ * com gzip. A escrita vai para um {@code .tmp} ao lado do destino, que só é
+ * renomeado (atomicamente) depois do fsync; um arquivo final existe apenas
+ * se estiver completo.
+ */
+public final class TransactionArchiveFile {
+
+    public static final String EXTENSION = ".jsonl.gz";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    private static final ObjectWriter WRITER = MAPPER.writerFor(ArchivedTransaction.class);
+    private static final ObjectReader READER = MAPPER.readerFor(ArchivedTransaction.class);
+    private static final byte[] NEWLINE = "\n".getBytes(StandardCharsets.UTF_8);
+
+    private TransactionArchiveFile() {
+    }
+
+    public static Path pathOf(Path directory, String partitionName) {
+        return directory.resolve(partitionName + EXTENSION);
+    }
+
+    public static Writer create(Path target) throws IOException {
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        return new Writer(target);
+    }
+
+    /**
+     * Lê o arquivo em streaming, entregando lotes de até {@code batchSize}
+     * transações. Retorna o total lido.
+     */
+    public static long read(Path source, int batchSize, Consumer<List<ArchivedTransaction>> batches)
+            throws IOException {
+        long total = 0;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(source), 64 * 1024);
+             MappingIterator<ArchivedTransaction> rows = READER.readValues(in)) {
+            List<ArchivedTransaction> batch = new ArrayList<>(batchSize);
+            while (rows.hasNext()) {
+                batch.add(rows.next());
+                if (batch.size() == batchSize) {
+                    batches.accept(batch);
+                    total += batch.size();
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                batches.accept(batch);
+                total += batch.size();
+            }
+        }
+        return total;
+    }
+
+    public static final class Writer implements Closeable {
+        private final Path target;
+        private final Path temp;
+        private final FileChannel channel;
+        private final GZIPOutputStream gzip;
+        private final OutputStream out;
+        private long rows;
+        private boolean committed;
+
+        private Writer(Path target) throws IOException {
+            this.target = target;
+            this.temp = target.resolveSibling(target.getFileName() + ".tmp");
+            this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.gzip = new GZIPOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+            this.out = new BufferedOutputStream(gzip, 64 * 1024);
+        }
+
+        public void write(ArchivedTransaction transaction) throws IOException {
+            out.write(WRITER.writeValueAsBytes(transaction));
+            out.write(NEWLINE);
+            rows++;
+        }
+
+        /**
+         * Fecha o gzip, força os dados para o disco e publica o arquivo no
+         * destino, substituindo uma versão anterior.
+         */
+        public long commit() throws IOException {
+            out.flush();
+            gzip.finish();
+            channel.force(true);
+            channel.close();
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            committed = true;
+            return rows;
+        }
+
+        // Sem commit o temporário é descartado
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                channel.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+}
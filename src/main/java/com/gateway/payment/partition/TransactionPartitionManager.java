@@ -0,0 +1,390 @@
+package com.gateway.payment.partition;
+
+import com.gateway.payment.config.TransactionPartitionConfig;
+import com.gateway.payment.dto.transaction.TransactionPartitionResponse;
+import com.gateway.payment.dto.transaction.TransactionPartitionResponse.State;
+import com.gateway.payment.exception.BusinessException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Manutenção da tabela {@code transactions} particionada por mês de
+ * {@code created_at} (PostgreSQL 14+, após db/transactions-partitioning.sql).
+ * <p>
+ * Na inicialização e no cron: cria as partições do mês corrente e dos
+ * {@code premakeMonths} seguintes e arquiva as anteriores a {@code hotMonths}.
+ * Arquivar é: gravação dos saldos líquidos por conta em
+ * {@code transaction_archive_totals}, DETACH CONCURRENTLY (sem bloquear o
+ * tráfego na tabela mãe), cópia em streaming para um arquivo gzip e DROP, este
+ * na mesma transação que regrava os saldos. Os saldos existem antes de a
+ * partição sair da tabela; a reconciliação só os soma quando a partição já não
+ * está anexada ({@link #LIVE_PARTITIONS}), então nunca há janela em que o mês
+ * falte ou conte duas vezes. Cada passo é idempotente: um DETACH interrompido é
+ * concluído com FINALIZE e uma partição desanexada que não chegou a ser removida
+ * é concluída na execução seguinte.
+ * <p>
+ * {@link #restore(YearMonth)} faz o caminho inverso em uma única transação;
+ * a partição restaurada fica anexada por {@code restoreTtl}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.transactions.partitioning", name = "enabled", havingValue = "true")
+public class TransactionPartitionManager implements SmartLifecycle {
+
+    private static final String PREFIX = "transactions_p";
+    private static final Pattern NAME = Pattern.compile("^" + PREFIX + "(\\d{6})$");
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String RESTORED_MARKER = ".restored";
+
+    private static final String COLUMNS = "id, payer_account_id, merchant_account_id, amount, status, " +
+            "created_at, description, settled_at, failure_reason";
+
+    private static final String ATTACHED = "SELECT c.relname, i.inhdetachpending FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = 'transactions'::regclass";
+
+    /**
+     * Partições visíveis às consultas em {@code transactions} no snapshot do
+     * próprio comando: as com DETACH pendente já não são lidas pela tabela mãe.
+     */
+    public static final String LIVE_PARTITIONS = "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = 'transactions'::regclass AND NOT i.inhdetachpending";
+
+    private static final String MANAGED_TABLES = "SELECT tablename FROM pg_tables " +
+            "WHERE schemaname = current_schema() AND tablename LIKE 'transactions\\_p%'";
+
+    // Depósitos (pagador = merchant) só contam como crédito, como na reconciliação
+    private static final String ARCHIVE_TOTALS = "INSERT INTO transaction_archive_totals " +
+            "(partition_name, account_id, net) SELECT ?, account_id, SUM(net) FROM (" +
+            "SELECT merchant_account_id AS account_id, amount AS net FROM %1$s WHERE status = 'APPROVED' " +
+            "UNION ALL SELECT payer_account_id, -amount FROM %1$s " +
+            "WHERE status = 'APPROVED' AND payer_account_id <> merchant_account_id) x GROUP BY account_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionPartitionConfig config;
+
+    private volatile boolean active;
+    private volatile boolean running;
+
+    public static String partitionName(YearMonth month) {
+        return PREFIX + month.format(MONTH);
+    }
+
+    public static YearMonth monthOf(String partitionName) {
+        Matcher matcher = NAME.matcher(partitionName);
+        return matcher.matches() ? YearMonth.parse(matcher.group(1), MONTH) : null;
+    }
+
+    /**
+     * Cria as partições que faltam e arquiva as frias. Sem efeito se a tabela
+     * não estiver particionada.
+     */
+    @Scheduled(cron = "${app.transactions.partitioning.cron:0 30 2 * * *}")
+    public synchronized void maintain() {
+        if (!active) {
+            return;
+        }
+        try {
+            createUpcomingPartitions();
+            archiveColdPartitions();
+        } catch (RuntimeException e) {
+            log.error("Erro na manutenção das partições de transações: {}", e.getMessage());
+        }
+    }
+
+    void createUpcomingPartitions() {
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= config.getPremakeMonths(); i++) {
+            YearMonth month = current.plusMonths(i);
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month) +
+                    " PARTITION OF transactions FOR VALUES FROM ('" + start(month) + "') TO ('" +
+                    start(month.plusMonths(1)) + "')");
+        }
+    }
+
+    void archiveColdPartitions() {
+        YearMonth oldestHot = YearMonth.now().minusMonths(config.getHotMonths());
+        Map<String, Boolean> attached = attachedPartitions();
+        for (String table : jdbcTemplate.queryForList(MANAGED_TABLES, String.class)) {
+            YearMonth month = monthOf(table);
+            if (month == null || !month.isBefore(oldestHot)) {
+                continue;
+            }
+            if (Boolean.FALSE.equals(attached.get(table)) && recentlyRestored(table)) {
+                continue;
+            }
+            try {
+                long rows = archive(month, attached.get(table));
+                log.info("Partição {} arquivada ({} transações)", table, rows);
+            } catch (RuntimeException e) {
+                log.error("Erro ao arquivar a partição {}: {}", table, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @param detachPending {@code null} se a partição já não está anexada;
+     *                      {@code true} se um DETACH CONCURRENTLY foi interrompido
+     */
+    private long archive(YearMonth month, Boolean detachPending) {
+        String table = partitionName(month);
+        if (detachPending != null) {
+            // Saldos antes do DETACH: a reconciliação passa a somá-los no mesmo snapshot em que o mês sai
+            transactionTemplate.executeWithoutResult(status -> writeTotals(table));
+            // Fora de transação: CONCURRENTLY e FINALIZE não rodam em bloco de transação
+            jdbcTemplate.execute("ALTER TABLE transactions DETACH PARTITION " + table
+                    + (detachPending ? " FINALIZE" : " CONCURRENTLY"));
+        }
+        long rows = writeArchive(table);
+        // Regravados com a partição já fora da tabela: nada mais muda nela
+        transactionTemplate.executeWithoutResult(status -> {
+            writeTotals(table);
+            jdbcTemplate.execute("DROP TABLE " + table);
+        });
+        deleteQuietly(markerOf(table));
+        return rows;
+    }
+
+    private void writeTotals(String table) {
+        jdbcTemplate.update("DELETE FROM transaction_archive_totals WHERE partition_name = ?", table);
+        jdbcTemplate.update(ARCHIVE_TOTALS.formatted(table), table);
+    }
+
+    // Nome da partição anexada e se há um DETACH pendente nela
+    private Map<String, Boolean> attachedPartitions() {
+        Map<String, Boolean> attached = new HashMap<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList(ATTACHED)) {
+            attached.put((String) row.get("relname"), Boolean.TRUE.equals(row.get("inhdetachpending")));
+        }
+        return attached;
+    }
+
+    private long writeArchive(String table) {
+        Path target = TransactionArchiveFile.pathOf(directory(), table);
+        try (TransactionArchiveFile.Writer writer = TransactionArchiveFile.create(target)) {
+            // Transação própria para o driver ler com cursor (fetchSize) em vez de materializar tudo
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                var statement = con.prepareStatement("SELECT " + COLUMNS + " FROM " + table + " ORDER BY id");
+                statement.setFetchSize(config.getFetchSize());
+                return statement;
+            }, (RowCallbackHandler) rs -> {
+                Timestamp settledAt = rs.getTimestamp(8);
+                try {
+                    writer.write(new ArchivedTransaction(rs.getLong(1), rs.getLong(2), rs.getLong(3),
+                            rs.getBigDecimal(4), rs.getString(5), rs.getTimestamp(6).toLocalDateTime(),
+                            rs.getString(7), settledAt != null ? settledAt.toLocalDateTime() : null,
+                            rs.getString(9)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            return writer.commit();
+        } catch (IOException | UncheckedIOException e) {
+            throw new BusinessException("Erro ao gravar o arquivo da partição " + table, e);
+        }
+    }
+
+    /**
+     * Recria a partição do mês a partir do arquivo e a anexa de volta à tabela.
+     * O arquivo é mantido; a partição volta a ser arquivada após {@code restoreTtl}.
+     */
+    public synchronized TransactionPartitionResponse restore(YearMonth month) {
+        requireActive();
+        String table = partitionName(month);
+        Path source = TransactionArchiveFile.pathOf(directory(), table);
+        if (!Files.exists(source)) {
+            throw new BusinessException("Partição " + table + " não está arquivada");
+        }
+        if (jdbcTemplate.queryForList(MANAGED_TABLES, String.class).contains(table)) {
+            throw new BusinessException("Partição " + table + " já está no banco");
+        }
+
+        String insert = "INSERT INTO " + table + " (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        Long rows = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("CREATE TABLE " + table +
+                    " (LIKE transactions INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+            long restored;
+            try {
+                restored = TransactionArchiveFile.read(source, config.getRestoreBatchSize(), batch ->
+                        jdbcTemplate.batchUpdate(insert, batch, batch.size(), (ps, row) -> {
+                            ps.setLong(1, row.id());
+                            ps.setLong(2, row.payerAccountId());
+                            ps.setLong(3, row.merchantAccountId());
+                            ps.setBigDecimal(4, row.amount());
+                            ps.setString(5, row.status());
+                            ps.setTimestamp(6, Timestamp.valueOf(row.createdAt()));
+                            ps.setString(7, row.description());
+                            ps.setTimestamp(8, row.settledAt() != null ? Timestamp.valueOf(row.settledAt()) : null);
+                            ps.setString(9, row.failureReason());
+                        }));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            jdbcTemplate.update("DELETE FROM transaction_archive_totals WHERE partition_name = ?", table);
+            jdbcTemplate.execute("ALTER TABLE transactions ATTACH PARTITION " + table +
+                    " FOR VALUES FROM ('" + start(month) + "') TO ('" + start(month.plusMonths(1)) + "')");
+            return restored;
+        });
+        try {
+            Files.writeString(markerOf(table), Instant.now().toString());
+        } catch (IOException e) {
+            log.warn("Marcador de restauração de {} não gravado: {}", table, e.getMessage());
+        }
+        log.info("Partição {} restaurada ({} transações)", table, rows);
+        return new TransactionPartitionResponse(table, start(month), start(month.plusMonths(1)),
+                State.RESTORED, size(source));
+    }
+
+    public List<TransactionPartitionResponse> list() {
+        requireActive();
+        TreeMap<YearMonth, TransactionPartitionResponse> partitions = new TreeMap<>();
+        for (String table : attachedPartitions().keySet()) {
+            YearMonth month = monthOf(table);
+            if (month != null) {
+                Path archive = TransactionArchiveFile.pathOf(directory(), table);
+                partitions.put(month, new TransactionPartitionResponse(table, start(month),
+                        start(month.plusMonths(1)), Files.exists(markerOf(table)) ? State.RESTORED : State.ATTACHED,
+                        Files.exists(archive) ? size(archive) : null));
+            }
+        }
+        try (var files = Files.list(directory())) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(file -> file.endsWith(TransactionArchiveFile.EXTENSION))
+                    .map(file -> file.substring(0, file.length() - TransactionArchiveFile.EXTENSION.length()))
+                    .forEach(table -> {
+                        YearMonth month = monthOf(table);
+                        if (month != null && !partitions.containsKey(month)) {
+                            partitions.put(month, new TransactionPartitionResponse(table, start(month),
+                                    start(month.plusMonths(1)), State.ARCHIVED,
+                                    size(TransactionArchiveFile.pathOf(directory(), table))));
+                        }
+                    });
+        } catch (IOException e) {
+            log.debug("Diretório de arquivo indisponível: {}", e.getMessage());
+        }
+        return new ArrayList<>(partitions.values());
+    }
+
+    private boolean recentlyRestored(String table) {
+        try {
+            Path marker = markerOf(table);
+            return Files.exists(marker) && Duration.between(Files.getLastModifiedTime(marker).toInstant(),
+                    Instant.now()).compareTo(config.getRestoreTtl()) < 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Se {@code transactions} é particionada e a manutenção está ativa.
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    private void requireActive() {
+        if (!active) {
+            throw new BusinessException("Tabela de transações não está particionada");
+        }
+    }
+
+    private boolean isPartitioned() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) con ->
+                con.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(product)) {
+            return false;
+        }
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_partitioned_table " +
+                "WHERE partrelid = to_regclass('transactions')", Integer.class);
+        return count != null && count > 0;
+    }
+
+    private Path directory() {
+        return Paths.get(config.getArchiveDirectory());
+    }
+
+    private Path markerOf(String table) {
+        return directory().resolve(table + RESTORED_MARKER);
+    }
+
+    private static LocalDateTime start(YearMonth month) {
+        return month.atDay(1).atStartOfDay();
+    }
+
+    private static Long size(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Arquivo {} não removido: {}", path, e.getMessage());
+        }
+    }
+
+    @Override
+    public void start() {
+        try {
+            active = isPartitioned();
+        } catch (RuntimeException e) {
+            log.error("Erro ao verificar o particionamento de transactions: {}", e.getMessage());
+        }
+        if (active) {
+            // Partições do mês corrente em diante antes de aceitar pagamentos; arquivamento só no cron
+            createUpcomingPartitions();
+        } else {
+            log.warn("Particionamento habilitado, mas transactions não é uma tabela particionada " +
+                    "no PostgreSQL; execute db/transactions-partitioning.sql");
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 4096;
+    }
+}
@@ -0,0 +1,10 @@
+package com.gateway.payment.repository;
+
+import java.math.BigDecimal;
+
+// Projeção: saldo de uma conta considerando os lançamentos anteriores a um instante
+public interface AccountBalanceAt {
+    Long getAccountId();
+
+    BigDecimal getBalance();
+}
@@ -0,0 +1,33 @@
+package com.gateway.payment.repository;
+
+import com.gateway.payment.domain.entity.AccountBalanceSlot;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface AccountBalanceSlotRepository extends JpaRepository<AccountBalanceSlot, Long> {
+
+    List<AccountBalanceSlot> findByAccountId(Long accountId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AccountBalanceSlot s WHERE s.accountId = :accountId ORDER BY s.slot")
+    List<AccountBalanceSlot> findByAccountIdWithLock(@Param("accountId") Long accountId);
+
+    @Modifying
+    @Query("UPDATE AccountBalanceSlot s SET s.balance = s.balance + :amount " +
+            "WHERE s.accountId = :accountId AND s.slot = :slot")
+    int addToSlot(@Param("accountId") Long accountId, @Param("slot") int slot,
+                  @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("DELETE FROM AccountBalanceSlot s WHERE s.accountId = :accountId")
+    int deleteByAccountId(@Param("accountId") Long accountId);
+}
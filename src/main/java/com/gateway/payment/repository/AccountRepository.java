@@ -9,6 +9,9 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import jakarta.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,7 +19,44 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     Optional<Account> findByUser(User user);
     Optional<Account> findByUserId(Long userId);
 
+    // Conta e titular em uma única consulta (leitura de saldo)
+    @Query("SELECT a FROM Account a JOIN FETCH a.user u WHERE u.id = :userId")
+    Optional<Account> findWithUserByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT a.id FROM Account a WHERE a.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT a FROM Account a WHERE a.id = :id")
     Optional<Account> findByIdWithLock(@Param("id") Long id);
-}
\ No newline at end of file
+
+    // Lock das contas em ordem de id para evitar deadlock entre pagamentos cruzados.
+    // Contas "hot" ficam de fora: seus créditos vão para os sub-saldos, sem lock na linha.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a JOIN FETCH a.user u " +
+            "WHERE u.id IN :userIds AND a.balanceSlots IS NULL ORDER BY a.id")
+    List<Account> findByUserIdsWithLock(@Param("userIds") Collection<Long> userIds);
+
+    @Query("SELECT a FROM Account a JOIN FETCH a.user u " +
+            "WHERE u.id IN :userIds AND a.balanceSlots IS NOT NULL")
+    List<Account> findHotByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    @Query("SELECT a FROM Account a JOIN FETCH a.user u WHERE u.id IN :userIds")
+    List<Account> findWithUserByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a JOIN FETCH a.user " +
+            "WHERE a.id IN :ids AND a.balanceSlots IS NULL ORDER BY a.id")
+    List<Account> findByIdsWithLock(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT a FROM Account a JOIN FETCH a.user WHERE a.id IN :ids AND a.balanceSlots IS NOT NULL")
+    List<Account> findHotByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT a.id FROM Account a WHERE a.balanceSlots IS NOT NULL")
+    List<Long> findHotAccountIds();
+
+    // Saldo consolidado mais sub-saldos em um único comando, para que ambos venham do mesmo snapshot
+    @Query(value = "SELECT a.balance + COALESCE((SELECT SUM(s.balance) FROM account_balance_slots s " +
+            "WHERE s.account_id = a.id), 0) FROM accounts a WHERE a.id = :id", nativeQuery = true)
+    Optional<BigDecimal> findBalanceIncludingSlots(@Param("id") Long id);
+}
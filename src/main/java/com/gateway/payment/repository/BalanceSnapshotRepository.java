@@ -0,0 +1,21 @@
+package com.gateway.payment.repository;
+
+import com.gateway.payment.domain.entity.BalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+
+    Optional<BalanceSnapshot> findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(Long accountId,
+                                                                                      LocalDateTime at);
+
+    boolean existsByAccountIdAndAsOfGreaterThan(Long accountId, LocalDateTime at);
+
+    @Query("SELECT MAX(s.asOf) FROM BalanceSnapshot s")
+    LocalDateTime findLatestAsOf();
+}
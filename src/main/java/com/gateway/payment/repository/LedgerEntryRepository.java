@@ -0,0 +1,49 @@
+package com.gateway.payment.repository;
+
+import com.gateway.payment.domain.entity.LedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    List<LedgerEntry> findByTransactionId(Long transactionId);
+
+    // Créditos somam e débitos subtraem; intervalo [from, to)
+    @Query("SELECT COALESCE(SUM(CASE WHEN e.direction = com.gateway.payment.domain.enums.EntryDirection.CREDIT " +
+            "THEN e.amount ELSE -e.amount END), 0) FROM LedgerEntry e " +
+            "WHERE e.accountId = :accountId AND e.createdAt >= :from AND e.createdAt < :to")
+    BigDecimal sumByAccountIdBetween(@Param("accountId") Long accountId,
+                                     @Param("from") LocalDateTime from,
+                                     @Param("to") LocalDateTime to);
+
+    @Query("SELECT DISTINCT e.accountId FROM LedgerEntry e " +
+            "WHERE e.accountId IS NOT NULL AND e.createdAt >= :from AND e.createdAt < :to")
+    List<Long> findAccountIdsBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Saldo confirmado (mais sub-saldos) menos os lançamentos a partir de :at, em um único comando:
+    // tudo vem do mesmo snapshot do banco, inclusive lançamentos confirmados com created_at antigo
+    @Query(value = "SELECT a.balance + COALESCE((SELECT SUM(s.balance) FROM account_balance_slots s " +
+            "WHERE s.account_id = a.id), 0) - COALESCE((SELECT SUM(CASE WHEN e.direction = 'CREDIT' " +
+            "THEN e.amount ELSE -e.amount END) FROM ledger_entries e " +
+            "WHERE e.account_id = a.id AND e.created_at >= :at), 0) FROM accounts a WHERE a.id = :accountId",
+            nativeQuery = true)
+    Optional<BigDecimal> findCommittedBalanceBefore(@Param("accountId") Long accountId,
+                                                    @Param("at") LocalDateTime at);
+
+    @Query(value = "SELECT a.id AS \"accountId\", a.balance + COALESCE((SELECT SUM(s.balance) " +
+            "FROM account_balance_slots s WHERE s.account_id = a.id), 0) - COALESCE((SELECT SUM(CASE " +
+            "WHEN e.direction = 'CREDIT' THEN e.amount ELSE -e.amount END) FROM ledger_entries e " +
+            "WHERE e.account_id = a.id AND e.created_at >= :at), 0) AS \"balance\" " +
+            "FROM accounts a WHERE a.id IN :accountIds", nativeQuery = true)
+    List<AccountBalanceAt> findCommittedBalancesBefore(@Param("accountIds") Collection<Long> accountIds,
+                                                       @Param("at") LocalDateTime at);
+}
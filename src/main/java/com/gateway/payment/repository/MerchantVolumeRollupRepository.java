@@ -0,0 +1,21 @@
+package com.gateway.payment.repository;
+
+import com.gateway.payment.domain.entity.MerchantVolumeRollup;
+import com.gateway.payment.domain.enums.RollupGranularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface MerchantVolumeRollupRepository
+        extends JpaRepository<MerchantVolumeRollup, MerchantVolumeRollup.Key> {
+
+    @Modifying
+    @Query("DELETE FROM MerchantVolumeRollup r WHERE r.granularity = :granularity AND r.bucketStart < :before")
+    int deleteBucketsBefore(@Param("granularity") RollupGranularity granularity,
+                            @Param("before") LocalDateTime before);
+}
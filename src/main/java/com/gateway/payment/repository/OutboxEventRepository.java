@@ -0,0 +1,19 @@
+package com.gateway.payment.repository;
+
+import com.gateway.payment.domain.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Lock nas linhas do lote, lidas na ordem de cada conta: outra instância do relay espera por
+    // elas em vez de publicar os eventos seguintes da mesma conta antes delas
+    @Query(value = "SELECT * FROM outbox_events ORDER BY account_id, account_sequence LIMIT :limit FOR UPDATE",
+            nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(@Param("limit") int limit);
+}
@@ -0,0 +1,10 @@
+package com.gateway.payment.repository;
+
+// Projeção: pagamento pendente e as contas que ele movimenta
+public interface PendingTransactionRef {
+    Long getId();
+
+    Long getPayerAccountId();
+
+    Long getMerchantAccountId();
+}
@@ -0,0 +1,23 @@
+package com.gateway.payment.repository;
+
+import com.gateway.payment.domain.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
+
+    // Zero linhas: o token já foi usado por outra requisição
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.id = :id")
+    int consume(@Param("id") String id);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
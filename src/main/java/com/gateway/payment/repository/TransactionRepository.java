@@ -2,14 +2,73 @@ package com.gateway.payment.repository;
 
 import com.gateway.payment.domain.entity.Transaction;
 import com.gateway.payment.domain.entity.Account;
+import com.gateway.payment.domain.enums.TransactionStatus;
+import com.gateway.payment.dto.transaction.TransactionResponse;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
-    List<Transaction> findByPayerAccountOrMerchantAccount(Account payer, Account merchant);
     List<Transaction> findByPayerAccount(Account payer);
     List<Transaction> findByMerchantAccount(Account merchant);
-}
\ No newline at end of file
+
+    // Paginação por keyset em (created_at, id), servida pelo índice (payer_account_id, created_at, id).
+    // O "created_at <= :createdAt" redundante fica fora do OR para o PostgreSQL podar as partições
+    // mensais mais novas que o cursor; a primeira página lê as partições da mais nova para a mais antiga.
+    @Query("SELECT new com.gateway.payment.dto.transaction.TransactionResponse(" +
+            "t.id, t.amount, t.status, pu.name, mu.name, t.description, t.createdAt) " +
+            "FROM Transaction t JOIN t.payerAccount pa JOIN pa.user pu " +
+            "JOIN t.merchantAccount ma JOIN ma.user mu " +
+            "WHERE pa.id = :accountId " +
+            "AND t.createdAt <= :createdAt " +
+            "AND (t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.id < :id)) " +
+            "ORDER BY t.createdAt DESC, t.id DESC")
+    List<TransactionResponse> findPayerPage(@Param("accountId") Long accountId,
+                                            @Param("createdAt") LocalDateTime createdAt,
+                                            @Param("id") Long id,
+                                            Limit limit);
+
+    // Lado do merchant, servido pelo índice (merchant_account_id, created_at, id).
+    // Depósitos (pagador = merchant) já aparecem no lado do pagador.
+    @Query("SELECT new com.gateway.payment.dto.transaction.TransactionResponse(" +
+            "t.id, t.amount, t.status, pu.name, mu.name, t.description, t.createdAt) " +
+            "FROM Transaction t JOIN t.payerAccount pa JOIN pa.user pu " +
+            "JOIN t.merchantAccount ma JOIN ma.user mu " +
+            "WHERE ma.id = :accountId AND pa.id <> :accountId " +
+            "AND t.createdAt <= :createdAt " +
+            "AND (t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.id < :id)) " +
+            "ORDER BY t.createdAt DESC, t.id DESC")
+    List<TransactionResponse> findMerchantPage(@Param("accountId") Long accountId,
+                                               @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("id") Long id,
+                                               Limit limit);
+
+    // Pendentes de um worker em ordem de aceite, com lock para que outra instância espere
+    // em vez de liquidar o mesmo pagamento. A ordem é por created_at e não por id: cada
+    // instância reserva seu próprio bloco de ids da sequence. O limite em created_at
+    // restringe a busca às partições recentes.
+    @Query(value = "SELECT id AS \"id\", payer_account_id AS \"payerAccountId\", " +
+            "merchant_account_id AS \"merchantAccountId\" FROM transactions " +
+            "WHERE status = 'PENDING' AND created_at >= :since AND MOD(payer_account_id, :workers) = :worker " +
+            "ORDER BY created_at, id LIMIT :limit FOR UPDATE", nativeQuery = true)
+    List<PendingTransactionRef> lockPendingForWorker(@Param("workers") int workers,
+                                                     @Param("worker") int worker,
+                                                     @Param("since") LocalDateTime since,
+                                                     @Param("limit") int limit);
+
+    List<Transaction> findByIdInAndCreatedAtGreaterThanEqual(Collection<Long> ids, LocalDateTime since);
+
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.payerAccount pa JOIN FETCH pa.user " +
+            "JOIN FETCH t.merchantAccount ma JOIN FETCH ma.user WHERE t.id = :id")
+    Optional<Transaction> findWithParticipantsById(@Param("id") Long id);
+
+    long countByStatusAndCreatedAtGreaterThanEqual(TransactionStatus status, LocalDateTime since);
+}
@@ -0,0 +1,34 @@
+package com.gateway.payment.security;
+
+import com.gateway.payment.domain.entity.User;
+import com.gateway.payment.exception.BusinessException;
+import com.gateway.payment.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolve o usuário autenticado. Quando o principal já é a entidade {@link User}
+ * (caso do {@link JwtAuthenticationFilter}), o id é obtido sem consultar o banco.
+ */
+@Component
+@RequiredArgsConstructor
+public class AuthenticatedUserProvider {
+
+    private final UserRepository userRepository;
+
+    public String getEmail() {
+        return SecurityContextHolder.getContext().getAuthentication().getName();
+    }
+
+    public Long getUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication.getPrincipal() instanceof User user && user.getId() != null) {
+            return user.getId();
+        }
+        return userRepository.findByEmail(authentication.getName())
+                .map(User::getId)
+                .orElseThrow(() -> new BusinessException("Usuário não encontrado"));
+    }
+}
@@ -0,0 +1,108 @@
+package com.gateway.payment.security;
+
+import com.gateway.payment.config.PasswordHashingConfig;
+import com.gateway.payment.exception.BusinessException;
+import com.gateway.payment.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BCrypt executado em um pool próprio e limitado. Um pico de logins ocupa no
+ * máximo {@code hashing-threads} CPUs em vez de todas as threads do Tomcat, e
+ * o excedente além de {@code queue-capacity} é recusado na hora com 503 em vez
+ * de enfileirar indefinidamente.
+ */
+@Slf4j
+@Component
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    private final BCryptPasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(PasswordHashingConfig config, MeterRegistry meterRegistry) {
+        this.delegate = new BCryptPasswordEncoder(config.getBcryptStrength());
+        this.timeoutMillis = config.getTimeout().toMillis();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(config.getHashingThreads(), config.getHashingThreads(),
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "password-hashing");
+        this.rejected = Counter.builder("auth.password.hashing.rejected")
+                .description("Hashes de senha recusados por excesso de demanda")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    // Só compara o custo gravado no hash com o configurado: não precisa do pool
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceOverloadedException("Muitas autenticações simultâneas; tente novamente em instantes");
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new ServiceOverloadedException("Muitas autenticações simultâneas; tente novamente em instantes");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new BusinessException("Operação interrompida");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Falha ao calcular hash de senha", e.getCause());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        List<Runnable> pending = executor.shutdownNow();
+        if (!pending.isEmpty()) {
+            log.warn("{} hashes de senha descartados no desligamento", pending.size());
+        }
+    }
+}
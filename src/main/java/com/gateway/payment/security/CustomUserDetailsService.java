@@ -1,21 +1,48 @@
 package com.gateway.payment.security;
 
+import com.gateway.payment.datasource.ReplicaReads;
 import com.gateway.payment.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import com.gateway.payment.domain.entity.User;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ReplicaReads replicaReads;
+    private final PrincipalCache principalCache;
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        return userRepository.findByEmail(email)
+        // Um cadastro recente pode ainda não ter chegado à réplica: tenta o primário antes de recusar
+        return replicaReads.execute(() -> userRepository.findByEmail(email))
+                .or(() -> transactionTemplate.execute(status -> userRepository.findByEmail(email)))
                 .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado: " + email));
     }
+
+    /**
+     * Chamado pelo {@code DaoAuthenticationProvider} após um login bem-sucedido cujo
+     * hash tem custo menor que o configurado: regrava o hash com o custo atual.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        transactionTemplate.executeWithoutResult(status ->
+                userRepository.updatePassword(user.getUsername(), newPassword));
+        principalCache.invalidate(user.getUsername());
+        log.info("Hash de senha de {} atualizado para o custo configurado", user.getUsername());
+        if (user instanceof User entity) {
+            entity.setPassword(newPassword);
+        }
+        return user;
+    }
 }
\ No newline at end of file
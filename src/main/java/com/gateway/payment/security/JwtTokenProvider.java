@@ -1,30 +1,50 @@
 package com.gateway.payment.security;
 
 import com.gateway.payment.config.JwtConfig;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class JwtTokenProvider {
 
     private final JwtConfig jwtConfig;
+    private final Key signingKey;
+    private final JwtParser parser;
+    private final Cache<String, Claims> verifiedTokens;
 
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtConfig.getSecret().getBytes());
+    public JwtTokenProvider(JwtConfig jwtConfig) {
+        this.jwtConfig = jwtConfig;
+        // Chave e parser são imutáveis e thread-safe: calculados uma única vez
+        this.signingKey = Keys.hmacShaKeyFor(jwtConfig.getSecret().getBytes());
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.verifiedTokens = buildVerifiedTokenCache(jwtConfig);
     }
 
     public String generateToken(Authentication authentication) {
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        return generateToken((UserDetails) authentication.getPrincipal());
+    }
+
+    public String generateToken(UserDetails userDetails) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtConfig.getExpiration());
 
@@ -32,26 +52,40 @@ public class JwtTokenProvider {
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
+    /**
+     * Valida assinatura e expiração do token com um único parse e devolve as claims.
+     * Tokens já verificados são servidos do cache (indexado pelo SHA-256 do token)
+     * até o menor entre o TTL configurado e a expiração do próprio token.
+     */
+    public Optional<Claims> verifyToken(String token) {
+        if (verifiedTokens == null) {
+            return parse(token);
+        }
+        String digest = digest(token);
+        Claims cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<Claims> claims = parse(token);
+        claims.ifPresent(value -> verifiedTokens.put(digest, value));
+        return claims;
+    }
+
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.getSubject();
+        return parser.parseClaimsJws(token).getBody().getSubject();
     }
 
     public boolean validateToken(String token) {
+        return verifyToken(token).isPresent();
+    }
+
+    private Optional<Claims> parse(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
+            return Optional.of(parser.parseClaimsJws(token).getBody());
         } catch (SignatureException ex) {
             log.error("Assinatura JWT inválida");
         } catch (MalformedJwtException ex) {
@@ -63,6 +97,51 @@ public class JwtTokenProvider {
         } catch (IllegalArgumentException ex) {
             log.error("Claims JWT estão vazias");
         }
-        return false;
+        return Optional.empty();
+    }
+
+    private static Cache<String, Claims> buildVerifiedTokenCache(JwtConfig jwtConfig) {
+        Duration ttl = jwtConfig.getVerifiedTokenCacheTtl();
+        if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+            return null;
+        }
+        long ttlNanos = ttl.toNanos();
+        return Caffeine.newBuilder()
+                .maximumSize(jwtConfig.getVerifiedTokenCacheMaxSize())
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                        Date expiration = claims.getExpiration();
+                        if (expiration == null) {
+                            return ttlNanos;
+                        }
+                        long untilExpiration = TimeUnit.MILLISECONDS.toNanos(
+                                expiration.getTime() - System.currentTimeMillis());
+                        return Math.max(0, Math.min(ttlNanos, untilExpiration));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Claims claims, long currentTime,
+                                                  long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Claims claims, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 indisponível", ex);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,110 @@
+package com.gateway.payment.security;
+
+import com.gateway.payment.config.PrincipalCacheConfig;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Cache dos usuários autenticados pelo {@link JwtAuthenticationFilter}, evitando
+ * uma consulta à tabela {@code users} em toda requisição. A chave combina o
+ * subject do token com o instante de emissão (iat).
+ */
+@Slf4j
+@Component
+public class PrincipalCache {
+
+    private final PrincipalCacheConfig config;
+    private final AsyncCache<Key, UserDetails> cache;
+
+    public PrincipalCache(PrincipalCacheConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaxSize())
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "principals");
+    }
+
+    public UserDetails get(String subject, long issuedAt, Function<String, UserDetails> loader) {
+        if (!config.isEnabled()) {
+            return loader.apply(subject);
+        }
+        // get atômico por chave: requisições simultâneas esperam a mesma carga, e uma
+        // invalidação durante a carga descarta o futuro em vez de ser sobrescrita por ele.
+        // Dentro do lock só o futuro é registrado; a consulta ao banco roda na thread que
+        // o criou, sem prender a carrier das virtual threads durante o I/O.
+        Key key = new Key(subject, issuedAt);
+        CompletableFuture<UserDetails> mine = new CompletableFuture<>();
+        CompletableFuture<UserDetails> entry = cache.get(key, (k, executor) -> mine);
+        if (entry == mine) {
+            try {
+                mine.complete(loader.apply(subject));
+            } catch (RuntimeException e) {
+                mine.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return entry.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Remove todas as entradas do usuário. Quando chamado dentro de uma transação,
+     * remove novamente após o commit para descartar leituras concorrentes que
+     * tenham recarregado o estado antigo.
+     */
+    public void invalidate(String subject) {
+        evict(subject);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(subject);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    public long hitCount() {
+        return cache.synchronous().stats().hitCount();
+    }
+
+    public long missCount() {
+        return cache.synchronous().stats().missCount();
+    }
+
+    public long size() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    private void evict(String subject) {
+        // A visão assíncrona inclui as cargas em andamento
+        cache.asMap().keySet().removeIf(key -> key.subject().equals(subject));
+        log.debug("Principal {} removido do cache", subject);
+    }
+
+    record Key(String subject, long issuedAt) {
+    }
+}
@@ -0,0 +1,24 @@
+package com.gateway.payment.security;
+
+import com.gateway.payment.domain.entity.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener JPA de {@link User}: qualquer alteração de role ou credenciais
+ * invalida o principal em cache.
+ */
+@Component
+@RequiredArgsConstructor
+public class PrincipalCacheEvictionListener {
+
+    private final PrincipalCache principalCache;
+
+    @PostUpdate
+    @PostRemove
+    public void evict(User user) {
+        principalCache.invalidate(user.getEmail());
+    }
+}
@@ -0,0 +1,232 @@
+package com.gateway.payment.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gateway.payment.config.PaymentBatchConfig;
+import com.gateway.payment.config.RateLimitConfig;
+import com.gateway.payment.domain.entity.User;
+import com.gateway.payment.exception.GlobalExceptionHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limita requisições autenticadas por usuário (conforme o papel) e pagamentos
+ * recebidos por merchant, logo após o {@link JwtAuthenticationFilter}. Requisições
+ * acima do limite recebem 429 antes de qualquer acesso ao banco.
+ * <p>
+ * Em {@code POST /payments} e {@code POST /payments/batch} o corpo é lido até um
+ * limite, com ou sem {@code Content-Length}, para descobrir os merchants; corpos
+ * maiores recebem 413. Cada pagamento de um lote consome uma ficha do merchant.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    // Corpo de um PaymentRequest é pequeno; um lote tem no máximo max-items deles
+    private static final int MAX_PAYMENT_BODY = 16 * 1024;
+    private static final int MAX_BATCH_ITEM_BODY = 2 * 1024;
+
+    private final RateLimiter rateLimiter;
+    private final RateLimitConfig config;
+    private final PaymentBatchConfig batchConfig;
+    private final ObjectMapper objectMapper;
+    private final Counter principalRejections;
+    private final Counter merchantRejections;
+
+    public RateLimitFilter(RateLimiter rateLimiter, RateLimitConfig config, PaymentBatchConfig batchConfig,
+                           ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        this.config = config;
+        this.batchConfig = batchConfig;
+        this.objectMapper = objectMapper;
+        this.principalRejections = rejections(meterRegistry, "principal");
+        this.merchantRejections = rejections(meterRegistry, "merchant");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!config.isEnabled() || authentication == null || !(authentication.getPrincipal() instanceof User user)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RateLimitConfig.Limit limit = config.getRoles().get(user.getRole());
+        if (limit != null) {
+            long wait = rateLimiter.tryAcquire("user:" + user.getId(), limit);
+            if (wait > 0) {
+                principalRejections.increment();
+                reject(response, wait);
+                return;
+            }
+        }
+
+        HttpServletRequest forwarded = request;
+        boolean batch = isPath(request, "/payments/batch");
+        if (batch || isPath(request, "/payments")) {
+            int maxBody = batch ? batchConfig.getMaxItems() * MAX_BATCH_ITEM_BODY : MAX_PAYMENT_BODY;
+            // Sem Content-Length (chunked) o tamanho só é conhecido lendo o corpo até o limite
+            byte[] body = request.getContentLengthLong() > maxBody
+                    ? null
+                    : request.getInputStream().readNBytes(maxBody + 1);
+            if (body == null || body.length > maxBody) {
+                error(response, HttpStatus.PAYLOAD_TOO_LARGE,
+                        "Corpo da requisição excede o limite de " + maxBody + " bytes");
+                return;
+            }
+            forwarded = new CachedBodyRequest(request, body);
+
+            // Em ordem de id; fichas já consumidas de outro merchant do lote não são devolvidas
+            for (Map.Entry<Long, Integer> merchant : paymentsByMerchant(body, batch).entrySet()) {
+                long wait = rateLimiter.tryAcquire("merchant:" + merchant.getKey(), config.getMerchant(),
+                        merchant.getValue());
+                if (wait > 0) {
+                    merchantRejections.increment();
+                    reject(response, wait);
+                    return;
+                }
+            }
+        }
+
+        filterChain.doFilter(forwarded, response);
+    }
+
+    private static boolean isPath(HttpServletRequest request, String path) {
+        return HttpMethod.POST.matches(request.getMethod())
+                && request.getRequestURI().equals(request.getContextPath() + path);
+    }
+
+    // Corpo inválido segue adiante: a validação do controller responde com 400
+    private Map<Long, Integer> paymentsByMerchant(byte[] body, boolean batch) {
+        Map<Long, Integer> payments = new TreeMap<>();
+        try {
+            JsonNode root = objectMapper.readTree(body);
+            if (batch) {
+                JsonNode items = root != null ? root.get("payments") : null;
+                if (items != null && items.isArray()) {
+                    items.forEach(item -> countMerchant(item, payments));
+                }
+            } else {
+                countMerchant(root, payments);
+            }
+        } catch (IOException e) {
+            return Map.of();
+        }
+        return payments;
+    }
+
+    private static void countMerchant(JsonNode payment, Map<Long, Integer> payments) {
+        JsonNode merchantId = payment != null ? payment.get("merchantId") : null;
+        if (merchantId != null && merchantId.canConvertToLong()) {
+            payments.merge(merchantId.asLong(), 1, Integer::sum);
+        }
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        error(response, HttpStatus.TOO_MANY_REQUESTS, "Limite de requisições excedido; tente novamente em instantes");
+    }
+
+    private void error(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), new GlobalExceptionHandler.ErrorResponse(
+                status.value(), message, LocalDateTime.now()));
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, String scope) {
+        return Counter.builder("http.rate.limited")
+                .description("Requisições recusadas com 429 pelo limite de taxa")
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+
+    // Guarda o corpo lido para que o controller possa lê-lo de novo
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // O corpo já está em memória: tudo está disponível de imediato
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            listener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), getCharacterEncoding() != null
+                    ? Charset.forName(getCharacterEncoding())
+                    : StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.gateway.payment.security;
+
+import com.gateway.payment.config.RateLimitConfig;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket em memória no formato GCRA: o estado de cada chave é um único
+ * {@code long} (instante teórico da próxima chegada) atualizado com CAS, então
+ * não há lock global nem por chave. Cada requisição avança esse instante em
+ * {@code 1/taxa}; ela é recusada quando ele passaria de {@code agora + burst/taxa}.
+ * <p>
+ * Um bucket cujo instante já ficou no passado está cheio e é igual a um bucket
+ * novo; a limpeza periódica remove esses buckets sem perder estado.
+ */
+@Component
+public class RateLimiter {
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+
+    public RateLimiter() {
+        this(System::nanoTime);
+    }
+
+    RateLimiter(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Consome uma ficha do bucket da chave. Devolve 0 se a requisição foi aceita
+     * ou, se recusada, em quantos nanossegundos haverá uma ficha disponível.
+     */
+    public long tryAcquire(String key, RateLimitConfig.Limit limit) {
+        return tryAcquire(key, limit, 1);
+    }
+
+    /**
+     * Consome {@code permits} fichas de uma vez, ou nenhuma. Mais fichas que o
+     * burst nunca cabem no bucket e são sempre recusadas.
+     */
+    public long tryAcquire(String key, RateLimitConfig.Limit limit, int permits) {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / limit.getRequestsPerSecond());
+        long capacity = interval * limit.getBurst();
+        long cost = interval * permits;
+        long now = clock.getAsLong();
+
+        AtomicLong state = buckets.get(key);
+        if (state == null) {
+            state = buckets.computeIfAbsent(key, ignored -> new AtomicLong(now));
+        }
+        while (true) {
+            long theoreticalArrival = state.get();
+            long next = Math.max(theoreticalArrival, now) + cost;
+            if (next - now > capacity) {
+                return next - now - capacity;
+            }
+            if (state.compareAndSet(theoreticalArrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.idle-sweep-interval-ms:60000}")
+    public void evictIdle() {
+        long now = clock.getAsLong();
+        buckets.forEach((key, state) -> {
+            if (state.get() <= now) {
+                buckets.remove(key, state);
+            }
+        });
+    }
+}
@@ -4,18 +4,25 @@ import com.gateway.payment.domain.entity.Account;
 import com.gateway.payment.domain.entity.Transaction;
 import com.gateway.payment.domain.entity.User;
 import com.gateway.payment.domain.enums.TransactionStatus;
+import com.gateway.payment.domain.value.Money;
 import com.gateway.payment.dto.account.BalanceResponse;
 import com.gateway.payment.dto.account.DepositRequest;
+import com.gateway.payment.datasource.ReplicaReads;
 import com.gateway.payment.exception.BusinessException;
+import com.gateway.payment.ledger.LedgerEngine;
 import com.gateway.payment.repository.AccountRepository;
 import com.gateway.payment.repository.TransactionRepository;
 import com.gateway.payment.repository.UserRepository;
+import com.gateway.payment.security.AuthenticatedUserProvider;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -24,8 +31,44 @@ public class AccountService {
     private final AccountRepository accountRepository;
     private final UserRepository userRepository;
     private final TransactionRepository transactionRepository;
+    private final HotAccountService hotAccountService;
+    private final LedgerService ledgerService;
+    private final OutboxService outboxService;
+    private final Optional<LedgerEngine> ledgerEngine;
+    private final AuthenticatedUserProvider authenticatedUserProvider;
+    private final BalanceCache balanceCache;
+    private final TransactionTemplate transactionTemplate;
+    private final ReplicaReads replicaReads;
 
     public BalanceResponse getBalance() {
+        Long userId = authenticatedUserProvider.getUserId();
+
+        // Com o engine em memória o saldo já é lido da memória; o cache só atende o modo JPA
+        if (ledgerEngine.isEmpty()) {
+            Optional<BalanceCache.CachedBalance> cached = balanceCache.getByUserId(userId);
+            if (cached.isPresent()) {
+                return new BalanceResponse(cached.get().balance(), cached.get().accountHolder());
+            }
+        }
+
+        Account account = replicaReads.execute(() -> accountRepository.findWithUserByUserId(userId))
+                .orElseThrow(() -> new BusinessException("Conta não encontrada"));
+        if (balanceCache.isBehindCommitted(account)) {
+            // Réplica ainda sem a última escrita confirmada: relê no primário
+            account = transactionTemplate.execute(status -> accountRepository.findWithUserByUserId(userId))
+                    .orElseThrow(() -> new BusinessException("Conta não encontrada"));
+        }
+
+        if (ledgerEngine.isPresent()) {
+            return new BalanceResponse(ledgerEngine.get().getBalance(userId), account.getUser().getName());
+        }
+        balanceCache.put(account);
+        return new BalanceResponse(hotAccountService.currentBalance(account), account.getUser().getName());
+    }
+
+    // Saldo histórico calculado pelo livro-razão (snapshot + lançamentos posteriores)
+    @Transactional(readOnly = true)
+    public BalanceResponse getBalanceAt(LocalDateTime at) {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new BusinessException("Usuário não encontrado"));
@@ -33,7 +76,7 @@ public class AccountService {
         Account account = accountRepository.findByUser(user)
                 .orElseThrow(() -> new BusinessException("Conta não encontrada"));
 
-        return new BalanceResponse(account.getBalance(), user.getName());
+        return new BalanceResponse(Money.of(ledgerService.balanceAt(account.getId(), at)), user.getName());
     }
 
     @Transactional
@@ -46,24 +89,39 @@ public class AccountService {
                 .orElseThrow(() -> new BusinessException("Conta não encontrada"));
 
         // Validação do valor
-        if (request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+        Money amount;
+        try {
+            amount = Money.of(request.getAmount());
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException(e.getMessage());
+        }
+        if (!amount.isPositive()) {
             throw new BusinessException("Valor do depósito deve ser positivo");
         }
 
+        String description = request.getDescription() != null ?
+                request.getDescription() : "Depósito na conta";
+        if (ledgerEngine.isPresent()) {
+            ledgerEngine.get().deposit(user.getId(), amount, description);
+            return;
+        }
+
         // Adiciona o saldo
-        account.credit(request.getAmount());
+        account.credit(amount);
         accountRepository.save(account);
+        balanceCache.updateAfterCommit(List.of(account));
 
         // Cria uma transação de depósito (opcional)
         Transaction transaction = Transaction.builder()
                 .payerAccount(account)  // Conta do próprio usuário
                 .merchantAccount(account)  // Mesma conta (depósito)
-                .amount(request.getAmount())
+                .amount(amount)
                 .status(TransactionStatus.APPROVED)
-                .description(request.getDescription() != null ?
-                        request.getDescription() : "Depósito na conta")
+                .description(description)
                 .build();
 
         transactionRepository.save(transaction);
+        ledgerService.record(transaction);
+        outboxService.record(transaction);
     }
 }
\ No newline at end of file
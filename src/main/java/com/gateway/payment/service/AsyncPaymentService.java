@@ -0,0 +1,402 @@
+package com.gateway.payment.service;
+
+import com.gateway.payment.config.AsyncPaymentConfig;
+import com.gateway.payment.domain.entity.Account;
+import com.gateway.payment.domain.entity.Transaction;
+import com.gateway.payment.domain.enums.RejectionReason;
+import com.gateway.payment.domain.enums.Role;
+import com.gateway.payment.domain.enums.TransactionStatus;
+import com.gateway.payment.domain.value.Money;
+import com.gateway.payment.dto.payment.PaymentRequest;
+import com.gateway.payment.dto.payment.PaymentResponse;
+import com.gateway.payment.exception.BusinessException;
+import com.gateway.payment.exception.InsufficientBalanceException;
+import com.gateway.payment.exception.PaymentRejectedException;
+import com.gateway.payment.ledger.LedgerEngine;
+import com.gateway.payment.metrics.PaymentMetrics;
+import com.gateway.payment.repository.AccountRepository;
+import com.gateway.payment.repository.PendingTransactionRef;
+import com.gateway.payment.repository.TransactionRepository;
+import com.gateway.payment.security.AuthenticatedUserProvider;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pagamentos em dois tempos: o aceite valida a requisição e grava a transação
+ * como {@code PENDING}, sem lock nas contas; os workers de liquidação
+ * ({@link SettlementWorkers}) drenam os pendentes em micro-lotes e os movem para
+ * {@code APPROVED} ou {@code FAILED}. Cada conta pagadora pertence a um único
+ * worker, então os pagamentos de um mesmo pagador são liquidados na ordem de
+ * aceite.
+ * <p>
+ * Se um micro-lote falha por um erro não transitório, ele é refeito um pagamento
+ * por vez; o pagamento que ainda falhar sozinho vai para {@code FAILED} com
+ * {@link RejectionReason#ERROR}, para não travar a fila do worker.
+ */
+@Slf4j
+@Service
+public class AsyncPaymentService {
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final AuthenticatedUserProvider authenticatedUserProvider;
+    private final HotAccountService hotAccountService;
+    private final LedgerService ledgerService;
+    private final OutboxService outboxService;
+    private final BalanceCache balanceCache;
+    private final MerchantVolumeService merchantVolumeService;
+    private final IdempotencyService idempotencyService;
+    private final PaymentMetrics paymentMetrics;
+    private final TransactionTemplate transactionTemplate;
+    private final AsyncPaymentConfig config;
+    private final Optional<LedgerEngine> ledgerEngine;
+
+    private final Semaphore[] signals;
+    private final AtomicLong queueDepth = new AtomicLong();
+    private final DistributionSummary batchSizes;
+    private final Timer settlementLag;
+
+    public AsyncPaymentService(AccountRepository accountRepository,
+                               TransactionRepository transactionRepository,
+                               AuthenticatedUserProvider authenticatedUserProvider,
+                               HotAccountService hotAccountService,
+                               LedgerService ledgerService,
+                               OutboxService outboxService,
+                               BalanceCache balanceCache,
+                               MerchantVolumeService merchantVolumeService,
+                               IdempotencyService idempotencyService,
+                               PaymentMetrics paymentMetrics,
+                               TransactionTemplate transactionTemplate,
+                               AsyncPaymentConfig config,
+                               Optional<LedgerEngine> ledgerEngine,
+                               MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.authenticatedUserProvider = authenticatedUserProvider;
+        this.hotAccountService = hotAccountService;
+        this.ledgerService = ledgerService;
+        this.outboxService = outboxService;
+        this.balanceCache = balanceCache;
+        this.merchantVolumeService = merchantVolumeService;
+        this.idempotencyService = idempotencyService;
+        this.paymentMetrics = paymentMetrics;
+        this.transactionTemplate = transactionTemplate;
+        this.config = config;
+        this.ledgerEngine = ledgerEngine;
+        this.signals = new Semaphore[config.getWorkers()];
+        for (int i = 0; i < signals.length; i++) {
+            signals[i] = new Semaphore(0);
+        }
+        Gauge.builder("payment.settlement.queue.depth", queueDepth, AtomicLong::get)
+                .description("Pagamentos aceitos aguardando liquidação")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("payment.settlement.batch.size")
+                .description("Pagamentos liquidados por micro-lote")
+                .register(meterRegistry);
+        this.settlementLag = Timer.builder("payment.settlement.lag")
+                .description("Tempo entre o aceite e a liquidação")
+                .serviceLevelObjectives(Duration.ofMillis(10), Duration.ofMillis(50), Duration.ofMillis(100),
+                        Duration.ofMillis(250), Duration.ofMillis(500), Duration.ofSeconds(1),
+                        Duration.ofSeconds(5), Duration.ofSeconds(30))
+                .register(meterRegistry);
+    }
+
+    // O engine em memória já confirma em poucos milissegundos; o modo assíncrono vale só para o JPA
+    public boolean isEnabled() {
+        return config.isEnabled() && ledgerEngine.isEmpty();
+    }
+
+    public PaymentResponse accept(PaymentRequest request, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return accept(request);
+        }
+        return idempotencyService.execute(authenticatedUserProvider.getUserId(), idempotencyKey, request,
+                () -> accept(request));
+    }
+
+    public PaymentResponse accept(PaymentRequest request) {
+        long start = System.nanoTime();
+        try {
+            Long payerId = authenticatedUserProvider.getUserId();
+            PaymentResponse response = transactionTemplate.execute(status -> acceptPending(payerId, request));
+            paymentMetrics.accepted(start);
+            return response;
+        } catch (RuntimeException e) {
+            paymentMetrics.rejected(e, start);
+            throw e;
+        }
+    }
+
+    private PaymentResponse acceptPending(Long payerId, PaymentRequest request) {
+        Map<Long, Account> accountsByUser = new HashMap<>();
+        accountRepository.findWithUserByUserIds(List.of(payerId, request.getMerchantId()))
+                .forEach(account -> accountsByUser.put(account.getUser().getId(), account));
+
+        // Contas hot não recebem lock na liquidação: como no pagamento síncrono, não podem pagar
+        Account payerAccount = accountsByUser.get(payerId);
+        if (payerAccount == null || payerAccount.isHot()) {
+            throw new PaymentRejectedException(RejectionReason.PAYER_NOT_FOUND, "Conta do pagador não encontrada");
+        }
+        Account merchantAccount = accountsByUser.get(request.getMerchantId());
+        if (merchantAccount == null) {
+            throw new PaymentRejectedException(RejectionReason.MERCHANT_NOT_FOUND, "Merchant não encontrado");
+        }
+        if (merchantAccount.getUser().getRole() != Role.MERCHANT) {
+            throw new PaymentRejectedException(RejectionReason.NOT_A_MERCHANT, "Usuário destino não é um merchant");
+        }
+        // Pré-validação sem lock; o saldo é conferido de novo na liquidação
+        Money amount = PaymentService.amountOf(request);
+        if (payerAccount.getBalance().isLessThan(amount)) {
+            throw new InsufficientBalanceException("Saldo insuficiente");
+        }
+
+        Transaction transaction = transactionRepository.save(Transaction.builder()
+                .payerAccount(payerAccount)
+                .merchantAccount(merchantAccount)
+                .amount(amount)
+                .status(TransactionStatus.PENDING)
+                .description(request.getDescription())
+                .build());
+        outboxService.record(transaction);
+        signalAfterCommit(payerAccount.getId());
+
+        log.info("Pagamento {} aceito para liquidação", transaction.getId());
+        return toResponse(transaction);
+    }
+
+    /**
+     * Status de um pagamento do usuário autenticado, como pagador ou merchant.
+     * Lido no primário: logo após o aceite a réplica pode ainda não ter a transação.
+     */
+    public PaymentResponse getStatus(Long transactionId) {
+        Long userId = authenticatedUserProvider.getUserId();
+        Transaction transaction = transactionTemplate.execute(status ->
+                        transactionRepository.findWithParticipantsById(transactionId))
+                .filter(found -> found.getPayerAccount().getUser().getId().equals(userId)
+                        || found.getMerchantAccount().getUser().getId().equals(userId))
+                .orElseThrow(() -> new BusinessException("Transação não encontrada"));
+        return toResponse(transaction);
+    }
+
+    /**
+     * Liquida o próximo micro-lote do worker e devolve quantos pagamentos foram processados.
+     */
+    public int settleBatch(int worker) {
+        List<Transaction> settled;
+        try {
+            settled = transactionTemplate.execute(status -> settle(worker, config.getBatchSize()));
+        } catch (RuntimeException e) {
+            if (isTransient(e)) {
+                throw e;
+            }
+            log.warn("Micro-lote do worker {} desfeito ({}); liquidando um pagamento por vez",
+                    worker, e.getMessage());
+            settled = settleOneByOne(worker);
+        }
+        if (settled == null || settled.isEmpty()) {
+            return 0;
+        }
+        batchSizes.record(settled.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (Transaction transaction : settled) {
+            settlementLag.record(Duration.between(transaction.getCreatedAt(), now));
+            paymentMetrics.settled(transaction.getStatus(), transaction.getFailureReason());
+        }
+        int count = settled.size();
+        queueDepth.updateAndGet(depth -> Math.max(0, depth - count));
+        return count;
+    }
+
+    // Cada pagamento na sua transação; o primeiro pendente do worker é sempre o que acabou de falhar
+    private List<Transaction> settleOneByOne(int worker) {
+        List<Transaction> settled = new ArrayList<>();
+        for (int i = 0; i < config.getBatchSize(); i++) {
+            List<Transaction> single;
+            try {
+                single = transactionTemplate.execute(status -> settle(worker, 1));
+            } catch (RuntimeException e) {
+                if (isTransient(e)) {
+                    if (settled.isEmpty()) {
+                        throw e;
+                    }
+                    break;
+                }
+                single = transactionTemplate.execute(status -> failNext(worker, e));
+            }
+            if (single == null || single.isEmpty()) {
+                break;
+            }
+            settled.addAll(single);
+        }
+        return settled;
+    }
+
+    private List<Transaction> failNext(int worker, RuntimeException cause) {
+        LocalDateTime since = LocalDateTime.now().minus(config.getPendingLookback());
+        List<PendingTransactionRef> pending = transactionRepository.lockPendingForWorker(
+                config.getWorkers(), worker, since, 1);
+        if (pending.isEmpty()) {
+            return List.of();
+        }
+        List<Transaction> transactions = transactionRepository.findByIdInAndCreatedAtGreaterThanEqual(
+                List.of(pending.get(0).getId()), since);
+        for (Transaction transaction : transactions) {
+            transaction.setStatus(TransactionStatus.FAILED);
+            transaction.setFailureReason(RejectionReason.ERROR);
+            transaction.setSettledAt(LocalDateTime.now());
+            log.error("Pagamento {} marcado como FAILED após erro na liquidação: {}",
+                    transaction.getId(), cause.getMessage());
+        }
+        outboxService.recordAll(transactions);
+        return transactions;
+    }
+
+    // Falhas de conexão, deadlock ou timeout de lock: o lote volta intacto no próximo ciclo
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    private List<Transaction> settle(int worker, int limit) {
+        LocalDateTime since = LocalDateTime.now().minus(config.getPendingLookback());
+        List<PendingTransactionRef> pending = transactionRepository.lockPendingForWorker(
+                config.getWorkers(), worker, since, limit);
+        if (pending.isEmpty()) {
+            return List.of();
+        }
+
+        // Contas bloqueadas em ordem de id, como no pagamento síncrono, antes de carregar as transações
+        Set<Long> accountIds = new HashSet<>();
+        pending.forEach(ref -> {
+            accountIds.add(ref.getPayerAccountId());
+            accountIds.add(ref.getMerchantAccountId());
+        });
+        Map<Long, Account> accounts = new HashMap<>();
+        accountRepository.findByIdsWithLock(accountIds).forEach(account -> accounts.put(account.getId(), account));
+        Set<Long> locked = new HashSet<>(accounts.keySet());
+        if (accounts.size() < accountIds.size()) {
+            Set<Long> missing = new HashSet<>(accountIds);
+            missing.removeAll(locked);
+            accountRepository.findHotByIds(missing).forEach(account -> accounts.put(account.getId(), account));
+        }
+
+        List<Transaction> transactions = new ArrayList<>(transactionRepository.findByIdInAndCreatedAtGreaterThanEqual(
+                pending.stream().map(PendingTransactionRef::getId).toList(), since));
+        transactions.sort(Comparator.comparing(Transaction::getCreatedAt).thenComparing(Transaction::getId));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Transaction> approved = new ArrayList<>(transactions.size());
+        Map<Account, Money> hotCredits = new HashMap<>();
+        for (Transaction transaction : transactions) {
+            Account payerAccount = accounts.get(transaction.getPayerAccount().getId());
+            Account merchantAccount = accounts.get(transaction.getMerchantAccount().getId());
+            transaction.setSettledAt(now);
+            // Conta que virou hot depois do aceite: lida sem lock, não pode ser debitada
+            if (!locked.contains(transaction.getPayerAccount().getId())) {
+                transaction.setStatus(TransactionStatus.FAILED);
+                transaction.setFailureReason(RejectionReason.PAYER_NOT_FOUND);
+                continue;
+            }
+            if (payerAccount.getBalance().isLessThan(transaction.getAmount())) {
+                transaction.setStatus(TransactionStatus.FAILED);
+                transaction.setFailureReason(RejectionReason.INSUFFICIENT_BALANCE);
+                continue;
+            }
+            payerAccount.debit(transaction.getAmount());
+            if (merchantAccount.isHot()) {
+                hotCredits.merge(merchantAccount, transaction.getAmount(), Money::plus);
+            } else {
+                merchantAccount.credit(transaction.getAmount());
+            }
+            transaction.setStatus(TransactionStatus.APPROVED);
+            approved.add(transaction);
+        }
+        // Créditos agregados por merchant; workers diferentes espalham em slots diferentes
+        hotCredits.forEach((account, amount) -> hotAccountService.credit(account, amount, worker));
+
+        ledgerService.recordAll(approved);
+        outboxService.recordAll(transactions);
+        balanceCache.updateAfterCommit(new ArrayList<>(accounts.values()));
+        merchantVolumeService.recordAfterCommit(approved);
+        return transactions;
+    }
+
+    /**
+     * Espera por novos aceites para o worker, no máximo {@code pollIntervalMs}.
+     */
+    void awaitWork(int worker) throws InterruptedException {
+        if (signals[worker].tryAcquire(config.getPollIntervalMs(), TimeUnit.MILLISECONDS)) {
+            signals[worker].drainPermits();
+        }
+    }
+
+    void wakeUp(int worker) {
+        signals[worker].release();
+    }
+
+    @Scheduled(fixedDelayString = "${app.payment.async.queue-depth-refresh-ms:5000}")
+    public void refreshQueueDepth() {
+        if (isEnabled()) {
+            queueDepth.set(transactionRepository.countByStatusAndCreatedAtGreaterThanEqual(
+                    TransactionStatus.PENDING, LocalDateTime.now().minus(config.getPendingLookback())));
+        }
+    }
+
+    int workerFor(long payerAccountId) {
+        return (int) Math.floorMod(payerAccountId, (long) config.getWorkers());
+    }
+
+    private void signalAfterCommit(long payerAccountId) {
+        int worker = workerFor(payerAccountId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            queueDepth.incrementAndGet();
+            wakeUp(worker);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                queueDepth.incrementAndGet();
+                wakeUp(worker);
+            }
+        });
+    }
+
+    private static PaymentResponse toResponse(Transaction transaction) {
+        return PaymentResponse.builder()
+                .transactionId(transaction.getId())
+                .amount(transaction.getAmount())
+                .status(transaction.getStatus())
+                .merchantName(transaction.getMerchantAccount().getUser().getName())
+                .description(transaction.getDescription())
+                .createdAt(transaction.getCreatedAt())
+                .failureReason(transaction.getFailureReason())
+                .build();
+    }
+}
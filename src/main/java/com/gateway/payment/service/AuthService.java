@@ -3,10 +3,13 @@ package com.gateway.payment.service;
 import com.gateway.payment.domain.entity.Account;
 import com.gateway.payment.domain.entity.User;
 import com.gateway.payment.domain.enums.Role;
+import com.gateway.payment.domain.value.Money;
 import com.gateway.payment.dto.auth.LoginRequest;
 import com.gateway.payment.dto.auth.LoginResponse;
+import com.gateway.payment.dto.auth.RefreshTokenRequest;
 import com.gateway.payment.dto.auth.RegisterRequest;
 import com.gateway.payment.exception.BusinessException;
+import com.gateway.payment.exception.UnauthorizedException;
 import com.gateway.payment.repository.AccountRepository;
 import com.gateway.payment.repository.UserRepository;
 import com.gateway.payment.security.JwtTokenProvider;
@@ -18,7 +21,6 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 
 @Service
 @RequiredArgsConstructor
@@ -29,6 +31,7 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtTokenProvider jwtTokenProvider;
+    private final RefreshTokenService refreshTokenService;
 
     @Transactional
     public void register(RegisterRequest request) {
@@ -49,12 +52,13 @@ public class AuthService {
         if (savedUser.getRole() == Role.MERCHANT || savedUser.getRole() == Role.CLIENT) {
             Account account = Account.builder()
                     .user(savedUser)
-                    .balance(BigDecimal.ZERO)
+                    .balance(Money.ZERO)
                     .build();
             accountRepository.save(account);
         }
     }
 
+    // A verificação da senha roda no pool do BoundedPasswordEncoder, não na thread da requisição
     public LoginResponse login(LoginRequest request) {
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
@@ -63,11 +67,25 @@ public class AuthService {
                 )
         );
 
-        String jwt = jwtTokenProvider.generateToken(authentication);
         User user = (User) authentication.getPrincipal();
+        return tokensFor(user);
+    }
+
+    /**
+     * Troca um refresh token válido por um novo JWT e um novo refresh token, sem BCrypt.
+     */
+    @Transactional
+    public LoginResponse refresh(RefreshTokenRequest request) {
+        Long userId = refreshTokenService.consume(request.getRefreshToken());
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new UnauthorizedException("Refresh token inválido ou expirado"));
+        return tokensFor(user);
+    }
 
+    private LoginResponse tokensFor(User user) {
         return new LoginResponse(
-                jwt,
+                jwtTokenProvider.generateToken(user),
+                refreshTokenService.issue(user.getId()),
                 user.getEmail(),
                 user.getRole(),
                 user.getName()
@@ -0,0 +1,151 @@
+package com.gateway.payment.service;
+
+import com.gateway.payment.config.BalanceCacheConfig;
+import com.gateway.payment.domain.entity.Account;
+import com.gateway.payment.domain.value.Money;
+import com.gateway.payment.dto.account.BalanceCacheStatsResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Cache de saldos por id de conta, versionado por {@link Account#getVersion()}.
+ * Uma entrada só substitui outra de versão igual ou maior, então uma leitura
+ * concorrente que carregou o estado anterior nunca sobrescreve o saldo gravado
+ * por um pagamento. As escritas atualizam o cache apenas após o commit, ainda
+ * na thread de quem escreveu, de modo que a próxima leitura dessa thread já vê
+ * o novo saldo.
+ * <p>
+ * Contas hot não são cacheadas: seus créditos vão para os sub-saldos sem mudar a
+ * versão da conta. Para elas fica uma entrada sem saldo, que apenas impede que
+ * uma leitura antiga volte a cachear a conta como comum.
+ * <p>
+ * O cache é local à instância e só vê as escritas confirmadas por ela; as de
+ * outras instâncias só aparecem quando a entrada expira. Por isso vem desligado
+ * e deve ser ligado apenas com uma única instância. As versões confirmadas são
+ * registradas mesmo com ele desligado, pois servem às leituras de réplicas.
+ */
+@Component
+public class BalanceCache {
+
+    private final BalanceCacheConfig config;
+    private final Cache<Long, CachedBalance> balances;
+    // A conta de um usuário nunca muda; o mapeamento evita a consulta por usuário a cada leitura
+    private final Cache<Long, Long> accountIds;
+    // Última versão confirmada por escrita, para detectar leituras atrasadas de réplicas
+    private final Cache<Long, Long> committedVersions;
+
+    public BalanceCache(BalanceCacheConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.balances = Caffeine.newBuilder()
+                .maximumSize(config.getMaxSize())
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, balances, "balances");
+        this.accountIds = Caffeine.newBuilder()
+                .maximumSize(config.getMaxSize())
+                .build();
+        this.committedVersions = Caffeine.newBuilder()
+                .maximumSize(config.getMaxSize())
+                .expireAfterWrite(config.getCommittedVersionTtl())
+                .build();
+    }
+
+    public Optional<CachedBalance> getByUserId(Long userId) {
+        if (!config.isEnabled()) {
+            return Optional.empty();
+        }
+        Long accountId = accountIds.getIfPresent(userId);
+        if (accountId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(balances.getIfPresent(accountId))
+                .filter(cached -> cached.balance() != null);
+    }
+
+    /**
+     * Guarda o saldo lido do banco. Deve receber a conta como foi lida, antes de
+     * qualquer alteração na transação corrente.
+     */
+    public void put(Account account) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        accountIds.put(account.getUser().getId(), account.getId());
+        store(account);
+    }
+
+    /**
+     * Atualiza as entradas com o estado das contas após o commit da transação
+     * corrente; em rollback o cache continua com o último saldo confirmado.
+     */
+    public void updateAfterCommit(List<Account> accounts) {
+        if (accounts.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accounts.forEach(this::committed);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accounts.forEach(BalanceCache.this::committed);
+            }
+        });
+    }
+
+    /**
+     * Indica se a conta foi lida em uma versão anterior à última escrita
+     * confirmada, como acontece em uma réplica atrasada.
+     */
+    public boolean isBehindCommitted(Account account) {
+        Long committed = committedVersions.getIfPresent(account.getId());
+        return committed != null && account.getVersion() != null && account.getVersion() < committed;
+    }
+
+    public void invalidateAll() {
+        balances.invalidateAll();
+    }
+
+    public BalanceCacheStatsResponse stats() {
+        CacheStats stats = balances.stats();
+        return new BalanceCacheStatsResponse(stats.hitCount(), stats.missCount(), stats.hitRate(),
+                stats.evictionCount(), balances.estimatedSize());
+    }
+
+    private void committed(Account account) {
+        if (account.getId() == null || account.getVersion() == null) {
+            return;
+        }
+        committedVersions.asMap().merge(account.getId(), account.getVersion(), Math::max);
+        if (config.isEnabled()) {
+            store(account);
+        }
+    }
+
+    private void store(Account account) {
+        if (account.getId() == null || account.getVersion() == null) {
+            return;
+        }
+        CachedBalance entry = new CachedBalance(account.getVersion(),
+                account.isHot() ? null : account.getBalance(), account.getUser().getName());
+        balances.asMap().merge(account.getId(), entry,
+                (current, candidate) -> candidate.version() >= current.version() ? candidate : current);
+    }
+
+    /**
+     * Saldo confirmado de uma conta; {@code balance} é nulo para contas hot.
+     */
+    public record CachedBalance(long version, Money balance, String accountHolder) {
+    }
+}
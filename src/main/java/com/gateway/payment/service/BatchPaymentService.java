@@ -0,0 +1,222 @@
+package com.gateway.payment.service;
+
+import com.gateway.payment.config.PaymentBatchConfig;
+import com.gateway.payment.domain.entity.Account;
+import com.gateway.payment.domain.entity.Transaction;
+import com.gateway.payment.domain.enums.Role;
+import com.gateway.payment.domain.enums.TransactionStatus;
+import com.gateway.payment.domain.value.Money;
+import com.gateway.payment.dto.payment.BatchPaymentItemResult;
+import com.gateway.payment.dto.payment.BatchPaymentRequest;
+import com.gateway.payment.dto.payment.BatchPaymentResponse;
+import com.gateway.payment.dto.payment.PaymentRequest;
+import com.gateway.payment.exception.BusinessException;
+import com.gateway.payment.ledger.LedgerEngine;
+import com.gateway.payment.ledger.LedgerReceipt;
+import com.gateway.payment.repository.AccountRepository;
+import com.gateway.payment.repository.TransactionRepository;
+import com.gateway.payment.security.AuthenticatedUserProvider;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Processa pagamentos em lote. Os itens são divididos em blocos de
+ * {@code app.payment.batch.chunk-size}; cada bloco roda em uma transação própria,
+ * bloqueia todas as contas envolvidas em uma única consulta e grava as
+ * transações com inserts em lote (JDBC batching).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BatchPaymentService {
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final AuthenticatedUserProvider authenticatedUserProvider;
+    private final TransactionTemplate transactionTemplate;
+    private final PaymentBatchConfig batchConfig;
+    private final HotAccountService hotAccountService;
+    private final LedgerService ledgerService;
+    private final OutboxService outboxService;
+    private final Optional<LedgerEngine> ledgerEngine;
+    private final BalanceCache balanceCache;
+    private final MerchantVolumeService merchantVolumeService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public BatchPaymentResponse processBatch(BatchPaymentRequest request) {
+        List<PaymentRequest> payments = request.getPayments();
+        if (payments.size() > batchConfig.getMaxItems()) {
+            throw new BusinessException("Lote excede o limite de " + batchConfig.getMaxItems() + " pagamentos");
+        }
+
+        Long payerId = authenticatedUserProvider.getUserId();
+        List<BatchPaymentItemResult> results = new ArrayList<>(payments.size());
+
+        if (ledgerEngine.isPresent()) {
+            for (int i = 0; i < payments.size(); i++) {
+                results.add(processWithEngine(ledgerEngine.get(), payerId, payments.get(i), i));
+            }
+        } else {
+            for (int start = 0; start < payments.size(); start += batchConfig.getChunkSize()) {
+                int end = Math.min(start + batchConfig.getChunkSize(), payments.size());
+                results.addAll(processChunkSafely(payerId, payments.subList(start, end), start));
+            }
+        }
+
+        int approved = (int) results.stream()
+                .filter(result -> result.getStatus() == TransactionStatus.APPROVED)
+                .count();
+        log.info("Lote de {} pagamentos processado: {} aprovados", payments.size(), approved);
+
+        return BatchPaymentResponse.builder()
+                .total(results.size())
+                .approved(approved)
+                .failed(results.size() - approved)
+                .results(results)
+                .build();
+    }
+
+    // No engine em memória cada item é uma transferência independente, decidida na partição do pagador
+    private BatchPaymentItemResult processWithEngine(LedgerEngine engine, Long payerId,
+                                                     PaymentRequest payment, int index) {
+        try {
+            LedgerReceipt receipt = engine.transfer(payerId, payment.getMerchantId(),
+                    PaymentService.amountOf(payment), payment.getDescription());
+            merchantVolumeService.record(payment.getMerchantId(), receipt.amount(), receipt.createdAt());
+            return BatchPaymentItemResult.builder()
+                    .index(index)
+                    .transactionId(receipt.transactionId())
+                    .status(TransactionStatus.APPROVED)
+                    .build();
+        } catch (BusinessException e) {
+            return failure(index, e.getMessage());
+        }
+    }
+
+    private List<BatchPaymentItemResult> processChunkSafely(Long payerId, List<PaymentRequest> chunk, int offset) {
+        try {
+            return transactionTemplate.execute(status -> processChunk(payerId, chunk, offset));
+        } catch (RuntimeException e) {
+            log.error("Erro ao processar bloco iniciado em {}: {}", offset, e.getMessage());
+            List<BatchPaymentItemResult> failed = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                failed.add(failure(offset + i, "Falha ao processar lote"));
+            }
+            return failed;
+        }
+    }
+
+    private List<BatchPaymentItemResult> processChunk(Long payerId, List<PaymentRequest> chunk, int offset) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batchConfig.getChunkSize());
+
+        Set<Long> userIds = new HashSet<>();
+        userIds.add(payerId);
+        chunk.forEach(payment -> userIds.add(payment.getMerchantId()));
+
+        // Todas as contas do bloco em uma única consulta, com lock em ordem de id
+        Map<Long, Account> accountsByUser = new HashMap<>();
+        accountRepository.findByUserIdsWithLock(userIds)
+                .forEach(account -> accountsByUser.put(account.getUser().getId(), account));
+        if (accountsByUser.size() < userIds.size()) {
+            // Contas hot não recebem lock; seus créditos vão para os sub-saldos
+            Set<Long> missing = new HashSet<>(userIds);
+            missing.removeAll(accountsByUser.keySet());
+            accountRepository.findHotByUserIds(missing)
+                    .forEach(account -> accountsByUser.put(account.getUser().getId(), account));
+        }
+
+        Account payerAccount = accountsByUser.get(payerId);
+        if (payerAccount == null) {
+            throw new BusinessException("Conta do pagador não encontrada");
+        }
+
+        List<BatchPaymentItemResult> results = new ArrayList<>(chunk.size());
+        List<Transaction> transactions = new ArrayList<>(chunk.size());
+        List<Integer> approvedIndexes = new ArrayList<>(chunk.size());
+        Map<Account, Money> hotCredits = new HashMap<>();
+
+        for (int i = 0; i < chunk.size(); i++) {
+            PaymentRequest payment = chunk.get(i);
+            Account merchantAccount = accountsByUser.get(payment.getMerchantId());
+            Money amount = PaymentService.amountOf(payment);
+
+            String error = validate(payerAccount, merchantAccount, amount);
+            if (error != null) {
+                results.add(failure(offset + i, error));
+                continue;
+            }
+
+            payerAccount.debit(amount);
+            if (merchantAccount.isHot()) {
+                hotCredits.merge(merchantAccount, amount, Money::plus);
+            } else {
+                merchantAccount.credit(amount);
+            }
+
+            transactions.add(Transaction.builder()
+                    .payerAccount(payerAccount)
+                    .merchantAccount(merchantAccount)
+                    .amount(amount)
+                    .status(TransactionStatus.APPROVED)
+                    .description(payment.getDescription())
+                    .build());
+            approvedIndexes.add(results.size());
+            results.add(null);
+        }
+
+        hotCredits.forEach((account, amount) ->
+                hotAccountService.credit(account, amount, payerAccount.getId()));
+
+        // Ids vêm da sequence em memória; os inserts são enviados em lote no flush
+        List<Transaction> saved = transactionRepository.saveAll(transactions);
+        ledgerService.recordAll(saved);
+        outboxService.recordAll(saved);
+        balanceCache.updateAfterCommit(new ArrayList<>(accountsByUser.values()));
+        merchantVolumeService.recordAfterCommit(saved);
+        for (int i = 0; i < saved.size(); i++) {
+            int position = approvedIndexes.get(i);
+            results.set(position, BatchPaymentItemResult.builder()
+                    .index(offset + position)
+                    .transactionId(saved.get(i).getId())
+                    .status(TransactionStatus.APPROVED)
+                    .build());
+        }
+        return results;
+    }
+
+    private static String validate(Account payerAccount, Account merchantAccount, Money amount) {
+        if (merchantAccount == null) {
+            return "Merchant não encontrado";
+        }
+        if (merchantAccount.getUser().getRole() != Role.MERCHANT) {
+            return "Usuário destino não é um merchant";
+        }
+        if (payerAccount.getBalance().isLessThan(amount)) {
+            return "Saldo insuficiente";
+        }
+        return null;
+    }
+
+    private static BatchPaymentItemResult failure(int index, String error) {
+        return BatchPaymentItemResult.builder()
+                .index(index)
+                .status(TransactionStatus.FAILED)
+                .error(error)
+                .build();
+    }
+}
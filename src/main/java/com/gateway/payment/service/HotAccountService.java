@@ -0,0 +1,150 @@
+package com.gateway.payment.service;
+
+import com.gateway.payment.config.HotAccountConfig;
+import com.gateway.payment.domain.entity.Account;
+import com.gateway.payment.domain.entity.AccountBalanceSlot;
+import com.gateway.payment.domain.enums.Role;
+import com.gateway.payment.domain.value.Money;
+import com.gateway.payment.exception.BusinessException;
+import com.gateway.payment.ledger.LedgerEngine;
+import com.gateway.payment.repository.AccountBalanceSlotRepository;
+import com.gateway.payment.repository.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Modo "hot" para contas de merchant muito disputadas. O saldo é dividido em K
+ * sub-saldos ({@link AccountBalanceSlot}); cada crédito atualiza apenas um slot,
+ * escolhido pelo hash da conta pagadora, de modo que pagamentos concorrentes não
+ * disputam a mesma linha. Um consolidador periódico incorpora os slots ao saldo.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HotAccountService {
+
+    private final AccountRepository accountRepository;
+    private final AccountBalanceSlotRepository slotRepository;
+    private final HotAccountConfig hotAccountConfig;
+    private final TransactionTemplate transactionTemplate;
+    private final Optional<LedgerEngine> ledgerEngine;
+    private final BalanceCache balanceCache;
+
+    @Transactional
+    public void enable(Long accountId, Integer slots) {
+        if (ledgerEngine.isPresent()) {
+            throw new BusinessException("Modo hot não é suportado com o engine de ledger em memória");
+        }
+        int slotCount = slots != null ? slots : hotAccountConfig.getDefaultSlots();
+        if (slotCount < 2 || slotCount > hotAccountConfig.getMaxSlots()) {
+            throw new BusinessException("Quantidade de slots deve estar entre 2 e " + hotAccountConfig.getMaxSlots());
+        }
+
+        Account account = accountRepository.findByIdWithLock(accountId)
+                .orElseThrow(() -> new BusinessException("Conta não encontrada"));
+        if (account.getUser().getRole() != Role.MERCHANT) {
+            throw new BusinessException("Apenas contas de merchant podem operar em modo hot");
+        }
+        if (account.isHot()) {
+            consolidate(account);
+            slotRepository.deleteByAccountId(accountId);
+        }
+
+        for (int slot = 0; slot < slotCount; slot++) {
+            slotRepository.save(AccountBalanceSlot.builder()
+                    .accountId(accountId)
+                    .slot(slot)
+                    .balance(BigDecimal.ZERO)
+                    .build());
+        }
+        account.setBalanceSlots(slotCount);
+        balanceCache.updateAfterCommit(List.of(account));
+        log.info("Conta {} em modo hot com {} slots", accountId, slotCount);
+    }
+
+    @Transactional
+    public void disable(Long accountId) {
+        Account account = accountRepository.findByIdWithLock(accountId)
+                .orElseThrow(() -> new BusinessException("Conta não encontrada"));
+        if (!account.isHot()) {
+            return;
+        }
+        consolidate(account);
+        slotRepository.deleteByAccountId(accountId);
+        account.setBalanceSlots(null);
+        balanceCache.updateAfterCommit(List.of(account));
+        log.info("Modo hot desativado para a conta {}", accountId);
+    }
+
+    /**
+     * Credita uma conta hot sem tocar a linha da conta. Deve ser chamado dentro
+     * da transação do pagamento.
+     */
+    public void credit(Account account, Money amount, long spreadKey) {
+        if (!amount.isPositive()) {
+            throw new IllegalArgumentException("Valor do crédito deve ser positivo");
+        }
+        int slot = slotFor(spreadKey, account.getBalanceSlots());
+        if (slotRepository.addToSlot(account.getId(), slot, amount.toBigDecimal()) != 1) {
+            throw new BusinessException("Sub-saldo da conta não encontrado");
+        }
+    }
+
+    /**
+     * Saldo atual: saldo consolidado mais os créditos ainda nos slots. Para conta
+     * hot, os dois são relidos juntos em um único comando: somar o saldo já
+     * carregado com os slots lidos depois contaria duas vezes (ou perderia) o que
+     * uma consolidação concorrente movesse entre as duas leituras.
+     */
+    public Money currentBalance(Account account) {
+        if (!account.isHot()) {
+            return account.getBalance();
+        }
+        return accountRepository.findBalanceIncludingSlots(account.getId())
+                .map(Money::of)
+                .orElseThrow(() -> new BusinessException("Conta não encontrada"));
+    }
+
+    @Scheduled(fixedDelayString = "${app.payment.hot-accounts.consolidation-interval-ms:5000}")
+    public void consolidateAll() {
+        for (Long accountId : accountRepository.findHotAccountIds()) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        accountRepository.findByIdWithLock(accountId)
+                                .filter(Account::isHot)
+                                .ifPresent(this::consolidate));
+            } catch (RuntimeException e) {
+                log.error("Erro ao consolidar a conta {}: {}", accountId, e.getMessage());
+            }
+        }
+    }
+
+    private void consolidate(Account account) {
+        List<AccountBalanceSlot> slots = slotRepository.findByAccountIdWithLock(account.getId());
+        BigDecimal total = BigDecimal.ZERO;
+        for (AccountBalanceSlot slot : slots) {
+            if (slot.getBalance().signum() != 0) {
+                total = total.add(slot.getBalance());
+                slot.setBalance(BigDecimal.ZERO);
+            }
+        }
+        if (total.signum() > 0) {
+            account.credit(Money.of(total));
+            log.debug("Conta {} consolidada: {}", account.getId(), total);
+        }
+    }
+
+    static int slotFor(long spreadKey, int slots) {
+        // Mistura os bits para que ids sequenciais não caiam em slots vizinhos
+        long mixed = spreadKey * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(mixed ^ (mixed >>> 32), (long) slots);
+    }
+}
@@ -0,0 +1,281 @@
+package com.gateway.payment.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gateway.payment.config.IdempotencyConfig;
+import com.gateway.payment.domain.entity.IdempotencyRecord;
+import com.gateway.payment.dto.payment.PaymentRequest;
+import com.gateway.payment.dto.payment.PaymentResponse;
+import com.gateway.payment.exception.BusinessException;
+import com.gateway.payment.exception.InsufficientBalanceException;
+import com.gateway.payment.exception.PaymentRejectedException;
+import com.gateway.payment.ledger.LedgerEngine;
+import com.gateway.payment.repository.IdempotencyRecordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicação de pagamentos por {@code Idempotency-Key}, em dois níveis: um
+ * cache em memória limitado para as repetições recentes e a tabela
+ * {@code idempotency_keys}. Com o caminho JPA, a chave é gravada na mesma
+ * transação do pagamento. Com o engine em memória o pagamento é confirmado no
+ * journal, fora do banco, então a chave é reservada antes e completada depois:
+ * se a instância cair entre os dois passos, as repetições recebem "em
+ * processamento" em vez de cobrar de novo, e o resultado aparece no extrato.
+ * Requisições simultâneas com a mesma chave aguardam uma única execução em andamento.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    // response nulo: chave reservada por um pagamento ainda não concluído
+    private record StoredResponse(String requestHash, PaymentResponse response) {
+    }
+
+    private record InFlight(String requestHash, CompletableFuture<PaymentResponse> result) {
+    }
+
+    private final IdempotencyRecordRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final IdempotencyConfig config;
+    private final boolean reserveBeforePayment;
+    private final Cache<String, StoredResponse> recent;
+    private final ConcurrentMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper,
+                              IdempotencyConfig config,
+                              Optional<LedgerEngine> ledgerEngine) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.config = config;
+        this.reserveBeforePayment = ledgerEngine.isPresent();
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(config.getCacheMaxSize())
+                .expireAfterWrite(config.getCacheTtl())
+                .build();
+    }
+
+    /**
+     * Executa o pagamento uma única vez por (usuário, chave); repetições recebem a
+     * resposta original. Reusar a chave com outro conteúdo é rejeitado.
+     */
+    public PaymentResponse execute(Long userId, String key, PaymentRequest request,
+                                   Supplier<PaymentResponse> payment) {
+        if (key.isBlank() || key.length() > config.getMaxKeyLength()) {
+            throw new BusinessException("Idempotency-Key deve ter entre 1 e " + config.getMaxKeyLength() + " caracteres");
+        }
+        String id = userId + ":" + key;
+        String requestHash = hash(request);
+
+        StoredResponse cached = recent.getIfPresent(id);
+        if (cached != null) {
+            return replay(cached, requestHash);
+        }
+
+        InFlight mine = new InFlight(requestHash, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(id, mine);
+        if (running != null) {
+            if (!running.requestHash().equals(requestHash)) {
+                throw new BusinessException("Idempotency-Key já utilizada com outra requisição");
+            }
+            return await(running.result());
+        }
+
+        try {
+            PaymentResponse response = executeOnce(id, requestHash, payment);
+            mine.result().complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            mine.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, mine);
+        }
+    }
+
+    private PaymentResponse executeOnce(String id, String requestHash, Supplier<PaymentResponse> payment) {
+        IdempotencyRecord existing = findRecord(id);
+        if (existing != null && isLive(existing)) {
+            return replay(stored(id, existing), requestHash);
+        }
+        // Expirada, mas ainda não removida pela limpeza: apagada na mesma transação que grava a nova
+        boolean replacesExpired = existing != null;
+        if (reserveBeforePayment) {
+            return executeReserved(id, requestHash, replacesExpired, payment);
+        }
+
+        try {
+            // O pagamento entra na transação externa: ou ambos são gravados, ou nenhum
+            PaymentResponse response = transactionTemplate.execute(status -> {
+                PaymentResponse result = payment.get();
+                if (replacesExpired) {
+                    repository.deleteIfExpired(id, LocalDateTime.now());
+                }
+                repository.saveAndFlush(newRecord(id, requestHash, toJson(result)));
+                return result;
+            });
+            recent.put(id, new StoredResponse(requestHash, response));
+            return response;
+        } catch (DataIntegrityViolationException e) {
+            // Outra instância gravou a mesma chave primeiro; este pagamento foi desfeito
+            StoredResponse winner = findStored(id);
+            if (winner == null) {
+                throw e;
+            }
+            return replay(winner, requestHash);
+        }
+    }
+
+    private PaymentResponse executeReserved(String id, String requestHash, boolean replacesExpired,
+                                            Supplier<PaymentResponse> payment) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (replacesExpired) {
+                    repository.deleteIfExpired(id, LocalDateTime.now());
+                }
+                repository.saveAndFlush(newRecord(id, requestHash, null));
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Reservada por outra instância: resposta dela ou "em processamento"
+            StoredResponse winner = findStored(id);
+            if (winner == null) {
+                throw e;
+            }
+            return replay(winner, requestHash);
+        }
+
+        PaymentResponse response;
+        try {
+            response = payment.get();
+        } catch (PaymentRejectedException | InsufficientBalanceException e) {
+            // Recusado antes de chegar ao journal: a chave pode ser usada de novo
+            transactionTemplate.executeWithoutResult(status -> repository.deleteById(id));
+            throw e;
+        }
+        // Demais falhas (ex.: tempo esgotado) mantêm a reserva, pois o pagamento pode ter sido confirmado
+
+        String body = toJson(response);
+        transactionTemplate.executeWithoutResult(status -> repository.complete(id, body));
+        recent.put(id, new StoredResponse(requestHash, response));
+        return response;
+    }
+
+    private IdempotencyRecord newRecord(String id, String requestHash, String responseBody) {
+        LocalDateTime now = LocalDateTime.now();
+        return IdempotencyRecord.builder()
+                .id(id)
+                .requestHash(requestHash)
+                .responseBody(responseBody)
+                .createdAt(now)
+                .expiresAt(now.plus(config.getTtl()))
+                .build();
+    }
+
+    private StoredResponse findStored(String id) {
+        IdempotencyRecord record = findRecord(id);
+        return record != null && isLive(record) ? stored(id, record) : null;
+    }
+
+    private IdempotencyRecord findRecord(String id) {
+        // Sempre no primário: uma réplica atrasada não pode esconder uma chave já usada
+        return transactionTemplate.execute(status -> repository.findById(id)).orElse(null);
+    }
+
+    private static boolean isLive(IdempotencyRecord record) {
+        return record.getExpiresAt().isAfter(LocalDateTime.now());
+    }
+
+    private StoredResponse stored(String id, IdempotencyRecord record) {
+        if (record.getResponseBody() == null) {
+            return new StoredResponse(record.getRequestHash(), null);
+        }
+        StoredResponse stored = new StoredResponse(record.getRequestHash(), fromJson(record.getResponseBody()));
+        recent.put(id, stored);
+        return stored;
+    }
+
+    private static PaymentResponse replay(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new BusinessException("Idempotency-Key já utilizada com outra requisição");
+        }
+        if (stored.response() == null) {
+            throw new BusinessException("Pagamento com esta Idempotency-Key ainda em processamento");
+        }
+        return stored.response();
+    }
+
+    private PaymentResponse await(CompletableFuture<PaymentResponse> result) {
+        try {
+            return result.get(config.getWaitTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new BusinessException("Falha ao processar pagamento");
+        } catch (TimeoutException e) {
+            throw new BusinessException("Pagamento com esta Idempotency-Key ainda em processamento");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("Operação interrompida");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.payment.idempotency.sweep-interval-ms:600000}")
+    public void sweepExpired() {
+        Integer removed = transactionTemplate.execute(status -> repository.deleteExpired(LocalDateTime.now()));
+        if (removed != null && removed > 0) {
+            log.info("{} chaves de idempotência expiradas removidas", removed);
+        }
+    }
+
+    private static String hash(PaymentRequest request) {
+        String canonical = request.getMerchantId() + "|" +
+                request.getAmount().stripTrailingZeros().toPlainString() + "|" +
+                (request.getDescription() != null ? request.getDescription() : "");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    private String toJson(PaymentResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar resposta do pagamento", e);
+        }
+    }
+
+    private PaymentResponse fromJson(String body) {
+        try {
+            return objectMapper.readValue(body, PaymentResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao ler resposta armazenada do pagamento", e);
+        }
+    }
+}
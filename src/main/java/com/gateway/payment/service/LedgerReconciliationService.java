@@ -0,0 +1,373 @@
+package com.gateway.payment.service;
+
+import com.gateway.payment.config.LedgerReconciliationConfig;
+import com.gateway.payment.domain.value.Money;
+import com.gateway.payment.dto.ledger.ReconciliationMismatch;
+import com.gateway.payment.dto.ledger.ReconciliationPartitionResponse;
+import com.gateway.payment.dto.ledger.ReconciliationReport;
+import com.gateway.payment.exception.BusinessException;
+import com.gateway.payment.partition.TransactionPartitionManager;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reconciliação do livro-razão: confere se o saldo de cada conta (mais os
+ * sub-saldos de contas hot) é igual aos créditos menos os débitos das suas
+ * transações {@code APPROVED}; depósitos contam apenas como crédito. Meses
+ * já arquivados entram pelo saldo líquido gravado em
+ * {@code transaction_archive_totals} no arquivamento; com o particionamento
+ * ativo, só os de partições que já não estão anexadas, no mesmo snapshot da
+ * consulta, para que um mês em arquivamento não falte nem conte duas vezes.
+ * <p>
+ * O espaço de ids de conta é dividido em partições de {@code rangeSize} ids,
+ * processadas em paralelo por um {@link ForkJoinPool} dedicado. Cada partição é
+ * uma única consulta somente leitura (snapshot consistente do próprio
+ * comando, sem locks, servida por uma réplica se o roteamento estiver ativo),
+ * lida em streaming; apenas as divergências ficam em memória, até
+ * {@code maxReportedMismatches}. Entre partições as threads respeitam
+ * {@code maxAccountsPerSecond} para não competir com o tráfego.
+ */
+@Slf4j
+@Service
+public class LedgerReconciliationService implements DisposableBean {
+
+    private static final String RECONCILE_RANGE =
+            "SELECT a.id, a.balance, COALESCE(s.total, 0), COALESCE(c.total, 0), COALESCE(d.total, 0), " +
+            "COALESCE(z.total, 0) " +
+            "FROM accounts a " +
+            "LEFT JOIN (SELECT account_id, SUM(balance) AS total FROM account_balance_slots " +
+            "WHERE account_id >= ? AND account_id < ? GROUP BY account_id) s ON s.account_id = a.id " +
+            "LEFT JOIN (SELECT merchant_account_id AS account_id, SUM(amount) AS total FROM transactions " +
+            "WHERE status = 'APPROVED' AND merchant_account_id >= ? AND merchant_account_id < ? " +
+            "GROUP BY merchant_account_id) c ON c.account_id = a.id " +
+            "LEFT JOIN (SELECT payer_account_id AS account_id, SUM(amount) AS total FROM transactions " +
+            "WHERE status = 'APPROVED' AND payer_account_id <> merchant_account_id " +
+            "AND payer_account_id >= ? AND payer_account_id < ? " +
+            "GROUP BY payer_account_id) d ON d.account_id = a.id " +
+            "LEFT JOIN (SELECT account_id, SUM(net) AS total FROM transaction_archive_totals " +
+            "WHERE account_id >= ? AND account_id < ?%s GROUP BY account_id) z ON z.account_id = a.id " +
+            "WHERE a.id >= ? AND a.id < ? ORDER BY a.id";
+
+    private enum PartitionStatus { PENDING, RUNNING, DONE, FAILED }
+
+    private static final class Partition {
+        private final long from;
+        private final long to;
+        private volatile PartitionStatus status = PartitionStatus.PENDING;
+        private volatile long accounts;
+        private volatile long mismatches;
+        private volatile long durationMs;
+
+        Partition(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    private static final class Run {
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        private final Partition[] partitions;
+        private final String sql;
+        private final AtomicInteger done = new AtomicInteger();
+        private final AtomicLong accounts = new AtomicLong();
+        private final AtomicLong mismatchCount = new AtomicLong();
+        private final Queue<ReconciliationMismatch> mismatches = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger reported = new AtomicInteger();
+        private volatile LocalDateTime finishedAt;
+        private volatile long endNanos;
+        private volatile ForkJoinTask<?> task;
+
+        Run(Partition[] partitions, String sql) {
+            this.partitions = partitions;
+            this.sql = sql;
+        }
+    }
+
+    private final class RangeTask extends RecursiveAction {
+        private final Run run;
+        private final int first;
+        private final int last;
+
+        RangeTask(Run run, int first, int last) {
+            this.run = run;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected void compute() {
+            if (last - first == 1) {
+                reconcile(run, run.partitions[first]);
+                return;
+            }
+            int middle = (first + last) >>> 1;
+            invokeAll(new RangeTask(run, first, middle), new RangeTask(run, middle, last));
+        }
+    }
+
+    private final LedgerReconciliationConfig config;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectProvider<TransactionPartitionManager> partitionManager;
+    private final ForkJoinPool pool;
+    private final AtomicReference<Run> current = new AtomicReference<>();
+    // Próximo instante (nanoTime) liberado pelo limite de contas por segundo, compartilhado pelas threads
+    private final AtomicLong throttle = new AtomicLong(System.nanoTime());
+    private final Counter accountsChecked;
+    private final Counter mismatchesFound;
+    private final Timer partitionDuration;
+
+    public LedgerReconciliationService(LedgerReconciliationConfig config,
+                                       DataSource dataSource,
+                                       PlatformTransactionManager transactionManager,
+                                       ObjectProvider<TransactionPartitionManager> partitionManager,
+                                       MeterRegistry meterRegistry) {
+        this.config = config;
+        this.partitionManager = partitionManager;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(config.getFetchSize());
+        // O PostgreSQL só usa cursor no servidor (respeitando o fetchSize) dentro de uma transação
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.pool = new ForkJoinPool(config.getParallelism(), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("reconciliation-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+
+        this.accountsChecked = Counter.builder("ledger.reconciliation.accounts")
+                .description("Contas verificadas pela reconciliação")
+                .register(meterRegistry);
+        this.mismatchesFound = Counter.builder("ledger.reconciliation.mismatches")
+                .description("Contas com saldo diferente das transações aprovadas")
+                .register(meterRegistry);
+        this.partitionDuration = Timer.builder("ledger.reconciliation.partition")
+                .description("Duração de cada partição da reconciliação")
+                .register(meterRegistry);
+        Gauge.builder("ledger.reconciliation.progress", current, LedgerReconciliationService::progress)
+                .description("Fração das partições concluídas na reconciliação atual ou na última")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${app.ledger.reconciliation.cron:0 0 3 * * *}")
+    public void scheduledRun() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        try {
+            start();
+        } catch (BusinessException e) {
+            log.warn("Reconciliação agendada ignorada: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Inicia uma reconciliação em segundo plano e devolve o relatório inicial.
+     */
+    public ReconciliationReport start() {
+        Run previous = current.get();
+        if (previous != null && previous.finishedAt == null) {
+            throw new BusinessException("Reconciliação já em andamento");
+        }
+        Run run = new Run(partitions(), reconcileSql());
+        if (!current.compareAndSet(previous, run)) {
+            throw new BusinessException("Reconciliação já em andamento");
+        }
+        log.info("Reconciliação iniciada: {} partições de {} ids", run.partitions.length, config.getRangeSize());
+        run.task = pool.submit(() -> {
+            try {
+                if (run.partitions.length > 0) {
+                    new RangeTask(run, 0, run.partitions.length).invoke();
+                }
+            } finally {
+                finish(run);
+            }
+        });
+        return toReport(run);
+    }
+
+    public ReconciliationReport getReport() {
+        Run run = current.get();
+        if (run == null) {
+            throw new BusinessException("Nenhuma reconciliação executada");
+        }
+        return toReport(run);
+    }
+
+    // Espera o término da execução atual; usado nos testes
+    void awaitCompletion(long timeout, TimeUnit unit) throws Exception {
+        Run run = current.get();
+        if (run != null && run.task != null) {
+            run.task.get(timeout, unit);
+        }
+    }
+
+    private String reconcileSql() {
+        TransactionPartitionManager manager = partitionManager.getIfAvailable();
+        return RECONCILE_RANGE.formatted(manager != null && manager.isActive()
+                ? " AND partition_name NOT IN (" + TransactionPartitionManager.LIVE_PARTITIONS + ")"
+                : "");
+    }
+
+    private Partition[] partitions() {
+        Map<String, Object> bounds = jdbcTemplate.queryForMap("SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM accounts");
+        if (bounds.get("min_id") == null) {
+            return new Partition[0];
+        }
+        long min = ((Number) bounds.get("min_id")).longValue();
+        long max = ((Number) bounds.get("max_id")).longValue();
+        List<Partition> partitions = new ArrayList<>();
+        for (long from = min; from <= max; from += config.getRangeSize()) {
+            partitions.add(new Partition(from, Math.min(from + config.getRangeSize(), max + 1)));
+        }
+        return partitions.toArray(Partition[]::new);
+    }
+
+    private void reconcile(Run run, Partition partition) {
+        partition.status = PartitionStatus.RUNNING;
+        long start = System.nanoTime();
+        long[] accounts = {0};
+        long[] mismatches = {0};
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(run.sql,
+                    (RowCallbackHandler) rs -> {
+                        accounts[0]++;
+                        Money balance = Money.of(rs.getBigDecimal(2)).plus(Money.of(rs.getBigDecimal(3)));
+                        Money expected = Money.of(rs.getBigDecimal(4)).minus(Money.of(rs.getBigDecimal(5)))
+                                .plus(Money.of(rs.getBigDecimal(6)));
+                        if (balance.compareTo(expected) != 0) {
+                            mismatches[0]++;
+                            report(run, new ReconciliationMismatch(rs.getLong(1), balance, expected,
+                                    balance.minus(expected)));
+                        }
+                    },
+                    partition.from, partition.to, partition.from, partition.to,
+                    partition.from, partition.to, partition.from, partition.to,
+                    partition.from, partition.to));
+            partition.status = PartitionStatus.DONE;
+        } catch (RuntimeException e) {
+            partition.status = PartitionStatus.FAILED;
+            log.error("Erro na partição [{}, {}) da reconciliação: {}", partition.from, partition.to, e.getMessage());
+        }
+
+        long elapsed = System.nanoTime() - start;
+        partition.accounts = accounts[0];
+        partition.mismatches = mismatches[0];
+        partition.durationMs = TimeUnit.NANOSECONDS.toMillis(elapsed);
+        partitionDuration.record(elapsed, TimeUnit.NANOSECONDS);
+        accountsChecked.increment(accounts[0]);
+        run.accounts.addAndGet(accounts[0]);
+        int done = run.done.incrementAndGet();
+        log.debug("Partição [{}, {}) reconciliada: {} contas, {} divergências, {} ms ({}/{})", partition.from,
+                partition.to, accounts[0], mismatches[0], partition.durationMs, done, run.partitions.length);
+
+        pace(accounts[0]);
+    }
+
+    private void report(Run run, ReconciliationMismatch mismatch) {
+        run.mismatchCount.incrementAndGet();
+        mismatchesFound.increment();
+        if (run.reported.incrementAndGet() <= config.getMaxReportedMismatches()) {
+            run.mismatches.add(mismatch);
+        }
+    }
+
+    /**
+     * Reserva o tempo correspondente às contas lidas na janela compartilhada e
+     * espera até o fim da reserva; com N threads a soma fica no limite configurado.
+     */
+    private void pace(long accounts) {
+        if (config.getMaxAccountsPerSecond() <= 0 || accounts == 0) {
+            return;
+        }
+        long cost = TimeUnit.SECONDS.toNanos(1) * accounts / config.getMaxAccountsPerSecond();
+        long now = System.nanoTime();
+        long end = throttle.accumulateAndGet(cost, (next, reserved) -> Math.max(next, now) + reserved);
+        long wait = end - now;
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void finish(Run run) {
+        run.endNanos = System.nanoTime();
+        run.finishedAt = LocalDateTime.now();
+        ReconciliationReport report = toReport(run);
+        if (report.getMismatchCount() > 0 || "FAILED".equals(report.getStatus())) {
+            log.warn("Reconciliação {}: {} contas verificadas, {} divergências, {} contas/s", report.getStatus(),
+                    report.getAccountsChecked(), report.getMismatchCount(), (long) report.getAccountsPerSecond());
+        } else {
+            log.info("Reconciliação concluída sem divergências: {} contas, {} contas/s",
+                    report.getAccountsChecked(), (long) report.getAccountsPerSecond());
+        }
+    }
+
+    private static ReconciliationReport toReport(Run run) {
+        boolean finished = run.finishedAt != null;
+        boolean failed = Arrays.stream(run.partitions).anyMatch(p -> p.status == PartitionStatus.FAILED);
+        long elapsed = (finished ? run.endNanos : System.nanoTime()) - run.startNanos;
+        long accounts = run.accounts.get();
+
+        return ReconciliationReport.builder()
+                .status(!finished ? "RUNNING" : failed ? "FAILED" : "COMPLETED")
+                .startedAt(run.startedAt)
+                .finishedAt(run.finishedAt)
+                .partitionsTotal(run.partitions.length)
+                .partitionsDone(run.done.get())
+                .accountsChecked(accounts)
+                .accountsPerSecond(elapsed > 0 ? accounts * 1e9 / elapsed : 0)
+                .mismatchCount(run.mismatchCount.get())
+                .mismatches(List.copyOf(run.mismatches))
+                .partitions(Arrays.stream(run.partitions)
+                        .map(p -> new ReconciliationPartitionResponse(p.from, p.to, p.status.name(),
+                                p.accounts, p.mismatches, p.durationMs))
+                        .toList())
+                .build();
+    }
+
+    private static double progress(AtomicReference<Run> current) {
+        Run run = current.get();
+        if (run == null || run.partitions.length == 0) {
+            return run == null ? 0 : 1;
+        }
+        return (double) run.done.get() / run.partitions.length;
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,140 @@
+package com.gateway.payment.service;
+
+import com.gateway.payment.config.LedgerSnapshotConfig;
+import com.gateway.payment.domain.entity.BalanceSnapshot;
+import com.gateway.payment.domain.entity.LedgerEntry;
+import com.gateway.payment.domain.entity.Transaction;
+import com.gateway.payment.domain.enums.EntryDirection;
+import com.gateway.payment.repository.AccountBalanceAt;
+import com.gateway.payment.repository.BalanceSnapshotRepository;
+import com.gateway.payment.repository.LedgerEntryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Livro-razão em partidas dobradas. Toda transação gera um lançamento de débito
+ * e um de crédito, apenas com inserts. Snapshots periódicos por conta tornam a
+ * consulta de saldo em qualquer instante barata: snapshot mais os lançamentos
+ * posteriores a ele.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LedgerService {
+
+    // Início do livro-razão para contas que ainda não têm snapshot
+    private static final LocalDateTime LEDGER_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+    private final LedgerSnapshotConfig snapshotConfig;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Registra os lançamentos da transação; deve rodar na mesma transação que a gravou.
+     */
+    public void record(Transaction transaction) {
+        ledgerEntryRepository.saveAll(entriesFor(transaction));
+    }
+
+    public void recordAll(Collection<Transaction> transactions) {
+        List<LedgerEntry> entries = new ArrayList<>(transactions.size() * 2);
+        transactions.forEach(transaction -> entries.addAll(entriesFor(transaction)));
+        ledgerEntryRepository.saveAll(entries);
+    }
+
+    private static List<LedgerEntry> entriesFor(Transaction transaction) {
+        Long payerAccountId = transaction.getPayerAccount().getId();
+        Long merchantAccountId = transaction.getMerchantAccount().getId();
+        // Depósito é gravado como transação da conta com ela mesma: o débito fica no lado externo
+        Long debitAccountId = payerAccountId.equals(merchantAccountId) ? null : payerAccountId;
+
+        return List.of(
+                entry(transaction, debitAccountId, EntryDirection.DEBIT),
+                entry(transaction, merchantAccountId, EntryDirection.CREDIT));
+    }
+
+    private static LedgerEntry entry(Transaction transaction, Long accountId, EntryDirection direction) {
+        return LedgerEntry.builder()
+                .transactionId(transaction.getId())
+                .accountId(accountId)
+                .direction(direction)
+                .amount(transaction.getAmount().toBigDecimal())
+                // Pagamentos assíncronos afetam o saldo na liquidação, não no aceite
+                .createdAt(transaction.getSettledAt() != null ? transaction.getSettledAt() : transaction.getCreatedAt())
+                .build();
+    }
+
+    /**
+     * Saldo da conta considerando os lançamentos anteriores a {@code at}. Depois
+     * do último snapshot da conta, parte do saldo confirmado e desconta os
+     * lançamentos a partir de {@code at}, o que também enxerga lançamentos
+     * confirmados depois do corte; antes dele, soma ao snapshot os lançamentos
+     * do intervalo.
+     */
+    public BigDecimal balanceAt(Long accountId, LocalDateTime at) {
+        if (!balanceSnapshotRepository.existsByAccountIdAndAsOfGreaterThan(accountId, at)) {
+            return ledgerEntryRepository.findCommittedBalanceBefore(accountId, at).orElse(BigDecimal.ZERO);
+        }
+
+        Optional<BalanceSnapshot> snapshot =
+                balanceSnapshotRepository.findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(accountId, at);
+        LocalDateTime from = snapshot.map(BalanceSnapshot::getAsOf).orElse(LEDGER_START);
+        BigDecimal base = snapshot.map(BalanceSnapshot::getBalance).orElse(BigDecimal.ZERO);
+
+        return base.add(ledgerEntryRepository.sumByAccountIdBetween(accountId, from, at));
+    }
+
+    /**
+     * Materializa novos snapshots para as contas com lançamentos desde o último
+     * corte. Cada snapshot é recalculado a partir do saldo confirmado da conta,
+     * e não do snapshot anterior: um lançamento com {@code created_at} antes de
+     * um corte, mas confirmado depois dele, entra no próximo snapshot da conta
+     * em vez de ficar de fora de todos os seguintes.
+     */
+    @Scheduled(fixedDelayString = "${app.ledger.snapshots.interval-ms:60000}")
+    public void snapshotBalances() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(snapshotConfig.getSafetyMargin());
+        try {
+            Integer created = transactionTemplate.execute(status -> snapshotUpTo(cutoff));
+            if (created != null && created > 0) {
+                log.info("{} snapshots de saldo gerados até {}", created, cutoff);
+            }
+        } catch (RuntimeException e) {
+            log.error("Erro ao gerar snapshots de saldo: {}", e.getMessage());
+        }
+    }
+
+    int snapshotUpTo(LocalDateTime cutoff) {
+        LocalDateTime from = Optional.ofNullable(balanceSnapshotRepository.findLatestAsOf()).orElse(LEDGER_START);
+        if (!cutoff.isAfter(from)) {
+            return 0;
+        }
+
+        List<Long> accountIds = ledgerEntryRepository.findAccountIdsBetween(from, cutoff);
+        if (accountIds.isEmpty()) {
+            return 0;
+        }
+
+        List<BalanceSnapshot> snapshots = new ArrayList<>(accountIds.size());
+        for (AccountBalanceAt balance : ledgerEntryRepository.findCommittedBalancesBefore(accountIds, cutoff)) {
+            snapshots.add(BalanceSnapshot.builder()
+                    .accountId(balance.getAccountId())
+                    .balance(balance.getBalance())
+                    .asOf(cutoff)
+                    .build());
+        }
+        balanceSnapshotRepository.saveAll(snapshots);
+        return snapshots.size();
+    }
+}
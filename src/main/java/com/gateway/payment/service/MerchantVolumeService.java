@@ -0,0 +1,369 @@
+package com.gateway.payment.service;
+
+import com.gateway.payment.config.MerchantRollupConfig;
+import com.gateway.payment.domain.entity.MerchantVolumeRollup;
+import com.gateway.payment.domain.entity.Transaction;
+import com.gateway.payment.domain.enums.RollupGranularity;
+import com.gateway.payment.domain.value.Money;
+import com.gateway.payment.dto.merchant.MerchantVolumeResponse;
+import com.gateway.payment.exception.BusinessException;
+import com.gateway.payment.partition.TransactionPartitionManager;
+import com.gateway.payment.repository.MerchantVolumeRollupRepository;
+import com.gateway.payment.security.AuthenticatedUserProvider;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Volume de pagamentos aprovados por merchant em intervalos de minuto, hora e
+ * dia. Cada aprovação soma em contadores {@link LongAdder} em memória; um flush
+ * periódico aplica as diferenças na tabela {@code merchant_volume_rollups} em
+ * lote. A consulta é a linha do intervalo mais o que ainda não foi descarregado,
+ * sem agregar {@code transactions}. Aprovações nunca esperam o flush; apenas as
+ * consultas, para não verem contadores já zerados antes do commit na tabela.
+ * <p>
+ * A reconstrução a partir de {@code transactions} é manual ({@link #rebuild()}):
+ * contadores ainda não gravados por outras instâncias seriam somados de novo no
+ * próximo flush delas. Só com {@code rebuild-on-startup} ela roda na
+ * inicialização, antes do servidor web aceitar requisições.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MerchantVolumeService implements SmartLifecycle {
+
+    private static final LocalDateTime LEDGER_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final String UPDATE_ROLLUP =
+            "UPDATE merchant_volume_rollups SET tx_count = tx_count + ?, volume = volume + ? " +
+            "WHERE merchant_id = ? AND granularity = ? AND bucket_start = ?";
+    private static final String INSERT_ROLLUP =
+            "INSERT INTO merchant_volume_rollups (merchant_id, granularity, bucket_start, tx_count, volume) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    private record BucketKey(long merchantId, RollupGranularity granularity, LocalDateTime bucketStart) {
+    }
+
+    private static final class Counters {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder cents = new LongAdder();
+        // Marcado pelo flush depois de tirar a instância do mapa, antes da última leitura
+        private volatile boolean retired;
+
+        /**
+         * Soma nos contadores; {@code false} se a instância já foi aposentada, caso
+         * em que a soma pode ter ficado depois da última leitura do flush.
+         */
+        boolean add(long transactions, long amountCents) {
+            count.add(transactions);
+            cents.add(amountCents);
+            return !retired;
+        }
+    }
+
+    private record Delta(BucketKey key, long count, long cents) {
+    }
+
+    private record Approval(long merchantId, Money amount, LocalDateTime at) {
+    }
+
+    private final MerchantVolumeRollupRepository rollupRepository;
+    private final MerchantRollupConfig config;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AuthenticatedUserProvider authenticatedUserProvider;
+
+    private final Map<BucketKey, Counters> pending = new ConcurrentHashMap<>();
+    private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+    private volatile boolean running;
+
+    /**
+     * Contabiliza um pagamento já confirmado, como os do engine em memória.
+     */
+    public void record(Long merchantId, Money amount, LocalDateTime at) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            add(new BucketKey(merchantId, granularity, granularity.bucketOf(at)), 1, amount.minorUnits());
+        }
+    }
+
+    /**
+     * Contabiliza transações aprovadas na transação corrente somente após o
+     * commit; em rollback nada é somado.
+     */
+    public void recordAfterCommit(Collection<Transaction> transactions) {
+        if (!config.isEnabled() || transactions.isEmpty()) {
+            return;
+        }
+        // Ids resolvidos ainda com a sessão aberta
+        List<Approval> approvals = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            approvals.add(new Approval(transaction.getMerchantAccount().getUser().getId(), transaction.getAmount(),
+                    transaction.getSettledAt() != null ? transaction.getSettledAt() : transaction.getCreatedAt()));
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            approvals.forEach(this::record);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                approvals.forEach(MerchantVolumeService.this::record);
+            }
+        });
+    }
+
+    private void record(Approval approval) {
+        record(approval.merchantId(), approval.amount(), approval.at());
+    }
+
+    /**
+     * Volume do merchant autenticado no intervalo que contém {@code at} (agora, se nulo).
+     */
+    public MerchantVolumeResponse getVolume(RollupGranularity granularity, LocalDateTime at) {
+        if (!config.isEnabled()) {
+            throw new BusinessException("Consolidação de volume por merchant desabilitada");
+        }
+        Long merchantId = authenticatedUserProvider.getUserId();
+        LocalDateTime bucketStart = granularity.bucketOf(at != null ? at : LocalDateTime.now());
+
+        long count = 0;
+        long cents = 0;
+        flushLock.readLock().lock();
+        try {
+            Counters unflushed = pending.get(new BucketKey(merchantId, granularity, bucketStart));
+            if (unflushed != null) {
+                count += unflushed.count.sum();
+                cents += unflushed.cents.sum();
+            }
+            // No primário: uma réplica atrasada não teria o último flush
+            MerchantVolumeRollup rollup = transactionTemplate.execute(status -> rollupRepository.findById(
+                    new MerchantVolumeRollup.Key(merchantId, granularity, bucketStart)).orElse(null));
+            if (rollup != null) {
+                count += rollup.getTxCount();
+                cents += rollup.getVolume().minorUnits();
+            }
+        } finally {
+            flushLock.readLock().unlock();
+        }
+
+        return MerchantVolumeResponse.builder()
+                .granularity(granularity)
+                .bucketStart(bucketStart)
+                .count(count)
+                .volume(Money.ofMinor(cents))
+                .averageTicket(Money.ofMinor(count == 0 ? 0 : (cents + count / 2) / count))
+                .build();
+    }
+
+    /**
+     * Aplica os contadores acumulados na tabela; em falha as diferenças voltam
+     * para a memória e entram no próximo flush.
+     */
+    @Scheduled(fixedDelayString = "${app.merchants.rollups.flush-interval-ms:5000}")
+    public void flush() {
+        if (!config.isEnabled() || pending.isEmpty()) {
+            return;
+        }
+        flushLock.writeLock().lock();
+        try {
+            List<Delta> deltas = drain();
+            if (deltas.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(deltas));
+                log.debug("{} intervalos de volume por merchant atualizados", deltas.size());
+            } catch (RuntimeException e) {
+                log.error("Erro ao gravar consolidações de volume: {}", e.getMessage());
+                deltas.forEach(delta -> add(delta.key(), delta.count(), delta.cents()));
+            }
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    private List<Delta> drain() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Delta> deltas = new ArrayList<>();
+        pending.forEach((key, counters) -> {
+            long count = counters.count.sumThenReset();
+            long cents = counters.cents.sumThenReset();
+            if (count != 0 || cents != 0) {
+                deltas.add(new Delta(key, count, cents));
+            } else if (key.bucketStart().isBefore(key.granularity().bucketOf(now)) && pending.remove(key, counters)) {
+                // Intervalo encerrado: quem somar depois da marcação refaz a soma em uma
+                // nova instância; o que chegou antes entra na última leitura
+                counters.retired = true;
+                long late = counters.count.sumThenReset();
+                long lateCents = counters.cents.sumThenReset();
+                if (late != 0 || lateCents != 0) {
+                    deltas.add(new Delta(key, late, lateCents));
+                }
+            }
+        });
+        return deltas;
+    }
+
+    private void write(List<Delta> deltas) {
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_ROLLUP, deltas.stream()
+                .map(delta -> new Object[]{delta.count(), BigDecimal.valueOf(delta.cents(), Money.SCALE),
+                        delta.key().merchantId(), delta.key().granularity().name(),
+                        Timestamp.valueOf(delta.key().bucketStart())})
+                .toList());
+
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < deltas.size(); i++) {
+            if (updated[i] == 0) {
+                Delta delta = deltas.get(i);
+                inserts.add(new Object[]{delta.key().merchantId(), delta.key().granularity().name(),
+                        Timestamp.valueOf(delta.key().bucketStart()), delta.count(),
+                        BigDecimal.valueOf(delta.cents(), Money.SCALE)});
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ROLLUP, inserts);
+        }
+    }
+
+    /**
+     * Recalcula todas as consolidações a partir das transações aprovadas
+     * (depósitos ficam de fora). Intervalos de minuto só dentro da retenção.
+     * Hora e dia são refeitos só nos meses que ainda têm transações no banco.
+     * As partições são por {@code created_at} e os intervalos por aprovação:
+     * o mês seguinte ao último arquivado ainda conta liquidações de transações
+     * arquivadas, então ele e os anteriores ficam como estão.
+     * <p>
+     * Pagamentos aprovados durante a reconstrução, nesta ou em outras instâncias,
+     * podem ficar de fora ou ser contados em dobro: rode sem tráfego de pagamentos.
+     */
+    public int rebuild() {
+        if (!config.isEnabled()) {
+            throw new BusinessException("Consolidação de volume por merchant desabilitada");
+        }
+        flushLock.writeLock().lock();
+        try {
+            Integer rows = transactionTemplate.execute(status -> {
+                LocalDateTime start = rebuildStart();
+                LocalDateTime minuteCutoff = LocalDateTime.now().minus(config.getMinuteRetention());
+                jdbcTemplate.update("DELETE FROM merchant_volume_rollups WHERE granularity = ? AND bucket_start >= ?",
+                        RollupGranularity.MINUTE.name(), Timestamp.valueOf(start));
+                List<Timestamp> months = jdbcTemplate.queryForList("SELECT DISTINCT DATE_TRUNC('month', " +
+                        "COALESCE(settled_at, created_at)) FROM transactions " +
+                        "WHERE COALESCE(settled_at, created_at) >= ?", Timestamp.class, Timestamp.valueOf(start));
+                for (Timestamp month : months) {
+                    jdbcTemplate.update("DELETE FROM merchant_volume_rollups WHERE granularity <> ? " +
+                                    "AND bucket_start >= ? AND bucket_start < ?", RollupGranularity.MINUTE.name(),
+                            month, Timestamp.valueOf(month.toLocalDateTime().plusMonths(1)));
+                }
+                int inserted = 0;
+                for (RollupGranularity granularity : RollupGranularity.values()) {
+                    LocalDateTime from = granularity == RollupGranularity.MINUTE && minuteCutoff.isAfter(start)
+                            ? minuteCutoff : start;
+                    inserted += jdbcTemplate.update(rebuildSql(granularity), granularity.name(),
+                            Timestamp.valueOf(from));
+                }
+                return inserted;
+            });
+            pending.clear();
+            return rows != null ? rows : 0;
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    // Primeiro mês sem liquidações de transações arquivadas: dois meses após a última partição arquivada
+    private LocalDateTime rebuildStart() {
+        String latest = jdbcTemplate.queryForObject(
+                "SELECT MAX(partition_name) FROM transaction_archive_totals", String.class);
+        YearMonth archived = latest != null ? TransactionPartitionManager.monthOf(latest) : null;
+        return archived != null ? archived.plusMonths(2).atDay(1).atStartOfDay() : LEDGER_START;
+    }
+
+    private static String rebuildSql(RollupGranularity granularity) {
+        String bucket = "DATE_TRUNC('" + granularity.sqlUnit() + "', COALESCE(t.settled_at, t.created_at))";
+        return "INSERT INTO merchant_volume_rollups (merchant_id, granularity, bucket_start, tx_count, volume) " +
+                "SELECT a.user_id, ?, " + bucket + ", COUNT(*), SUM(t.amount) " +
+                "FROM transactions t JOIN accounts a ON a.id = t.merchant_account_id " +
+                "WHERE t.status = 'APPROVED' AND t.payer_account_id <> t.merchant_account_id " +
+                "AND COALESCE(t.settled_at, t.created_at) >= ? " +
+                "GROUP BY a.user_id, " + bucket;
+    }
+
+    @Scheduled(fixedDelayString = "${app.merchants.rollups.prune-interval-ms:3600000}")
+    public void pruneMinuteBuckets() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        LocalDateTime cutoff = RollupGranularity.MINUTE.bucketOf(LocalDateTime.now().minus(config.getMinuteRetention()));
+        try {
+            Integer removed = transactionTemplate.execute(status ->
+                    rollupRepository.deleteBucketsBefore(RollupGranularity.MINUTE, cutoff));
+            if (removed != null && removed > 0) {
+                log.info("{} intervalos de minuto anteriores a {} removidos", removed, cutoff);
+            }
+        } catch (RuntimeException e) {
+            log.error("Erro ao remover intervalos de minuto antigos: {}", e.getMessage());
+        }
+    }
+
+    private void add(BucketKey key, long transactions, long amountCents) {
+        Counters counters = pending.computeIfAbsent(key, k -> new Counters());
+        while (!counters.add(transactions, amountCents)) {
+            // Instância aposentada pelo flush: o que ele não leu dela segue para a nova
+            transactions = counters.count.sumThenReset();
+            amountCents = counters.cents.sumThenReset();
+            counters = pending.computeIfAbsent(key, k -> new Counters());
+        }
+    }
+
+    @Override
+    public void start() {
+        if (config.isEnabled() && config.isRebuildOnStartup()) {
+            try {
+                log.info("{} consolidações de volume por merchant reconstruídas", rebuild());
+            } catch (RuntimeException e) {
+                log.error("Erro ao reconstruir consolidações de volume: {}", e.getMessage());
+            }
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Com rebuild-on-startup, antes do servidor web e dos workers de liquidação: nada é contado em dobro
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 4096;
+    }
+}
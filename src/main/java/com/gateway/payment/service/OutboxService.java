@@ -0,0 +1,119 @@
+package com.gateway.payment.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gateway.payment.config.OutboxConfig;
+import com.gateway.payment.domain.entity.OutboxEvent;
+import com.gateway.payment.domain.entity.Transaction;
+import com.gateway.payment.outbox.TransactionStatusEvent;
+import com.gateway.payment.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Grava no outbox os eventos de mudança de status das transações. Deve rodar na
+ * mesma transação que gravou a {@link Transaction}: o evento existe se, e somente
+ * se, a mudança foi confirmada.
+ * <p>
+ * Cada evento vira uma linha por conta envolvida, numerada pela sequência da
+ * conta ({@code accounts.outbox_sequence}). O incremento bloqueia a linha da
+ * conta até o commit, inclusive nos caminhos que não a bloqueiam para o saldo
+ * (créditos em conta hot, aceite assíncrono): duas transações da mesma conta
+ * recebem números na ordem em que confirmam, qualquer que seja o id do evento.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxConfig config;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+
+    public void record(Transaction transaction) {
+        if (config.isEnabled()) {
+            recordEvents(List.of(TransactionStatusEvent.of(transaction)));
+        }
+    }
+
+    public void recordAll(Collection<Transaction> transactions) {
+        if (config.isEnabled() && !transactions.isEmpty()) {
+            recordEvents(transactions.stream().map(TransactionStatusEvent::of).toList());
+        }
+    }
+
+    // Usado pelo engine em memória, que grava as transações por JDBC sem entidades
+    public void recordEvents(Collection<TransactionStatusEvent> events) {
+        if (!config.isEnabled() || events.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> countByAccount = new TreeMap<>();
+        events.forEach(event -> accountsOf(event).forEach(accountId -> countByAccount.merge(accountId, 1, Integer::sum)));
+        Map<Long, Long> nextSequence = reserveSequences(countByAccount);
+
+        List<OutboxEvent> outboxEvents = new ArrayList<>();
+        for (TransactionStatusEvent event : events) {
+            String payload = toPayload(event);
+            for (Long accountId : accountsOf(event)) {
+                long sequence = nextSequence.merge(accountId, 1L, Long::sum) - 1;
+                outboxEvents.add(OutboxEvent.builder()
+                        .eventType(TransactionStatusEvent.TYPE)
+                        .transactionId(event.transactionId())
+                        .accountId(accountId)
+                        .accountSequence(sequence)
+                        .payload(payload)
+                        .build());
+            }
+        }
+        outboxEventRepository.saveAll(outboxEvents);
+    }
+
+    /**
+     * Reserva {@code count} números na sequência de cada conta, em ordem de id
+     * de conta (a mesma dos locks de pagamento), e devolve o primeiro de cada uma.
+     */
+    private Map<Long, Long> reserveSequences(Map<Long, Integer> countByAccount) {
+        jdbcTemplate.batchUpdate("UPDATE accounts SET outbox_sequence = COALESCE(outbox_sequence, 0) + ? WHERE id = ?",
+                countByAccount.entrySet().stream()
+                        .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                        .toList());
+
+        Map<Long, Long> first = new HashMap<>();
+        jdbcTemplate.query("SELECT id, outbox_sequence FROM accounts WHERE id IN ("
+                        + String.join(", ", Collections.nCopies(countByAccount.size(), "?")) + ")",
+                (RowCallbackHandler) rs -> {
+                    long accountId = rs.getLong(1);
+                    first.put(accountId, rs.getLong(2) - countByAccount.get(accountId) + 1);
+                },
+                countByAccount.keySet().toArray());
+        if (first.size() != countByAccount.size()) {
+            throw new IllegalStateException("Conta inexistente em evento do outbox: " + countByAccount.keySet());
+        }
+        return first;
+    }
+
+    // Em depósitos, pagador e merchant são a mesma conta: um único evento
+    private static List<Long> accountsOf(TransactionStatusEvent event) {
+        return event.payerAccountId().equals(event.merchantAccountId())
+                ? List.of(event.payerAccountId())
+                : List.of(event.payerAccountId(), event.merchantAccountId());
+    }
+
+    private String toPayload(TransactionStatusEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar evento da transação " + event.transactionId(), e);
+        }
+    }
+}
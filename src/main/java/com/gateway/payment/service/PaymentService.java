@@ -2,22 +2,29 @@ package com.gateway.payment.service;
 
 import com.gateway.payment.domain.entity.Account;
 import com.gateway.payment.domain.entity.Transaction;
-import com.gateway.payment.domain.entity.User;
+import com.gateway.payment.domain.enums.RejectionReason;
+import com.gateway.payment.domain.enums.Role;
 import com.gateway.payment.domain.enums.TransactionStatus;
+import com.gateway.payment.domain.value.Money;
 import com.gateway.payment.dto.payment.PaymentRequest;
 import com.gateway.payment.dto.payment.PaymentResponse;
 import com.gateway.payment.exception.BusinessException;
 import com.gateway.payment.exception.InsufficientBalanceException;
+import com.gateway.payment.exception.PaymentRejectedException;
+import com.gateway.payment.ledger.LedgerEngine;
+import com.gateway.payment.ledger.LedgerReceipt;
+import com.gateway.payment.metrics.PaymentMetrics;
+import com.gateway.payment.metrics.PaymentMetrics.Stage;
 import com.gateway.payment.repository.AccountRepository;
 import com.gateway.payment.repository.TransactionRepository;
-import com.gateway.payment.repository.UserRepository;
+import com.gateway.payment.security.AuthenticatedUserProvider;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @Service
@@ -26,83 +33,153 @@ public class PaymentService {
 
     private final AccountRepository accountRepository;
     private final TransactionRepository transactionRepository;
-    private final UserRepository userRepository;
+    private final AuthenticatedUserProvider authenticatedUserProvider;
+    private final HotAccountService hotAccountService;
+    private final LedgerService ledgerService;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final Optional<LedgerEngine> ledgerEngine;
+    private final IdempotencyService idempotencyService;
+    private final BalanceCache balanceCache;
+    private final MerchantVolumeService merchantVolumeService;
+    private final PaymentMetrics paymentMetrics;
+
+    /**
+     * Com {@code Idempotency-Key}, repetições da mesma requisição devolvem a
+     * resposta original em vez de cobrar de novo.
+     */
+    public PaymentResponse processPayment(PaymentRequest request, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return processPayment(request);
+        }
+        return idempotencyService.execute(authenticatedUserProvider.getUserId(), idempotencyKey, request,
+                () -> processPayment(request));
+    }
 
-    @Transactional
     public PaymentResponse processPayment(PaymentRequest request) {
         log.info("Processando pagamento de {} para merchant {}",
                 request.getAmount(), request.getMerchantId());
 
-        // 1. Obter usuário autenticado (payer)
-        String payerEmail = SecurityContextHolder.getContext().getAuthentication().getName();
-        User payer = userRepository.findByEmail(payerEmail)
-                .orElseThrow(() -> new BusinessException("Usuário não encontrado"));
+        long start = System.nanoTime();
+        try {
+            // 1. Obter usuário autenticado (payer)
+            Long payerId = authenticatedUserProvider.getUserId();
+            Money amount = amountOf(request);
+            long next = paymentMetrics.stage(Stage.PRINCIPAL, start);
+
+            // Com o engine em memória, o pagamento não abre transação no banco
+            PaymentResponse response = ledgerEngine.isPresent()
+                    ? processWithEngine(ledgerEngine.get(), payerId, request, amount, next)
+                    : transactionTemplate.execute(status -> processWithJpa(payerId, request, amount, next));
+            paymentMetrics.approved(start);
+            return response;
+        } catch (RuntimeException e) {
+            paymentMetrics.rejected(e, start);
+            throw e;
+        }
+    }
 
-        Account payerAccount = accountRepository.findByUser(payer)
-                .orElseThrow(() -> new BusinessException("Conta do pagador não encontrada"));
+    private PaymentResponse processWithEngine(LedgerEngine engine, Long payerId, PaymentRequest request,
+                                              Money amount, long stageStart) {
+        LedgerReceipt receipt = engine.transfer(payerId, request.getMerchantId(),
+                amount, request.getDescription());
+        paymentMetrics.stage(Stage.LEDGER, stageStart);
+        merchantVolumeService.record(request.getMerchantId(), receipt.amount(), receipt.createdAt());
+
+        log.info("Pagamento {} aprovado com sucesso", receipt.transactionId());
+
+        return PaymentResponse.builder()
+                .transactionId(receipt.transactionId())
+                .amount(receipt.amount())
+                .status(TransactionStatus.APPROVED)
+                .merchantName(receipt.merchantName())
+                .description(receipt.description())
+                .createdAt(receipt.createdAt())
+                .build();
+    }
 
-        // 2. Validar merchant
-        User merchant = userRepository.findById(request.getMerchantId())
-                .orElseThrow(() -> new BusinessException("Merchant não encontrado"));
+    private PaymentResponse processWithJpa(Long payerId, PaymentRequest request, Money amount, long stageStart) {
+        // 2. Contas do pagador e do merchant em uma única consulta, já com lock pessimista
+        List<Account> accounts = accountRepository.findByUserIdsWithLock(
+                List.of(payerId, request.getMerchantId()));
+        long next = paymentMetrics.lockAcquired(stageStart);
 
-        Account merchantAccount = accountRepository.findByUser(merchant)
-                .orElseThrow(() -> new BusinessException("Conta do merchant não encontrada"));
+        Account payerAccount = findByUserId(accounts, payerId)
+                .orElseThrow(() -> new PaymentRejectedException(RejectionReason.PAYER_NOT_FOUND,
+                        "Conta do pagador não encontrada"));
+        Account merchantAccount = findByUserId(accounts, request.getMerchantId())
+                .or(() -> findHotAccount(request.getMerchantId()))
+                .orElseThrow(() -> new PaymentRejectedException(RejectionReason.MERCHANT_NOT_FOUND,
+                        "Merchant não encontrado"));
 
         // 3. Validar se o merchant realmente é um merchant
-        if (!merchant.getRole().name().equals("MERCHANT")) {
-            throw new BusinessException("Usuário destino não é um merchant");
+        if (merchantAccount.getUser().getRole() != Role.MERCHANT) {
+            throw new PaymentRejectedException(RejectionReason.NOT_A_MERCHANT, "Usuário destino não é um merchant");
         }
+        next = paymentMetrics.stage(Stage.MERCHANT, next);
 
-        // 4. Validar saldo (com lock pessimista para evitar concorrência)
-        Account payerAccountLocked = accountRepository.findByIdWithLock(payerAccount.getId())
-                .orElseThrow(() -> new BusinessException("Conta do pagador não encontrada"));
-
-        if (payerAccountLocked.getBalance().compareTo(request.getAmount()) < 0) {
+        // 4. Validar saldo
+        if (payerAccount.getBalance().isLessThan(amount)) {
             throw new InsufficientBalanceException("Saldo insuficiente");
         }
 
-        // 5. Criar transação com status PENDING
-        Transaction transaction = Transaction.builder()
-                .payerAccount(payerAccountLocked)
+        // 5. Processar débito e crédito (ATÔMICO); as contas são atualizadas no flush
+        try {
+            payerAccount.debit(amount);
+            if (merchantAccount.isHot()) {
+                hotAccountService.credit(merchantAccount, amount, payerAccount.getId());
+            } else {
+                merchantAccount.credit(amount);
+            }
+        } catch (IllegalArgumentException e) {
+            log.error("Erro ao processar pagamento: {}", e.getMessage());
+            throw new PaymentRejectedException(RejectionReason.INVALID_AMOUNT,
+                    "Falha ao processar pagamento: " + e.getMessage());
+        }
+        paymentMetrics.persistUntilCompletion(paymentMetrics.stage(Stage.DEBIT_CREDIT, next));
+
+        // 6. Registrar a transação diretamente no status final e seus lançamentos no livro-razão
+        Transaction transaction = transactionRepository.save(Transaction.builder()
+                .payerAccount(payerAccount)
                 .merchantAccount(merchantAccount)
-                .amount(request.getAmount())
-                .status(TransactionStatus.PENDING)
+                .amount(amount)
+                .status(TransactionStatus.APPROVED)
                 .description(request.getDescription())
+                .build());
+        ledgerService.record(transaction);
+        outboxService.record(transaction);
+        balanceCache.updateAfterCommit(List.of(payerAccount, merchantAccount));
+        merchantVolumeService.recordAfterCommit(List.of(transaction));
+
+        log.info("Pagamento {} aprovado com sucesso", transaction.getId());
+
+        return PaymentResponse.builder()
+                .transactionId(transaction.getId())
+                .amount(transaction.getAmount())
+                .status(transaction.getStatus())
+                .merchantName(merchantAccount.getUser().getName())
+                .description(transaction.getDescription())
+                .createdAt(transaction.getCreatedAt())
                 .build();
+    }
 
-        Transaction savedTransaction = transactionRepository.save(transaction);
+    // Contas hot não entram na consulta com lock; são lidas sem lock apenas quando necessário
+    private Optional<Account> findHotAccount(Long userId) {
+        return accountRepository.findHotByUserIds(List.of(userId)).stream().findFirst();
+    }
 
-        try {
-            // 6. Processar débito e crédito (ATÔMICO)
-            payerAccountLocked.debit(request.getAmount());
-            merchantAccount.credit(request.getAmount());
-
-            // 7. Atualizar contas
-            accountRepository.save(payerAccountLocked);
-            accountRepository.save(merchantAccount);
-
-            // 8. Atualizar status da transação
-            savedTransaction.setStatus(TransactionStatus.APPROVED);
-            transactionRepository.save(savedTransaction);
-
-            log.info("Pagamento {} aprovado com sucesso", savedTransaction.getId());
-
-            return PaymentResponse.builder()
-                    .transactionId(savedTransaction.getId())
-                    .amount(savedTransaction.getAmount())
-                    .status(savedTransaction.getStatus())
-                    .merchantName(merchant.getName())
-                    .description(savedTransaction.getDescription())
-                    .createdAt(savedTransaction.getCreatedAt())
-                    .build();
-
-        } catch (Exception e) {
-            // 9. Em caso de erro, marcar como FAILED
-            savedTransaction.setStatus(TransactionStatus.FAILED);
-            transactionRepository.save(savedTransaction);
+    private static Optional<Account> findByUserId(List<Account> accounts, Long userId) {
+        return accounts.stream()
+                .filter(account -> account.getUser().getId().equals(userId))
+                .findFirst();
+    }
 
-            log.error("Erro ao processar pagamento: {}", e.getMessage());
-            throw new BusinessException("Falha ao processar pagamento: " + e.getMessage());
+    // Centavos calculados uma única vez; daqui em diante só aritmética inteira
+    static Money amountOf(PaymentRequest request) {
+        try {
+            return Money.of(request.getAmount());
+        } catch (IllegalArgumentException e) {
+            throw new PaymentRejectedException(RejectionReason.INVALID_AMOUNT, e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,84 @@
+package com.gateway.payment.service;
+
+import com.gateway.payment.config.JwtConfig;
+import com.gateway.payment.domain.entity.RefreshToken;
+import com.gateway.payment.exception.UnauthorizedException;
+import com.gateway.payment.repository.RefreshTokenRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Refresh tokens opacos: renovam o JWT sem nova verificação de senha (BCrypt).
+ * São de uso único; um token apresentado duas vezes é recusado.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final RefreshTokenRepository repository;
+    private final JwtConfig jwtConfig;
+    private final TransactionTemplate transactionTemplate;
+
+    @Transactional
+    public String issue(Long userId) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        LocalDateTime now = LocalDateTime.now();
+        repository.save(RefreshToken.builder()
+                .id(hash(token))
+                .userId(userId)
+                .createdAt(now)
+                .expiresAt(now.plus(jwtConfig.getRefreshExpiration()))
+                .build());
+        return token;
+    }
+
+    /**
+     * Invalida o token e devolve o id do usuário dono dele.
+     */
+    @Transactional
+    public Long consume(String token) {
+        String id = hash(token);
+        RefreshToken stored = repository.findById(id)
+                .filter(found -> found.getExpiresAt().isAfter(LocalDateTime.now()))
+                .orElseThrow(() -> new UnauthorizedException("Refresh token inválido ou expirado"));
+        if (repository.consume(id) == 0) {
+            throw new UnauthorizedException("Refresh token inválido ou expirado");
+        }
+        return stored.getUserId();
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.jwt.refresh-sweep-interval-ms:3600000}")
+    public void sweepExpired() {
+        Integer removed = transactionTemplate.execute(status -> repository.deleteExpired(LocalDateTime.now()));
+        if (removed != null && removed > 0) {
+            log.info("{} refresh tokens expirados removidos", removed);
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+}
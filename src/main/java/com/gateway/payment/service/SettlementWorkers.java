@@ -0,0 +1,92 @@
+package com.gateway.payment.service;
+
+import com.gateway.payment.config.AsyncPaymentConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Threads de liquidação do modo assíncrono. O worker {@code i} atende as contas
+ * pagadoras com {@code id % workers == i}; sem pendentes, espera um novo aceite
+ * ou o intervalo de polling.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app.payment.async", name = "enabled", havingValue = "true")
+public class SettlementWorkers implements SmartLifecycle {
+
+    private final AsyncPaymentService asyncPaymentService;
+    private final AsyncPaymentConfig config;
+
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        if (!asyncPaymentService.isEnabled()) {
+            log.warn("Modo assíncrono ignorado: não é suportado com o engine de ledger em memória");
+            return;
+        }
+        running = true;
+        for (int worker = 0; worker < config.getWorkers(); worker++) {
+            int index = worker;
+            Thread thread = new Thread(() -> run(index), "settlement-" + worker);
+            thread.start();
+            threads.add(thread);
+        }
+        log.info("{} workers de liquidação iniciados", config.getWorkers());
+    }
+
+    private void run(int worker) {
+        while (running) {
+            try {
+                int settled = asyncPaymentService.settleBatch(worker);
+                if (settled < config.getBatchSize()) {
+                    asyncPaymentService.awaitWork(worker);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Falha transitória (conexão, lock): o lote é desfeito e tentado de novo no próximo ciclo
+                log.error("Erro ao liquidar pagamentos no worker {}: {}", worker, e.getMessage());
+                sleepQuietly();
+            }
+        }
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(config.getPollIntervalMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (int worker = 0; worker < threads.size(); worker++) {
+            asyncPaymentService.wakeUp(worker);
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join(30_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        threads.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
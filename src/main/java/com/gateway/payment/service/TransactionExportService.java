@@ -0,0 +1,171 @@
+package com.gateway.payment.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gateway.payment.config.TransactionExportConfig;
+import com.gateway.payment.domain.enums.TransactionStatus;
+import com.gateway.payment.dto.transaction.ExportFormat;
+import com.gateway.payment.exception.BusinessException;
+import com.gateway.payment.repository.AccountRepository;
+import com.gateway.payment.security.AuthenticatedUserProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exportação do extrato em NDJSON ou CSV com memória constante: as linhas são
+ * lidas por um cursor JDBC com {@code fetchSize} limitado e escritas direto na
+ * resposta, sem entidades nem contexto de persistência.
+ */
+@Slf4j
+@Service
+public class TransactionExportService {
+
+    private static final String EXPORT_QUERY =
+            "SELECT t.id, t.created_at, t.amount, t.status, pu.name, mu.name, t.description " +
+                    "FROM transactions t " +
+                    "JOIN accounts pa ON pa.id = t.payer_account_id JOIN users pu ON pu.id = pa.user_id " +
+                    "JOIN accounts ma ON ma.id = t.merchant_account_id JOIN users mu ON mu.id = ma.user_id " +
+                    "WHERE (t.payer_account_id = ? OR t.merchant_account_id = ?) " +
+                    "AND t.created_at >= ? AND t.created_at < ?";
+    private static final String CSV_HEADER = "id,createdAt,amount,status,payerName,merchantName,description\n";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final AccountRepository accountRepository;
+    private final AuthenticatedUserProvider authenticatedUserProvider;
+
+    public TransactionExportService(DataSource dataSource,
+                                    PlatformTransactionManager transactionManager,
+                                    ObjectMapper objectMapper,
+                                    AccountRepository accountRepository,
+                                    AuthenticatedUserProvider authenticatedUserProvider,
+                                    TransactionExportConfig exportConfig) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(exportConfig.getFetchSize());
+        // O PostgreSQL só usa cursor no servidor (respeitando o fetchSize) dentro de uma transação
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.accountRepository = accountRepository;
+        this.authenticatedUserProvider = authenticatedUserProvider;
+    }
+
+    /**
+     * Prepara a exportação da conta do usuário autenticado. A consulta só roda
+     * quando o corpo da resposta é escrito, fora da thread da requisição.
+     */
+    public StreamingResponseBody export(ExportFormat format, LocalDateTime from, LocalDateTime to,
+                                        TransactionStatus status) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new BusinessException("Data inicial deve ser anterior à data final");
+        }
+        Long accountId = accountRepository.findIdByUserId(authenticatedUserProvider.getUserId())
+                .orElseThrow(() -> new BusinessException("Conta não encontrada"));
+
+        StringBuilder sql = new StringBuilder(EXPORT_QUERY);
+        List<Object> params = new ArrayList<>(List.of(
+                accountId,
+                accountId,
+                Timestamp.valueOf(from != null ? from : LocalDateTime.of(1970, 1, 1, 0, 0)),
+                Timestamp.valueOf(to != null ? to : LocalDateTime.of(9999, 12, 31, 23, 59, 59))));
+        if (status != null) {
+            sql.append(" AND t.status = ?");
+            params.add(status.name());
+        }
+        sql.append(" ORDER BY t.created_at, t.id");
+
+        return output -> readOnlyTransaction.executeWithoutResult(tx -> {
+            try {
+                long rows = format == ExportFormat.CSV
+                        ? writeCsv(sql.toString(), params.toArray(), output)
+                        : writeNdjson(sql.toString(), params.toArray(), output);
+                log.info("Exportação de {} transações da conta {} concluída", rows, accountId);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao escrever exportação", e);
+            }
+        });
+    }
+
+    private long writeNdjson(String sql, Object[] params, OutputStream output) throws IOException {
+        long[] rows = {0};
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(output)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Um objeto por linha: sem o espaço que o Jackson insere entre valores raiz
+            json.setRootValueSeparator(null);
+            jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+                try {
+                    json.writeStartObject();
+                    json.writeNumberField("id", rs.getLong(1));
+                    json.writeStringField("createdAt", rs.getTimestamp(2).toLocalDateTime().toString());
+                    json.writeNumberField("amount", rs.getBigDecimal(3));
+                    json.writeStringField("status", rs.getString(4));
+                    json.writeStringField("payerName", rs.getString(5));
+                    json.writeStringField("merchantName", rs.getString(6));
+                    json.writeStringField("description", rs.getString(7));
+                    json.writeEndObject();
+                    json.writeRaw('\n');
+                    rows[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, params);
+        }
+        return rows[0];
+    }
+
+    private long writeCsv(String sql, Object[] params, OutputStream output) throws IOException {
+        long[] rows = {0};
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 16 * 1024);
+        writer.write(CSV_HEADER);
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+            try {
+                writer.write(csvRow(rs));
+                rows[0]++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, params);
+        writer.flush();
+        return rows[0];
+    }
+
+    private static String csvRow(ResultSet rs) throws SQLException {
+        return rs.getLong(1) + "," +
+                rs.getTimestamp(2).toLocalDateTime() + "," +
+                rs.getBigDecimal(3).toPlainString() + "," +
+                rs.getString(4) + "," +
+                csvField(rs.getString(5)) + "," +
+                csvField(rs.getString(6)) + "," +
+                csvField(rs.getString(7)) + "\n";
+    }
+
+    // Escapa aspas e neutraliza fórmulas de planilha em campos preenchidos pelo usuário
+    private static String csvField(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        String safe = "=+-@".indexOf(value.charAt(0)) >= 0 ? "'" + value : value;
+        return "\"" + safe.replace("\"", "\"\"") + "\"";
+    }
+}
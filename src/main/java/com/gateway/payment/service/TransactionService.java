@@ -1,53 +1,90 @@
 package com.gateway.payment.service;
 
-import com.gateway.payment.domain.entity.Account;
-import com.gateway.payment.domain.entity.Transaction;
-import com.gateway.payment.domain.entity.User;
+import com.gateway.payment.config.TransactionPageConfig;
+import com.gateway.payment.dto.transaction.TransactionPageResponse;
 import com.gateway.payment.dto.transaction.TransactionResponse;
 import com.gateway.payment.exception.BusinessException;
 import com.gateway.payment.repository.AccountRepository;
 import com.gateway.payment.repository.TransactionRepository;
-import com.gateway.payment.repository.UserRepository;
+import com.gateway.payment.security.AuthenticatedUserProvider;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
 
+/**
+ * Extrato paginado por keyset em {@code (created_at, id)}, do mais recente para
+ * o mais antigo. Cada página lê no máximo {@code size + 1} linhas de cada lado
+ * (pagador e merchant), já com os nomes dos usuários, sem carregar entidades.
+ */
 @Service
 @RequiredArgsConstructor
 public class TransactionService {
 
+    private static final LocalDateTime FIRST_PAGE_CREATED_AT = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final Comparator<TransactionResponse> NEWEST_FIRST = Comparator
+            .comparing(TransactionResponse::getCreatedAt)
+            .thenComparing(TransactionResponse::getId)
+            .reversed();
+
+    private record Cursor(LocalDateTime createdAt, long id) {
+    }
+
     private final TransactionRepository transactionRepository;
     private final AccountRepository accountRepository;
-    private final UserRepository userRepository;
+    private final AuthenticatedUserProvider authenticatedUserProvider;
+    private final TransactionPageConfig pageConfig;
 
-    public List<TransactionResponse> getUserTransactions() {
-        String email = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new BusinessException("Usuário não encontrado"));
+    @Transactional(readOnly = true)
+    public TransactionPageResponse getUserTransactions(String cursor, Integer size) {
+        int pageSize = size != null ? size : pageConfig.getDefaultSize();
+        if (pageSize < 1 || pageSize > pageConfig.getMaxSize()) {
+            throw new BusinessException("Tamanho da página deve estar entre 1 e " + pageConfig.getMaxSize());
+        }
 
-        Account account = accountRepository.findByUser(user)
+        Long accountId = accountRepository.findIdByUserId(authenticatedUserProvider.getUserId())
                 .orElseThrow(() -> new BusinessException("Conta não encontrada"));
 
-        List<Transaction> transactions = transactionRepository
-                .findByPayerAccountOrMerchantAccount(account, account);
+        Cursor position = cursor != null && !cursor.isBlank()
+                ? decodeCursor(cursor)
+                : new Cursor(FIRST_PAGE_CREATED_AT, Long.MAX_VALUE);
+
+        Limit limit = Limit.of(pageSize + 1);
+        List<TransactionResponse> rows = new ArrayList<>(transactionRepository
+                .findPayerPage(accountId, position.createdAt(), position.id(), limit));
+        rows.addAll(transactionRepository
+                .findMerchantPage(accountId, position.createdAt(), position.id(), limit));
+        rows.sort(NEWEST_FIRST);
+
+        if (rows.size() <= pageSize) {
+            return new TransactionPageResponse(rows, null);
+        }
+        List<TransactionResponse> items = List.copyOf(rows.subList(0, pageSize));
+        return new TransactionPageResponse(items, encodeCursor(items.get(pageSize - 1)));
+    }
 
-        return transactions.stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+    private static String encodeCursor(TransactionResponse last) {
+        String position = last.getCreatedAt() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
     }
 
-    private TransactionResponse mapToResponse(Transaction transaction) {
-        return TransactionResponse.builder()
-                .id(transaction.getId())
-                .amount(transaction.getAmount())
-                .status(transaction.getStatus())
-                .payerName(transaction.getPayerAccount().getUser().getName())
-                .merchantName(transaction.getMerchantAccount().getUser().getName())
-                .description(transaction.getDescription())
-                .createdAt(transaction.getCreatedAt())
-                .build();
+    private static Cursor decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (position.length != 2) {
+                throw new BusinessException("Cursor inválido");
+            }
+            return new Cursor(LocalDateTime.parse(position[0]), Long.parseLong(position[1]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BusinessException("Cursor inválido");
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,36 @@
+-- Converte transactions em tabela particionada por mês de created_at (PostgreSQL 14+).
+-- Executar uma vez com a aplicação parada; depois habilitar app.transactions.partitioning.
+-- A chave primária passa a ser (id, created_at), exigência do particionamento.
+-- Índices e chaves estrangeiras são recriados pelo Hibernate (ddl-auto update) na próxima
+-- inicialização. Sem partição DEFAULT: ela impediria o DETACH CONCURRENTLY do arquivamento;
+-- as partições futuras são criadas pela aplicação (premake-months).
+BEGIN;
+
+LOCK TABLE transactions IN ACCESS EXCLUSIVE MODE;
+
+ALTER TABLE transactions RENAME TO transactions_legacy;
+
+CREATE TABLE transactions (
+    LIKE transactions_legacy INCLUDING DEFAULTS INCLUDING CONSTRAINTS,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+DO $$
+DECLARE
+    m timestamp;
+BEGIN
+    FOR m IN SELECT generate_series(
+            date_trunc('month', COALESCE((SELECT MIN(created_at) FROM transactions_legacy), now())),
+            date_trunc('month', now()) + interval '3 months',
+            interval '1 month')
+    LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+                'transactions_p' || to_char(m, 'YYYYMM'), m, m + interval '1 month');
+    END LOOP;
+END $$;
+
+INSERT INTO transactions SELECT * FROM transactions_legacy;
+
+DROP TABLE transactions_legacy;
+
+COMMIT;
@@ -0,0 +1,257 @@
+package com.gateway.payment.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gateway.payment.repository.UserRepository;
+import com.gateway.payment.support.TestUsers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+/**
+ * Orçamento de idas ao banco por endpoint. Percorre todos os endpoints dos
+ * controllers com MockMvc e compara, para cada um, o maior número de comandos
+ * SQL de uma requisição e as tabelas lidas por varredura completa (EXPLAIN do
+ * H2) com {@code query-budgets.yml}. Um endpoint novo sem orçamento também
+ * reprova; a mensagem de falha traz os valores medidos para atualizar o arquivo.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+@ActiveProfiles("test")
+@Import(QueryRecorder.Config.class)
+class EndpointQueryBudgetTest {
+
+    private static final String BUDGET_FILE = "/query-budgets.yml";
+
+    private record Observed(int statements, Set<String> tableScans) {
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private QueryRecorder recorder;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    @Qualifier("requestMappingHandlerMapping")
+    private RequestMappingHandlerMapping handlerMapping;
+
+    private final Map<String, Observed> observed = new TreeMap<>();
+
+    @Test
+    void everyEndpointStaysWithinItsQueryBudget() throws Exception {
+        String client = register("CLIENT");
+        String merchant = register("MERCHANT");
+        String admin = register("ADMIN");
+        JsonNode clientLogin = login(client);
+        String clientToken = clientLogin.get("token").asText();
+        String merchantToken = login(merchant).get("token").asText();
+        String adminToken = login(admin).get("token").asText();
+        long merchantId = userRepository.findByEmail(merchant).orElseThrow().getId();
+        long merchantAccountId = userRepository.findByEmail(merchant).orElseThrow().getAccount().getId();
+        // Contrapartes distintas nas listagens e no lote: um N+1 por linha estoura o orçamento
+        long secondMerchantId = userRepository.findByEmail(register("MERCHANT")).orElseThrow().getId();
+        long thirdMerchantId = userRepository.findByEmail(register("MERCHANT")).orElseThrow().getId();
+        List<String> otherClientTokens = List.of(login(register("CLIENT")).get("token").asText(),
+                login(register("CLIENT")).get("token").asText());
+
+        call("POST /auth/refresh", post("/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"refreshToken\":\"" + clientLogin.get("refreshToken").asText() + "\"}"), 200);
+
+        call("POST /accounts/deposit", post("/accounts/deposit").header("Authorization", bearer(clientToken))
+                .contentType(MediaType.APPLICATION_JSON).content("{\"amount\":1000.00}"), 200);
+
+        JsonNode payment = call("POST /payments", post("/payments").header("Authorization", bearer(clientToken))
+                .header("Idempotency-Key", UUID.randomUUID().toString())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(paymentJson(merchantId, "10.00")), 201);
+        call("POST /payments/batch", post("/payments/batch").header("Authorization", bearer(clientToken))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"payments\":[" + paymentJson(merchantId, "1.00") + "," + paymentJson(secondMerchantId, "2.00")
+                        + "," + paymentJson(thirdMerchantId, "3.00") + "]}"), 200);
+        for (String otherClientToken : otherClientTokens) {
+            call("POST /accounts/deposit", post("/accounts/deposit").header("Authorization", bearer(otherClientToken))
+                    .contentType(MediaType.APPLICATION_JSON).content("{\"amount\":100.00}"), 200);
+            call("POST /payments", post("/payments").header("Authorization", bearer(otherClientToken))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(paymentJson(merchantId, "4.00")), 201);
+        }
+        call("GET /payments/{id}", get("/payments/{id}", payment.get("transactionId").asLong())
+                .header("Authorization", bearer(merchantToken)), 200);
+
+        call("GET /accounts/balance", get("/accounts/balance").header("Authorization", bearer(clientToken)), 200);
+        call("GET /transactions", get("/transactions").header("Authorization", bearer(clientToken)), 200);
+        call("GET /transactions/export", get("/transactions/export").header("Authorization", bearer(merchantToken)), 200);
+        call("GET /merchants/me/volume", get("/merchants/me/volume").header("Authorization", bearer(merchantToken)), 200);
+
+        // Pagamento para conta hot segue outro caminho de escrita
+        call("PUT /admin/accounts/{accountId}/hot-mode", put("/admin/accounts/{accountId}/hot-mode", merchantAccountId)
+                .header("Authorization", bearer(adminToken))
+                .contentType(MediaType.APPLICATION_JSON).content("{\"slots\":4}"), 204);
+        call("POST /payments", post("/payments").header("Authorization", bearer(clientToken))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(paymentJson(merchantId, "5.00")), 201);
+        call("GET /accounts/balance", get("/accounts/balance").header("Authorization", bearer(merchantToken)), 200);
+        call("DELETE /admin/accounts/{accountId}/hot-mode", delete("/admin/accounts/{accountId}/hot-mode", merchantAccountId)
+                .header("Authorization", bearer(adminToken)), 204);
+        call("GET /admin/accounts/balance-cache", get("/admin/accounts/balance-cache")
+                .header("Authorization", bearer(adminToken)), 200);
+        call("POST /admin/merchants/volume/rebuild", post("/admin/merchants/volume/rebuild")
+                .header("Authorization", bearer(adminToken)), 200);
+
+        call("POST /admin/ledger/reconciliation", post("/admin/ledger/reconciliation")
+                .header("Authorization", bearer(adminToken)), 202);
+        call("GET /admin/ledger/reconciliation", get("/admin/ledger/reconciliation")
+                .header("Authorization", bearer(adminToken)), 200);
+        // Particionamento desabilitado no H2: os endpoints respondem 400 sem ir ao banco
+        call("GET /admin/transactions/partitions", get("/admin/transactions/partitions")
+                .header("Authorization", bearer(adminToken)), 400);
+        call("POST /admin/transactions/partitions/{month}/restore", post("/admin/transactions/partitions/{month}/restore", "2024-01")
+                .header("Authorization", bearer(adminToken)), 400);
+
+        assertWithinBudget();
+    }
+
+    private void assertWithinBudget() throws Exception {
+        Map<String, Map<String, Object>> budgets = loadBudgets();
+        List<String> violations = new ArrayList<>();
+
+        for (String endpoint : endpoints()) {
+            if (!observed.containsKey(endpoint)) {
+                violations.add(endpoint + ": não exercitado pelo teste");
+            }
+            if (!budgets.containsKey(endpoint)) {
+                violations.add(endpoint + ": sem orçamento em " + BUDGET_FILE);
+            }
+        }
+        observed.forEach((endpoint, actual) -> {
+            Map<String, Object> budget = budgets.get(endpoint);
+            if (budget == null) {
+                return;
+            }
+            int statements = ((Number) budget.get("statements")).intValue();
+            if (actual.statements() > statements) {
+                violations.add(endpoint + ": " + actual.statements() + " comandos SQL, orçamento " + statements);
+            }
+            @SuppressWarnings("unchecked")
+            Set<String> allowed = new TreeSet<>((List<String>) budget.getOrDefault("table-scans", List.of()));
+            Set<String> unexpected = new TreeSet<>(actual.tableScans());
+            unexpected.removeAll(allowed);
+            if (!unexpected.isEmpty()) {
+                violations.add(endpoint + ": varredura completa em " + unexpected);
+            }
+        });
+
+        assertThat(violations)
+                .withFailMessage(() -> "Orçamento de consultas excedido:\n  " + String.join("\n  ", violations)
+                        + "\n\nValores medidos:\n" + measuredYaml())
+                .isEmpty();
+    }
+
+    private JsonNode call(String endpoint, MockHttpServletRequestBuilder request, int expectedStatus) throws Exception {
+        recorder.start();
+        MvcResult result;
+        try {
+            result = mockMvc.perform(request).andReturn();
+            if (result.getRequest().isAsyncStarted()) {
+                result = mockMvc.perform(asyncDispatch(result)).andReturn();
+            }
+        } finally {
+            List<QueryRecorder.RecordedQuery> queries = recorder.stop();
+            Set<String> scans = recorder.tableScans(queries);
+            observed.merge(endpoint, new Observed(queries.size(), scans), (previous, current) -> {
+                Set<String> tables = new TreeSet<>(previous.tableScans());
+                tables.addAll(current.tableScans());
+                return new Observed(Math.max(previous.statements(), current.statements()), tables);
+            });
+        }
+        assertThat(result.getResponse().getStatus())
+                .withFailMessage("%s respondeu %d: %s", endpoint, result.getResponse().getStatus(),
+                        result.getResponse().getContentAsString())
+                .isEqualTo(expectedStatus);
+        String body = result.getResponse().getContentAsString();
+        return body.isEmpty() || !body.startsWith("{") ? null : objectMapper.readTree(body);
+    }
+
+    private String register(String role) throws Exception {
+        String email = TestUsers.uniqueEmail();
+        call("POST /auth/register", post("/auth/register").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"" + role + " " + email + "\",\"email\":\"" + email
+                        + "\",\"password\":\"secret123\",\"role\":\"" + role + "\"}"), 201);
+        return email;
+    }
+
+    private JsonNode login(String email) throws Exception {
+        return call("POST /auth/login", post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"" + email + "\",\"password\":\"secret123\"}"), 200);
+    }
+
+    private static String paymentJson(long merchantId, String amount) {
+        return "{\"merchantId\":" + merchantId + ",\"amount\":" + amount + ",\"description\":\"Teste\"}";
+    }
+
+    private static String bearer(String token) {
+        return "Bearer " + token;
+    }
+
+    // "MÉTODO /caminho" de cada endpoint dos controllers da aplicação
+    private Set<String> endpoints() {
+        Set<String> endpoints = new TreeSet<>();
+        handlerMapping.getHandlerMethods().forEach((info, method) -> {
+            if (!method.getBeanType().getPackageName().equals(getClass().getPackageName())) {
+                return;
+            }
+            info.getMethodsCondition().getMethods().forEach(httpMethod ->
+                    info.getPatternValues().forEach(pattern -> endpoints.add(httpMethod.name() + " " + pattern)));
+        });
+        return endpoints;
+    }
+
+    private Map<String, Map<String, Object>> loadBudgets() throws Exception {
+        try (InputStream in = getClass().getResourceAsStream(BUDGET_FILE)) {
+            assertThat(in).withFailMessage("%s não encontrado", BUDGET_FILE).isNotNull();
+            Map<String, Map<String, Map<String, Object>>> root = new Yaml().load(in);
+            return root.getOrDefault("endpoints", new LinkedHashMap<>());
+        }
+    }
+
+    private String measuredYaml() {
+        StringBuilder yaml = new StringBuilder("endpoints:\n");
+        observed.forEach((endpoint, actual) -> yaml.append("  \"").append(endpoint).append("\":\n")
+                .append("    statements: ").append(actual.statements()).append('\n')
+                .append("    table-scans: ").append(actual.tableScans().isEmpty() ? "[]"
+                        : "[" + String.join(", ", actual.tableScans()) + "]").append('\n'));
+        return yaml.toString();
+    }
+}
@@ -0,0 +1,133 @@
+package com.gateway.payment.controller;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Registra os comandos SQL executados durante uma requisição, via proxy do
+ * {@code dataSource}. Cada execução (inclusive um {@code executeBatch}) conta
+ * como uma ida ao banco. Só entram a thread do teste e as threads de
+ * requisições assíncronas do MVC ({@code task-*}): jobs agendados e a
+ * reconciliação em segundo plano ficam de fora.
+ */
+class QueryRecorder implements QueryExecutionListener {
+
+    private static final Pattern TABLE_SCAN = Pattern.compile("/\\* ([\\w.]+)\\.tableScan \\*/");
+
+    record RecordedQuery(String sql, List<ParameterSetOperation> parameters) {
+    }
+
+    private final List<RecordedQuery> queries = new CopyOnWriteArrayList<>();
+    private volatile Thread owner;
+    private DataSource target;
+
+    void start() {
+        queries.clear();
+        owner = Thread.currentThread();
+    }
+
+    List<RecordedQuery> stop() {
+        owner = null;
+        return List.copyOf(queries);
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Thread current = Thread.currentThread();
+        if (owner == null || (current != owner && !current.getName().startsWith("task-"))) {
+            return;
+        }
+        QueryInfo query = queryInfoList.get(0);
+        List<ParameterSetOperation> parameters = query.getParametersList().isEmpty()
+                ? List.of() : query.getParametersList().get(0);
+        queries.add(new RecordedQuery(query.getQuery(), parameters));
+    }
+
+    /**
+     * Tabelas lidas por varredura completa, segundo o EXPLAIN do H2 de cada
+     * comando com os mesmos parâmetros. Executado direto no banco, sem proxy.
+     */
+    Set<String> tableScans(List<RecordedQuery> recorded) throws Exception {
+        Set<String> tables = new TreeSet<>();
+        try (Connection connection = target.getConnection()) {
+            for (RecordedQuery query : recorded) {
+                String verb = query.sql().stripLeading().toLowerCase(Locale.ROOT);
+                if (!(verb.startsWith("select") || verb.startsWith("with") || verb.startsWith("update")
+                        || verb.startsWith("delete"))) {
+                    continue;
+                }
+                Matcher matcher = TABLE_SCAN.matcher(explain(connection, query));
+                while (matcher.find()) {
+                    String table = matcher.group(1);
+                    tables.add(table.substring(table.lastIndexOf('.') + 1));
+                }
+            }
+        }
+        return tables;
+    }
+
+    private static String explain(Connection connection, RecordedQuery query) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + query.sql())) {
+            for (ParameterSetOperation parameter : query.parameters()) {
+                parameter.getMethod().invoke(statement, parameter.getArgs());
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                StringBuilder plan = new StringBuilder();
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+                return plan.toString();
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("EXPLAIN falhou para: " + query.sql(), e);
+        }
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        QueryRecorder queryRecorder() {
+            return new QueryRecorder();
+        }
+
+        @Bean
+        static BeanPostProcessor queryRecordingDataSource(ObjectProvider<QueryRecorder> recorder) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)) {
+                        QueryRecorder listener = recorder.getObject();
+                        listener.target = dataSource;
+                        return ProxyDataSourceBuilder.create(dataSource).name("query-budget").listener(listener).build();
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.gateway.payment.datasource;
+
+import com.gateway.payment.config.DataSourceRoutingConfig;
+import com.gateway.payment.repository.AccountRepository;
+import com.gateway.payment.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Dois H2 embarcados: "primary" como primário e "replica" como réplica (sem o schema da aplicação)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "app.datasource.routing.enabled=true",
+        "app.datasource.routing.lag-query=",
+        "app.datasource.routing.replicas[0].url=jdbc:h2:mem:replica;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "app.datasource.routing.replicas[0].username=sa",
+        "app.datasource.routing.replicas[0].password="
+})
+@ActiveProfiles("test")
+class ReadWriteRoutingDataSourceTest {
+
+    private static final String CURRENT_DATABASE = "SELECT DATABASE()";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReplicaHealthMonitor replicaHealthMonitor;
+
+    @Autowired
+    private DataSourceRoutingConfig config;
+
+    @Autowired
+    private ReplicaReads replicaReads;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @AfterEach
+    void tearDown() {
+        config.setLagQuery("");
+        replicaHealthMonitor.checkReplicas();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplicaAndWritesToPrimary() {
+        assertThat(currentDatabase(true)).isEqualToIgnoringCase("replica");
+        assertThat(currentDatabase(false)).isEqualToIgnoringCase("primary");
+        // Sem transação (ex.: migrações, jobs JDBC) também fica no primário
+        assertThat(jdbcTemplate.queryForObject(CURRENT_DATABASE, String.class)).isEqualToIgnoringCase("primary");
+    }
+
+    @Test
+    void repositoryCallsOutsideATransactionStayOnPrimary() {
+        // Os métodos herdados e as consultas abrem a própria transação readOnly; a réplica não
+        // tem as tabelas, então só passam se forem ao primário
+        assertThat(userRepository.count()).isNotNegative();
+        assertThat(userRepository.findByEmail("ninguem@test.com")).isEmpty();
+        assertThat(accountRepository.findWithUserByUserId(-1L)).isEmpty();
+    }
+
+    @Test
+    void declaredReadOnlyReadsGoToReplica() {
+        assertThat(replicaReads.execute(() -> jdbcTemplate.queryForObject(CURRENT_DATABASE, String.class)))
+                .isEqualToIgnoringCase("replica");
+        assertThatThrownBy(() -> replicaReads.execute(() -> userRepository.findByEmail("ninguem@test.com")))
+                .isInstanceOf(DataAccessException.class);
+    }
+
+    @Test
+    void lagBeyondToleranceFallsBackToPrimary() {
+        config.setLagQuery("SELECT 60");
+        replicaHealthMonitor.checkReplicas();
+
+        assertThat(replicaHealthMonitor.healthyReplicas()).isEmpty();
+        assertThat(currentDatabase(true)).isEqualToIgnoringCase("primary");
+    }
+
+    private String currentDatabase(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template.execute(status -> jdbcTemplate.queryForObject(CURRENT_DATABASE, String.class));
+    }
+}
@@ -0,0 +1,68 @@
+package com.gateway.payment.domain.value;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gateway.payment.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MoneyConverter converter = new MoneyConverter();
+
+    record Payload(Money amount) {
+    }
+
+    @Test
+    void acceptsAtMostTwoDecimalPlaces() {
+        assertThat(Money.of(new BigDecimal("10.5")).minorUnits()).isEqualTo(1050);
+        assertThat(Money.of(new BigDecimal("10.500")).minorUnits()).isEqualTo(1050);
+        assertThat(Money.of(new BigDecimal("0"))).isSameAs(Money.ZERO);
+        assertThat(Money.of(null)).isNull();
+
+        assertThatThrownBy(() -> Money.of(new BigDecimal("10.005")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("10.005");
+        assertThatThrownBy(() -> Money.of(new BigDecimal("1E+20")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void overflowIsABusinessError() {
+        Money max = Money.ofMinor(Long.MAX_VALUE);
+        Money min = Money.ofMinor(Long.MIN_VALUE);
+
+        assertThatThrownBy(() -> max.plus(Money.ofMinor(1)))
+                .isInstanceOf(BusinessException.class)
+                .hasCauseInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> min.minus(Money.ofMinor(1)))
+                .isInstanceOf(BusinessException.class);
+        assertThat(max.minus(Money.ofMinor(1)).plus(Money.ofMinor(1))).isEqualTo(max);
+    }
+
+    @Test
+    void converterKeepsNullsAndTwoDecimalPlaces() {
+        assertThat(converter.convertToDatabaseColumn(null)).isNull();
+        assertThat(converter.convertToEntityAttribute(null)).isNull();
+
+        assertThat(converter.convertToDatabaseColumn(Money.ofMinor(15050))).isEqualTo(new BigDecimal("150.50"));
+        assertThat(converter.convertToEntityAttribute(new BigDecimal("150.50"))).isEqualTo(Money.ofMinor(15050));
+    }
+
+    @Test
+    void jsonRoundTripUsesADecimalNumber() throws Exception {
+        String json = objectMapper.writeValueAsString(new Payload(Money.ofMinor(15050)));
+        assertThat(json).isEqualTo("{\"amount\":150.50}");
+
+        assertThat(objectMapper.readValue(json, Payload.class).amount()).isEqualTo(Money.ofMinor(15050));
+        assertThat(objectMapper.readValue("{\"amount\":7}", Payload.class).amount()).isEqualTo(Money.ofMinor(700));
+        assertThat(objectMapper.readValue("{\"amount\":null}", Payload.class).amount()).isNull();
+        assertThatThrownBy(() -> objectMapper.readValue("{\"amount\":1.005}", Payload.class))
+                .isInstanceOf(JsonMappingException.class);
+    }
+}
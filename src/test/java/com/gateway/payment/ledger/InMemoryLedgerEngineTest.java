@@ -0,0 +1,183 @@
+package com.gateway.payment.ledger;
+
+import com.gateway.payment.config.LedgerEngineConfig;
+import com.gateway.payment.domain.entity.User;
+import com.gateway.payment.domain.enums.Role;
+import com.gateway.payment.domain.value.Money;
+import com.gateway.payment.repository.AccountRepository;
+import com.gateway.payment.service.OutboxService;
+import com.gateway.payment.support.TestUsers;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * O engine é criado à mão, sobre o banco do contexto (que usa o engine jpa),
+ * para simular um desligamento com o banco fora do ar e a reinicialização.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestUsers.class)
+class InMemoryLedgerEngineTest {
+
+    @TempDir
+    Path journalDirectory;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TestUsers testUsers;
+
+    // Falha as gravações em lote do persister enquanto o "banco" estiver fora
+    private static final class FlakyJdbcTemplate extends JdbcTemplate {
+
+        private volatile boolean down;
+
+        FlakyJdbcTemplate(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            if (down) {
+                throw new DataAccessResourceFailureException("Banco indisponível");
+            }
+            return super.batchUpdate(sql, batchArgs);
+        }
+    }
+
+    // Atrasa a leitura de saldo na thread de uma partição até o persister gravar o checkpoint indicado
+    private static final class SlowPartitionReadJdbcTemplate extends JdbcTemplate {
+
+        private volatile long holdUntilCheckpoint = Long.MAX_VALUE;
+
+        SlowPartitionReadJdbcTemplate(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+            if (sql.startsWith("SELECT balance FROM accounts")
+                    && Thread.currentThread().getName().startsWith("ledger-partition")) {
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+                while (LedgerPersister.readCheckpoint(this) < holdUntilCheckpoint && System.nanoTime() < deadline) {
+                    Thread.onSpinWait();
+                }
+            }
+            return super.queryForObject(sql, requiredType, args);
+        }
+    }
+
+    @Test
+    void firstCreditsToAccountsCreatedAfterStartAreAppliedOnce() throws Exception {
+        User payer = testUsers.create(Role.CLIENT, new BigDecimal("100.00"));
+        SlowPartitionReadJdbcTemplate jdbcTemplate = new SlowPartitionReadJdbcTemplate(dataSource);
+        InMemoryLedgerEngine engine = engine(jdbcTemplate);
+        engine.start();
+        try {
+            // Contas novas: o persister grava o primeiro crédito antes de a partição tratá-lo
+            User client = testUsers.create(Role.CLIENT, new BigDecimal("5.00"));
+            User merchant = testUsers.create(Role.MERCHANT, new BigDecimal("1.00"));
+            long checkpoint = LedgerPersister.readCheckpoint(jdbcTemplate);
+            jdbcTemplate.holdUntilCheckpoint = checkpoint + 2;
+
+            engine.deposit(client.getId(), Money.of(new BigDecimal("30.00")), "primeiro depósito");
+            engine.transfer(payer.getId(), merchant.getId(), Money.of(new BigDecimal("10.00")), "primeira venda");
+            awaitCheckpoint(jdbcTemplate, checkpoint + 2);
+
+            assertThat(engine.getBalance(client.getId()).toBigDecimal()).isEqualByComparingTo("35.00");
+            assertThat(engine.getBalance(merchant.getId()).toBigDecimal()).isEqualByComparingTo("11.00");
+            assertThat(balanceOf(client)).isEqualByComparingTo("35.00");
+            assertThat(balanceOf(merchant)).isEqualByComparingTo("11.00");
+        } finally {
+            engine.stop();
+        }
+    }
+
+    @Test
+    void restartAfterShutdownDuringDatabaseOutageAppliesEachRecordOnce() throws Exception {
+        User payer = testUsers.create(Role.CLIENT, new BigDecimal("100.00"));
+        User merchant = testUsers.create(Role.MERCHANT, BigDecimal.ZERO);
+        FlakyJdbcTemplate jdbcTemplate = new FlakyJdbcTemplate(dataSource);
+
+        InMemoryLedgerEngine engine = engine(jdbcTemplate);
+        engine.start();
+        long checkpoint = LedgerPersister.readCheckpoint(jdbcTemplate);
+        engine.transfer(payer.getId(), merchant.getId(), Money.of(new BigDecimal("10.00")), "antes da queda");
+        awaitCheckpoint(jdbcTemplate, checkpoint + 1);
+
+        // Confirmados no journal, mas o persister não consegue gravá-los antes do desligamento
+        jdbcTemplate.down = true;
+        engine.transfer(payer.getId(), merchant.getId(), Money.of(new BigDecimal("20.00")), "durante a queda");
+        engine.transfer(payer.getId(), merchant.getId(), Money.of(new BigDecimal("20.00")), "durante a queda");
+        engine.stop();
+        assertThat(LedgerPersister.readCheckpoint(jdbcTemplate)).isEqualTo(checkpoint + 1);
+        assertThat(LedgerSnapshot.read(journalDirectory)).hasValueSatisfying(snapshot ->
+                assertThat(snapshot.sequence()).isEqualTo(checkpoint + 1));
+
+        jdbcTemplate.down = false;
+        InMemoryLedgerEngine restarted = engine(jdbcTemplate);
+        restarted.start();
+        try {
+            assertThat(restarted.getBalance(payer.getId()).toBigDecimal()).isEqualByComparingTo("50.00");
+            assertThat(restarted.getBalance(merchant.getId()).toBigDecimal()).isEqualByComparingTo("50.00");
+
+            awaitCheckpoint(jdbcTemplate, checkpoint + 3);
+            assertThat(balanceOf(payer)).isEqualByComparingTo("50.00");
+            assertThat(balanceOf(merchant)).isEqualByComparingTo("50.00");
+        } finally {
+            restarted.stop();
+        }
+    }
+
+    private InMemoryLedgerEngine engine(JdbcTemplate jdbcTemplate) {
+        LedgerEngineConfig config = new LedgerEngineConfig();
+        config.setType("memory");
+        config.setJournalDirectory(journalDirectory.toString());
+        config.setDbFlushBatchSize(1);
+        config.setShutdownTimeoutMs(500);
+        return new InMemoryLedgerEngine(config, accountRepository, jdbcTemplate, transactionTemplate,
+                outboxService, entityManagerFactory);
+    }
+
+    private static void awaitCheckpoint(JdbcTemplate jdbcTemplate, long sequence) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (LedgerPersister.readCheckpoint(jdbcTemplate) < sequence) {
+            assertThat(System.nanoTime()).withFailMessage("Checkpoint %d não atingido", sequence)
+                    .isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private BigDecimal balanceOf(User user) {
+        return accountRepository.findById(user.getAccount().getId()).orElseThrow().getBalance().toBigDecimal();
+    }
+}
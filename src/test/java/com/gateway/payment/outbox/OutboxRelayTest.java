@@ -0,0 +1,205 @@
+package com.gateway.payment.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gateway.payment.domain.entity.User;
+import com.gateway.payment.domain.enums.Role;
+import com.gateway.payment.dto.account.DepositRequest;
+import com.gateway.payment.dto.payment.PaymentRequest;
+import com.gateway.payment.repository.OutboxEventRepository;
+import com.gateway.payment.service.AccountService;
+import com.gateway.payment.service.HotAccountService;
+import com.gateway.payment.service.PaymentService;
+import com.gateway.payment.support.TestUsers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "app.outbox.enabled=true",
+        "app.outbox.sink=file",
+        "app.outbox.file-path=target/outbox/OutboxRelayTest.jsonl",
+        "app.outbox.poll-interval-ms=3600000"
+})
+@ActiveProfiles("test")
+@Import(TestUsers.class)
+class OutboxRelayTest {
+
+    private static final Path FILE = Path.of("target/outbox/OutboxRelayTest.jsonl");
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private HotAccountService hotAccountService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestUsers testUsers;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void statusChangesArePublishedPerAccountInCommitOrderAndRemovedFromOutbox() throws IOException {
+        Files.deleteIfExists(FILE);
+        User payer = testUsers.create(Role.CLIENT, new BigDecimal("100.00"));
+        User merchant = testUsers.create(Role.MERCHANT, BigDecimal.ZERO);
+        TestUsers.authenticate(payer);
+
+        DepositRequest deposit = new DepositRequest();
+        deposit.setAmount(new BigDecimal("50.00"));
+        accountService.deposit(deposit);
+        Long depositId = jdbcTemplate.queryForObject("SELECT id FROM transactions " +
+                "WHERE payer_account_id = ? AND merchant_account_id = payer_account_id", Long.class,
+                payer.getAccount().getId());
+        List<Long> transactionIds = new ArrayList<>();
+        for (String amount : List.of("10.00", "20.00", "30.00")) {
+            transactionIds.add(paymentService.processPayment(request(merchant, amount)).getTransactionId());
+        }
+
+        outboxRelay.relay();
+
+        assertThat(outboxEventRepository.count()).isZero();
+        List<JsonNode> events = readEvents();
+        // Depósito: uma conta; pagamentos: um evento para o pagador e outro para o merchant
+        assertThat(events).hasSize(7);
+        assertThat(events).allSatisfy(event -> {
+            assertThat(event.get("eventType").asText()).isEqualTo(TransactionStatusEvent.TYPE);
+            assertThat(event.get("payload").get("status").asText()).isEqualTo("APPROVED");
+            assertThat(event.get("payload").get("payerAccountId").asLong()).isEqualTo(payer.getAccount().getId());
+        });
+        List<Long> payerTransactions = new ArrayList<>(List.of(depositId));
+        payerTransactions.addAll(transactionIds);
+        assertThat(transactionsOf(events, payer)).containsExactlyElementsOf(payerTransactions);
+        assertThat(transactionsOf(events, merchant)).containsExactlyElementsOf(transactionIds);
+        assertThat(sequencesOf(events, payer)).containsExactly(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void eventsOfAnAccountFollowCommitOrderWhenIdsDoNot() throws Exception {
+        Files.deleteIfExists(FILE);
+        User first = testUsers.create(Role.CLIENT, new BigDecimal("100.00"));
+        User second = testUsers.create(Role.CLIENT, new BigDecimal("100.00"));
+        User merchant = testUsers.create(Role.MERCHANT, BigDecimal.ZERO);
+        // Crédito em conta hot não bloqueia a conta para o saldo; só a sequência do outbox a bloqueia
+        hotAccountService.enable(merchant.getAccount().getId(), 4);
+
+        CountDownLatch recorded = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Long> firstPayment = executor.submit(() -> transactionTemplate.execute(status -> {
+                TestUsers.authenticate(first);
+                Long id = paymentService.processPayment(request(merchant, "10.00")).getTransactionId();
+                recorded.countDown();
+                await(release);
+                return id;
+            }));
+            assertThat(recorded.await(10, TimeUnit.SECONDS)).isTrue();
+            Future<Long> secondPayment = executor.submit(() -> {
+                TestUsers.authenticate(second);
+                return paymentService.processPayment(request(merchant, "20.00")).getTransactionId();
+            });
+
+            // O segundo espera o commit do primeiro para numerar o evento do merchant
+            Thread.sleep(300);
+            assertThat(secondPayment).isNotDone();
+            release.countDown();
+            Long firstId = firstPayment.get(10, TimeUnit.SECONDS);
+            Long secondId = secondPayment.get(10, TimeUnit.SECONDS);
+
+            // Como se o primeiro tivesse rodado em outra instância, com um bloco de ids posterior
+            jdbcTemplate.update("UPDATE outbox_events SET id = id + 1000000 WHERE transaction_id = ?", firstId);
+
+            outboxRelay.relay();
+
+            List<JsonNode> events = readEvents();
+            assertThat(transactionsOf(events, merchant)).containsExactly(firstId, secondId);
+            assertThat(events).filteredOn(event -> event.get("accountId").asLong() == merchant.getAccount().getId())
+                    .extracting(event -> event.get("id").asLong())
+                    .isSortedAccordingTo(Comparator.reverseOrder());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private List<JsonNode> readEvents() throws IOException {
+        List<JsonNode> events = new ArrayList<>();
+        for (String line : Files.readAllLines(FILE)) {
+            events.add(objectMapper.readTree(line));
+        }
+        return events;
+    }
+
+    // Transações dos eventos da conta, na ordem de publicação
+    private static List<Long> transactionsOf(List<JsonNode> events, User user) {
+        return events.stream()
+                .filter(event -> event.get("accountId").asLong() == user.getAccount().getId())
+                .map(event -> event.get("transactionId").asLong())
+                .toList();
+    }
+
+    private static List<Long> sequencesOf(List<JsonNode> events, User user) {
+        return events.stream()
+                .filter(event -> event.get("accountId").asLong() == user.getAccount().getId())
+                .map(event -> event.get("accountSequence").asLong())
+                .toList();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static PaymentRequest request(User merchant, String amount) {
+        PaymentRequest request = new PaymentRequest();
+        request.setMerchantId(merchant.getId());
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+}
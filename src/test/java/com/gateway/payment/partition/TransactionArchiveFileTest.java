@@ -0,0 +1,67 @@
+package com.gateway.payment.partition;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionArchiveFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsRowsInBatches() throws Exception {
+        String table = TransactionPartitionManager.partitionName(YearMonth.of(2024, 1));
+        assertThat(table).isEqualTo("transactions_p202401");
+        assertThat(TransactionPartitionManager.monthOf(table)).isEqualTo(YearMonth.of(2024, 1));
+
+        List<ArchivedTransaction> rows = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            rows.add(new ArchivedTransaction(id, 10, 20, new BigDecimal("10.50"), "APPROVED",
+                    LocalDateTime.of(2024, 1, 15, 12, 0, 0, 123_000_000), "Pagamento \"ç\" " + id,
+                    id % 2 == 0 ? null : LocalDateTime.of(2024, 1, 15, 12, 0, 1), id == 5 ? "INSUFFICIENT_BALANCE" : null));
+        }
+
+        Path target = TransactionArchiveFile.pathOf(directory, table);
+        try (TransactionArchiveFile.Writer writer = TransactionArchiveFile.create(target)) {
+            for (ArchivedTransaction row : rows) {
+                writer.write(row);
+            }
+            assertThat(writer.commit()).isEqualTo(5);
+        }
+        assertThat(target).exists();
+        assertThat(target.resolveSibling(target.getFileName() + ".tmp")).doesNotExist();
+
+        List<Integer> batchSizes = new ArrayList<>();
+        List<ArchivedTransaction> read = new ArrayList<>();
+        long total = TransactionArchiveFile.read(target, 2, batch -> {
+            batchSizes.add(batch.size());
+            read.addAll(batch);
+        });
+
+        assertThat(total).isEqualTo(5);
+        assertThat(batchSizes).containsExactly(2, 2, 1);
+        assertThat(read).containsExactlyElementsOf(rows);
+    }
+
+    @Test
+    void discardsFileWithoutCommit() throws Exception {
+        Path target = TransactionArchiveFile.pathOf(directory, "transactions_p202402");
+        try (TransactionArchiveFile.Writer writer = TransactionArchiveFile.create(target)) {
+            writer.write(new ArchivedTransaction(1, 1, 2, BigDecimal.ONE, "PENDING",
+                    LocalDateTime.of(2024, 2, 1, 0, 0), null, null, null));
+        }
+        try (var files = Files.list(directory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+}
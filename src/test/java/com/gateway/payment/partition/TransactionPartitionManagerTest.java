@@ -0,0 +1,190 @@
+package com.gateway.payment.partition;
+
+import com.gateway.payment.config.TransactionPartitionConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ordem dos comandos do arquivamento, sem PostgreSQL: o JdbcTemplate devolve o
+ * catálogo simulado e grava cada comando; os commits entram na mesma lista.
+ */
+class TransactionPartitionManagerTest {
+
+    private static final String COMMIT = "COMMIT";
+
+    @TempDir
+    Path directory;
+
+    private final List<String> statements = new ArrayList<>();
+    private final List<Map<String, Object>> attached = new ArrayList<>();
+    private final List<String> tables = new ArrayList<>();
+    private TransactionPartitionManager manager;
+
+    @BeforeEach
+    void setUp() {
+        TransactionPartitionConfig config = new TransactionPartitionConfig();
+        config.setArchiveDirectory(directory.toString());
+        manager = new TransactionPartitionManager(new CatalogJdbcTemplate(),
+                new TransactionTemplate(new RecordingTransactionManager()), config);
+    }
+
+    @Test
+    void totalsAreWrittenBeforeTheDetachAndRewrittenWithTheDrop() {
+        String cold = partition(5, false);
+
+        manager.archiveColdPartitions();
+
+        assertThat(statementsOf(cold)).containsExactly(
+                "DELETE FROM transaction_archive_totals WHERE partition_name = ? " + cold,
+                "INSERT INTO transaction_archive_totals " + cold,
+                COMMIT,
+                "ALTER TABLE transactions DETACH PARTITION " + cold + " CONCURRENTLY",
+                "SELECT " + cold,
+                COMMIT,
+                "DELETE FROM transaction_archive_totals WHERE partition_name = ? " + cold,
+                "INSERT INTO transaction_archive_totals " + cold,
+                "DROP TABLE " + cold,
+                COMMIT);
+        assertThat(TransactionArchiveFile.pathOf(directory, cold)).exists();
+    }
+
+    @Test
+    void interruptedDetachIsFinalizedAndDetachedPartitionIsOnlyDropped() {
+        String pending = partition(6, true);
+        String detached = TransactionPartitionManager.partitionName(YearMonth.now().minusMonths(7));
+        tables.add(detached);
+
+        manager.archiveColdPartitions();
+
+        assertThat(statementsOf(pending))
+                .contains("ALTER TABLE transactions DETACH PARTITION " + pending + " FINALIZE")
+                .doesNotContain("ALTER TABLE transactions DETACH PARTITION " + pending + " CONCURRENTLY")
+                .startsWith("DELETE FROM transaction_archive_totals WHERE partition_name = ? " + pending,
+                        "INSERT INTO transaction_archive_totals " + pending, COMMIT,
+                        "ALTER TABLE transactions DETACH PARTITION " + pending + " FINALIZE");
+        assertThat(statementsOf(detached)).noneMatch(statement -> statement.contains("DETACH"))
+                .endsWith("DROP TABLE " + detached, COMMIT);
+    }
+
+    @Test
+    void hotAndRecentlyRestoredPartitionsStay() throws Exception {
+        String hot = partition(1, false);
+        String restored = partition(8, false);
+        Files.writeString(directory.resolve(restored + ".restored"), Instant.now().toString());
+
+        manager.archiveColdPartitions();
+
+        assertThat(statements).noneMatch(statement -> statement.contains(hot) || statement.contains(restored));
+    }
+
+    private String partition(int monthsAgo, boolean detachPending) {
+        String table = TransactionPartitionManager.partitionName(YearMonth.now().minusMonths(monthsAgo));
+        tables.add(table);
+        attached.add(Map.of("relname", table, "inhdetachpending", detachPending));
+        return table;
+    }
+
+    // Comandos da partição, com os commits entre eles
+    private List<String> statementsOf(String table) {
+        List<String> own = new ArrayList<>();
+        boolean inside = false;
+        for (String statement : statements) {
+            if (statement.contains(table)) {
+                own.add(statement);
+                inside = true;
+            } else if (statement.equals(COMMIT) && inside) {
+                own.add(statement);
+            } else {
+                inside = false;
+            }
+        }
+        return own;
+    }
+
+    private class CatalogJdbcTemplate extends JdbcTemplate {
+
+        @Override
+        public List<Map<String, Object>> queryForList(String sql) {
+            return attached;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> queryForList(String sql, Class<T> elementType) {
+            return (List<T>) tables;
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            String statement = sql.startsWith("INSERT INTO transaction_archive_totals")
+                    ? "INSERT INTO transaction_archive_totals " + args[0]
+                    : sql + " " + String.join(" ", Arrays.stream(args).map(String::valueOf).toList());
+            statements.add(statement);
+            return 1;
+        }
+
+        @Override
+        public void execute(String sql) {
+            statements.add(sql);
+        }
+
+        // A cópia para o arquivo grava o SELECT da partição; a partição simulada não tem linhas
+        @Override
+        public void query(PreparedStatementCreator creator, RowCallbackHandler handler) {
+            Connection connection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        String sql = (String) args[0];
+                        statements.add("SELECT " + sql.substring(sql.indexOf(" FROM ") + 6, sql.indexOf(" ORDER BY")));
+                        return Proxy.newProxyInstance(getClass().getClassLoader(),
+                                new Class<?>[]{PreparedStatement.class}, (statement, call, values) -> null);
+                    });
+            try {
+                creator.createPreparedStatement(connection);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private class RecordingTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            statements.add(COMMIT);
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            statements.add("ROLLBACK");
+        }
+    }
+}
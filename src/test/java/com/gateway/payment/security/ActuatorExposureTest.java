@@ -0,0 +1,50 @@
+package com.gateway.payment.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * O scrape do Prometheus não exige token, então só pode responder na porta de
+ * gerenciamento; a porta da API não expõe o Actuator.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "management.server.port=0")
+@ActiveProfiles("test")
+@AutoConfigureObservability
+class ActuatorExposureTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Value("${local.server.port}")
+    private int serverPort;
+
+    @Value("${local.management.port}")
+    private int managementPort;
+
+    @Test
+    void prometheusIsServedOnlyOnTheManagementPort() throws Exception {
+        HttpResponse<String> scrape = get(managementPort, "/actuator/prometheus");
+        assertThat(scrape.statusCode()).isEqualTo(200);
+        assertThat(scrape.body()).contains("jvm_memory_used_bytes");
+        assertThat(get(managementPort, "/actuator/health").statusCode()).isEqualTo(200);
+
+        HttpResponse<String> api = get(serverPort, "/api/actuator/prometheus");
+        assertThat(api.statusCode()).isNotEqualTo(200);
+        assertThat(api.body()).doesNotContain("jvm_memory_used_bytes");
+    }
+
+    private HttpResponse<String> get(int port, String path) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
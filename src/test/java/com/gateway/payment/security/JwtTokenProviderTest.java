@@ -0,0 +1,83 @@
+package com.gateway.payment.security;
+
+import com.gateway.payment.config.JwtConfig;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cache de tokens verificados: uma leitura servida do cache devolve a mesma
+ * instância de {@link Claims}; uma nova verificação, outra.
+ */
+class JwtTokenProviderTest {
+
+    private static final String SECRET =
+            "chaveDeTesteComTamanhoSuficienteParaAssinarTokensComHS512NoJwtTokenProviderTest";
+
+    @Test
+    void expiredTokenIsNotServedFromTheCache() throws Exception {
+        // Expiração em segundos no token: 2s garantem ao menos 1s de validade
+        JwtTokenProvider provider = provider(Duration.ofSeconds(30), 2_000);
+        String token = provider.generateToken(user());
+
+        Claims claims = provider.verifyToken(token).orElseThrow();
+        assertThat(provider.verifyToken(token)).containsSame(claims);
+
+        Thread.sleep(Math.max(0, claims.getExpiration().getTime() - System.currentTimeMillis()) + 100);
+
+        assertThat(provider.verifyToken(token)).isEmpty();
+    }
+
+    @Test
+    void tamperedTokensMissTheCache() {
+        JwtTokenProvider provider = provider(Duration.ofSeconds(30), 60_000);
+        String token = provider.generateToken(user());
+        assertThat(provider.verifyToken(token)).isPresent();
+
+        String[] parts = token.split("\\.");
+        String otherSignature = parts[0] + "." + parts[1] + "." + flipFirst(parts[2]);
+        String otherPayload = parts[0] + "." + flipFirst(parts[1]) + "." + parts[2];
+
+        assertThat(provider.verifyToken(otherSignature)).isEmpty();
+        assertThat(provider.verifyToken(otherPayload)).isEmpty();
+        assertThat(provider.verifyToken(token)).isPresent();
+    }
+
+    @Test
+    void cacheEntryLastsTheShorterOfTtlAndExpiration() throws Exception {
+        // TTL menor que a expiração: a entrada sai pelo TTL e o token é verificado de novo
+        JwtTokenProvider provider = provider(Duration.ofMillis(300), 86_400_000);
+        String token = provider.generateToken(user());
+
+        Claims claims = provider.verifyToken(token).orElseThrow();
+        assertThat(provider.verifyToken(token)).containsSame(claims);
+
+        Thread.sleep(400);
+
+        Optional<Claims> reverified = provider.verifyToken(token);
+        assertThat(reverified).isPresent();
+        assertThat(reverified.get()).isNotSameAs(claims);
+    }
+
+    private static JwtTokenProvider provider(Duration cacheTtl, long expirationMs) {
+        JwtConfig config = new JwtConfig();
+        config.setSecret(SECRET);
+        config.setExpiration(expirationMs);
+        config.setVerifiedTokenCacheTtl(cacheTtl);
+        return new JwtTokenProvider(config);
+    }
+
+    private static User user() {
+        return new User("ana@test.com", "n/a", List.of());
+    }
+
+    private static String flipFirst(String part) {
+        return (part.charAt(0) == 'A' ? "B" : "A") + part.substring(1);
+    }
+}
@@ -0,0 +1,76 @@
+package com.gateway.payment.security;
+
+import com.gateway.payment.config.PrincipalCacheConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrincipalCacheTest {
+
+    private final PrincipalCache cache = new PrincipalCache(new PrincipalCacheConfig(), new SimpleMeterRegistry());
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void concurrentRequestsShareASingleLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<UserDetails> first = CompletableFuture.supplyAsync(() ->
+                cache.get("ana@test.com", 1L, blockingLoader("v1", loading, release)));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<UserDetails> second = CompletableFuture.supplyAsync(() ->
+                cache.get("ana@test.com", 1L, loader("v2")));
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS).getPassword()).isEqualTo("v1");
+        assertThat(second.get(5, TimeUnit.SECONDS).getPassword()).isEqualTo("v1");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void invalidationDuringALoadIsNotOverwrittenByIt() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<UserDetails> stale = CompletableFuture.supplyAsync(() ->
+                cache.get("ana@test.com", 1L, blockingLoader("antigo", loading, release)));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // Usuário alterado enquanto a carga lia o estado anterior
+        cache.invalidate("ana@test.com");
+        release.countDown();
+        assertThat(stale.get(5, TimeUnit.SECONDS).getPassword()).isEqualTo("antigo");
+
+        assertThat(cache.get("ana@test.com", 1L, loader("novo")).getPassword()).isEqualTo("novo");
+        assertThat(loads).hasValue(2);
+    }
+
+    private Function<String, UserDetails> loader(String password) {
+        return subject -> {
+            loads.incrementAndGet();
+            return new User(subject, password, List.of());
+        };
+    }
+
+    private Function<String, UserDetails> blockingLoader(String password, CountDownLatch loading,
+                                                         CountDownLatch release) {
+        return subject -> {
+            loading.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return loader(password).apply(subject);
+        };
+    }
+}
@@ -0,0 +1,205 @@
+package com.gateway.payment.security;
+
+import com.gateway.payment.domain.entity.User;
+import com.gateway.payment.domain.enums.Role;
+import com.gateway.payment.support.TestUsers;
+import jakarta.servlet.Filter;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Burst de 2 pagamentos por merchant; o bucket de cada teste é de um merchant novo
+@SpringBootTest(properties = {
+        "app.rate-limit.merchant.requests-per-second=0.01",
+        "app.rate-limit.merchant.burst=2"})
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+@ActiveProfiles("test")
+@Import({TestUsers.class, RateLimitFilterTest.ChunkedRequests.class})
+class RateLimitFilterTest {
+
+    private static final String CHUNKED = "X-Test-Chunked";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private TestUsers testUsers;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void chunkedPaymentsAreLimitedPerMerchant() throws Exception {
+        User merchant = testUsers.create(Role.MERCHANT, BigDecimal.ZERO);
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(chunked(payment(payer(), paymentJson(merchant, "1.00"))))
+                    .andExpect(status().isCreated());
+        }
+        mockMvc.perform(chunked(payment(payer(), paymentJson(merchant, "1.00"))))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void batchConsumesOneTokenPerItemOfEachMerchant() throws Exception {
+        User limited = testUsers.create(Role.MERCHANT, BigDecimal.ZERO);
+        User other = testUsers.create(Role.MERCHANT, BigDecimal.ZERO);
+
+        mockMvc.perform(batch(payer(), paymentJson(other, "1.00"), paymentJson(limited, "1.00"),
+                        paymentJson(limited, "2.00"), paymentJson(limited, "3.00")))
+                .andExpect(status().isTooManyRequests());
+
+        mockMvc.perform(batch(payer(), paymentJson(limited, "1.00"), paymentJson(limited, "2.00")))
+                .andExpect(status().isOk());
+        mockMvc.perform(payment(payer(), paymentJson(limited, "1.00")))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    void bodiesAboveTheInspectedLimitAreRejected() throws Exception {
+        User merchant = testUsers.create(Role.MERCHANT, BigDecimal.ZERO);
+        String oversized = "{\"merchantId\":" + merchant.getId() + ",\"amount\":1.00,\"description\":\""
+                + "x".repeat(20 * 1024) + "\"}";
+
+        mockMvc.perform(payment(payer(), oversized)).andExpect(status().isPayloadTooLarge());
+        mockMvc.perform(chunked(payment(payer(), oversized))).andExpect(status().isPayloadTooLarge());
+    }
+
+    @Test
+    void cachedBodySupportsNonBlockingReads() throws Exception {
+        User merchant = testUsers.create(Role.MERCHANT, BigDecimal.ZERO);
+        TestUsers.authenticate(payer());
+        String body = paymentJson(merchant, "1.00");
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/payments");
+        request.setContextPath("/api");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        List<String> callbacks = new ArrayList<>();
+        rateLimitFilter.doFilter(request, new MockHttpServletResponse(), (forwarded, response) -> {
+            ServletInputStream input = forwarded.getInputStream();
+            input.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    callbacks.add("data");
+                    while (input.isReady() && !input.isFinished()) {
+                        read.write(input.read());
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    callbacks.add("done");
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    callbacks.add("error");
+                }
+            });
+        });
+
+        assertThat(callbacks).containsExactly("data", "done");
+        assertThat(read.toString(StandardCharsets.UTF_8)).isEqualTo(body);
+    }
+
+    private User payer() {
+        return testUsers.create(Role.CLIENT, new BigDecimal("100.00"));
+    }
+
+    private MockHttpServletRequestBuilder payment(User payer, String body) {
+        return post("/payments").header(HttpHeaders.AUTHORIZATION, bearer(payer))
+                .contentType(MediaType.APPLICATION_JSON).content(body);
+    }
+
+    private MockHttpServletRequestBuilder batch(User payer, String... payments) {
+        return post("/payments/batch").header(HttpHeaders.AUTHORIZATION, bearer(payer))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"payments\":[" + String.join(",", payments) + "]}");
+    }
+
+    private static MockHttpServletRequestBuilder chunked(MockHttpServletRequestBuilder request) {
+        return request.header(CHUNKED, "true");
+    }
+
+    private String bearer(User user) {
+        return "Bearer " + jwtTokenProvider.generateToken(user);
+    }
+
+    private static String paymentJson(User merchant, String amount) {
+        return "{\"merchantId\":" + merchant.getId() + ",\"amount\":" + amount + ",\"description\":\"Teste\"}";
+    }
+
+    /**
+     * O MockMvc sempre informa o tamanho do conteúdo; este filtro o esconde, como
+     * em um corpo enviado com {@code Transfer-Encoding: chunked}.
+     */
+    @TestConfiguration
+    static class ChunkedRequests {
+
+        @Bean
+        FilterRegistrationBean<Filter> chunkedRequestFilter() {
+            FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>((request, response, chain) -> {
+                HttpServletRequest http = (HttpServletRequest) request;
+                if (http.getHeader(CHUNKED) == null) {
+                    chain.doFilter(request, response);
+                    return;
+                }
+                chain.doFilter(new HttpServletRequestWrapper(http) {
+                    @Override
+                    public int getContentLength() {
+                        return -1;
+                    }
+
+                    @Override
+                    public long getContentLengthLong() {
+                        return -1;
+                    }
+                }, response);
+            });
+            registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+            return registration;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.gateway.payment.security;
+
+import com.gateway.payment.config.RateLimitConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+    private final RateLimiter rateLimiter = new RateLimiter(now::get);
+    private final RateLimitConfig.Limit limit = new RateLimitConfig.Limit(10, 5);
+
+    @Test
+    void allowsBurstThenRefillsAtConfiguredRate() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(rateLimiter.tryAcquire("user:1", limit)).isZero();
+        }
+        long wait = rateLimiter.tryAcquire("user:1", limit);
+        assertThat(wait).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+
+        // Outra chave tem o próprio bucket
+        assertThat(rateLimiter.tryAcquire("user:2", limit)).isZero();
+
+        now.addAndGet(wait);
+        assertThat(rateLimiter.tryAcquire("user:1", limit)).isZero();
+        assertThat(rateLimiter.tryAcquire("user:1", limit)).isPositive();
+    }
+
+    @Test
+    void acquiresSeveralPermitsAllOrNothing() {
+        assertThat(rateLimiter.tryAcquire("merchant:1", limit, 3)).isZero();
+        assertThat(rateLimiter.tryAcquire("merchant:1", limit, 3)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(rateLimiter.tryAcquire("merchant:1", limit, 2)).isZero();
+
+        // Mais fichas que o burst nunca cabem
+        assertThat(rateLimiter.tryAcquire("merchant:2", limit, 6)).isPositive();
+    }
+
+    @Test
+    void evictsOnlyBucketsThatAreFullAgain() {
+        rateLimiter.tryAcquire("user:1", limit);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(50));
+        rateLimiter.tryAcquire("user:2", limit);
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(60));
+        rateLimiter.evictIdle();
+
+        assertThat(rateLimiter.size()).isEqualTo(1);
+    }
+}
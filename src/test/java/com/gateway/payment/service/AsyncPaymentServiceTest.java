@@ -0,0 +1,174 @@
+package com.gateway.payment.service;
+
+import com.gateway.payment.domain.entity.User;
+import com.gateway.payment.domain.enums.RejectionReason;
+import com.gateway.payment.domain.enums.Role;
+import com.gateway.payment.domain.enums.TransactionStatus;
+import com.gateway.payment.dto.payment.PaymentRequest;
+import com.gateway.payment.dto.payment.PaymentResponse;
+import com.gateway.payment.exception.PaymentRejectedException;
+import com.gateway.payment.repository.AccountRepository;
+import com.gateway.payment.repository.LedgerEntryRepository;
+import com.gateway.payment.support.TestUsers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Um único worker: todos os pagamentos do teste caem no mesmo micro-lote
+@SpringBootTest(properties = "app.payment.async.workers=1")
+@ActiveProfiles("test")
+@Import(TestUsers.class)
+class AsyncPaymentServiceTest {
+
+    @Autowired
+    private AsyncPaymentService asyncPaymentService;
+
+    @Autowired
+    private HotAccountService hotAccountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestUsers testUsers;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void failingPaymentIsMarkedFailedAndTheRestOfTheBatchSettles() {
+        User payer = testUsers.create(Role.CLIENT, new BigDecimal("100.00"));
+        User otherPayer = testUsers.create(Role.CLIENT, new BigDecimal("100.00"));
+        User merchant = testUsers.create(Role.MERCHANT, BigDecimal.ZERO);
+        User fullMerchant = testUsers.create(Role.MERCHANT, BigDecimal.ZERO);
+
+        TestUsers.authenticate(payer);
+        PaymentResponse first = asyncPaymentService.accept(request(merchant, "10.00"));
+        TestUsers.authenticate(otherPayer);
+        PaymentResponse poison = asyncPaymentService.accept(request(fullMerchant, "10.00"));
+        TestUsers.authenticate(payer);
+        PaymentResponse last = asyncPaymentService.accept(request(merchant, "10.00"));
+
+        // O crédito estoura numeric(15, 2) no flush: erro não transitório, só deste pagamento
+        jdbcTemplate.update("UPDATE accounts SET balance = 9999999999999.99 WHERE id = ?",
+                fullMerchant.getAccount().getId());
+
+        assertThat(asyncPaymentService.settleBatch(0)).isGreaterThanOrEqualTo(3);
+        assertThat(asyncPaymentService.settleBatch(0)).isZero();
+
+        assertThat(statusOf(payer, first)).isEqualTo(TransactionStatus.APPROVED);
+        assertThat(statusOf(payer, last)).isEqualTo(TransactionStatus.APPROVED);
+        TestUsers.authenticate(otherPayer);
+        PaymentResponse failed = asyncPaymentService.getStatus(poison.getTransactionId());
+        assertThat(failed.getStatus()).isEqualTo(TransactionStatus.FAILED);
+        assertThat(failed.getFailureReason()).isEqualTo(RejectionReason.ERROR);
+
+        assertThat(balanceOf(payer)).isEqualByComparingTo("80.00");
+        assertThat(balanceOf(merchant)).isEqualByComparingTo("20.00");
+        assertThat(balanceOf(otherPayer)).isEqualByComparingTo("100.00");
+        assertThat(balanceOf(fullMerchant)).isEqualByComparingTo("9999999999999.99");
+    }
+
+    @Test
+    void payerAccountThatBecameHotIsRejectedWithoutDebit() {
+        User hotPayer = testUsers.create(Role.MERCHANT, new BigDecimal("100.00"));
+        User merchant = testUsers.create(Role.MERCHANT, BigDecimal.ZERO);
+
+        TestUsers.authenticate(hotPayer);
+        PaymentResponse accepted = asyncPaymentService.accept(request(merchant, "10.00"));
+        hotAccountService.enable(hotPayer.getAccount().getId(), 4);
+
+        asyncPaymentService.settleBatch(0);
+
+        PaymentResponse settled = asyncPaymentService.getStatus(accepted.getTransactionId());
+        assertThat(settled.getStatus()).isEqualTo(TransactionStatus.FAILED);
+        assertThat(settled.getFailureReason()).isEqualTo(RejectionReason.PAYER_NOT_FOUND);
+        assertThat(balanceOf(hotPayer)).isEqualByComparingTo("100.00");
+        assertThat(balanceOf(merchant)).isEqualByComparingTo("0.00");
+
+        // Já hot no aceite: rejeitado na hora, como no pagamento síncrono
+        assertThatThrownBy(() -> asyncPaymentService.accept(request(merchant, "10.00")))
+                .isInstanceOf(PaymentRejectedException.class);
+    }
+
+    @Test
+    void acceptedPaymentsAreSettledInPayerOrder() {
+        User payer = testUsers.create(Role.CLIENT, new BigDecimal("500.00"));
+        User merchant = testUsers.create(Role.MERCHANT, BigDecimal.ZERO);
+
+        TestUsers.authenticate(payer);
+        PaymentResponse first = asyncPaymentService.accept(request(merchant, "300.00"));
+        PaymentResponse second = asyncPaymentService.accept(request(merchant, "300.00"));
+
+        assertThat(first.getStatus()).isEqualTo(TransactionStatus.PENDING);
+        assertThat(balanceOf(payer)).isEqualByComparingTo("500.00");
+
+        assertThat(asyncPaymentService.settleBatch(0)).isEqualTo(2);
+
+        // O segundo pagamento só encontra o saldo já debitado pelo primeiro
+        assertThat(statusOf(payer, first)).isEqualTo(TransactionStatus.APPROVED);
+        PaymentResponse failed = asyncPaymentService.getStatus(second.getTransactionId());
+        assertThat(failed.getStatus()).isEqualTo(TransactionStatus.FAILED);
+        assertThat(failed.getFailureReason()).isEqualTo(RejectionReason.INSUFFICIENT_BALANCE);
+        assertThat(balanceOf(payer)).isEqualByComparingTo("200.00");
+        assertThat(balanceOf(merchant)).isEqualByComparingTo("300.00");
+        assertThat(ledgerEntryRepository.findByTransactionId(second.getTransactionId())).isEmpty();
+    }
+
+    @Test
+    void payerOrderFollowsAcceptanceWhenIdsDoNot() {
+        User payer = testUsers.create(Role.CLIENT, new BigDecimal("500.00"));
+        User merchant = testUsers.create(Role.MERCHANT, BigDecimal.ZERO);
+
+        TestUsers.authenticate(payer);
+        PaymentResponse first = asyncPaymentService.accept(request(merchant, "300.00"));
+        PaymentResponse second = asyncPaymentService.accept(request(merchant, "300.00"));
+
+        // Outra instância reserva outro bloco da sequence: o primeiro aceite recebe o id maior
+        long firstId = first.getTransactionId() + 1_000_000;
+        jdbcTemplate.update("UPDATE transactions SET id = ? WHERE id = ?", firstId, first.getTransactionId());
+
+        assertThat(asyncPaymentService.settleBatch(0)).isEqualTo(2);
+
+        assertThat(asyncPaymentService.getStatus(firstId).getStatus()).isEqualTo(TransactionStatus.APPROVED);
+        PaymentResponse failed = asyncPaymentService.getStatus(second.getTransactionId());
+        assertThat(failed.getStatus()).isEqualTo(TransactionStatus.FAILED);
+        assertThat(failed.getFailureReason()).isEqualTo(RejectionReason.INSUFFICIENT_BALANCE);
+        assertThat(balanceOf(payer)).isEqualByComparingTo("200.00");
+    }
+
+    private TransactionStatus statusOf(User user, PaymentResponse response) {
+        TestUsers.authenticate(user);
+        return asyncPaymentService.getStatus(response.getTransactionId()).getStatus();
+    }
+
+    private BigDecimal balanceOf(User user) {
+        return accountRepository.findByUserId(user.getId()).orElseThrow().getBalance().toBigDecimal();
+    }
+
+    private static PaymentRequest request(User merchant, String amount) {
+        PaymentRequest request = new PaymentRequest();
+        request.setMerchantId(merchant.getId());
+        request.setAmount(new BigDecimal(amount));
+        request.setDescription("Compra de teste");
+        return request;
+    }
+}
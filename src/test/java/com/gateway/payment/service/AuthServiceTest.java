@@ -0,0 +1,74 @@
+package com.gateway.payment.service;
+
+import com.gateway.payment.domain.entity.User;
+import com.gateway.payment.domain.enums.Role;
+import com.gateway.payment.dto.auth.LoginRequest;
+import com.gateway.payment.dto.auth.LoginResponse;
+import com.gateway.payment.dto.auth.RefreshTokenRequest;
+import com.gateway.payment.exception.UnauthorizedException;
+import com.gateway.payment.repository.UserRepository;
+import com.gateway.payment.support.TestUsers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "app.security.password.bcrypt-strength=5")
+@ActiveProfiles("test")
+@Import(TestUsers.class)
+class AuthServiceTest {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestUsers testUsers;
+
+    @Test
+    void loginUpgradesHashesBelowTheConfiguredCost() {
+        User user = testUsers.createWithoutAccount(Role.CLIENT, new BCryptPasswordEncoder(4).encode("secret"));
+
+        authService.login(login(user, "secret"));
+
+        String upgraded = userRepository.findById(user.getId()).orElseThrow().getPassword();
+        assertThat(upgraded).startsWith("$2a$05$");
+        assertThat(new BCryptPasswordEncoder().matches("secret", upgraded)).isTrue();
+        authService.login(login(user, "secret"));
+    }
+
+    @Test
+    void refreshTokenIsSingleUse() {
+        User user = testUsers.createWithoutAccount(Role.CLIENT, new BCryptPasswordEncoder(5).encode("secret"));
+        LoginResponse login = authService.login(login(user, "secret"));
+
+        LoginResponse refreshed = authService.refresh(refresh(login.getRefreshToken()));
+
+        assertThat(refreshed.getToken()).isNotBlank();
+        assertThat(refreshed.getEmail()).isEqualTo(user.getEmail());
+        assertThat(refreshed.getRefreshToken()).isNotEqualTo(login.getRefreshToken());
+        assertThatThrownBy(() -> authService.refresh(refresh(login.getRefreshToken())))
+                .isInstanceOf(UnauthorizedException.class);
+        assertThat(authService.refresh(refresh(refreshed.getRefreshToken())).getToken()).isNotBlank();
+    }
+
+    private static LoginRequest login(User user, String password) {
+        LoginRequest request = new LoginRequest();
+        request.setEmail(user.getEmail());
+        request.setPassword(password);
+        return request;
+    }
+
+    private static RefreshTokenRequest refresh(String token) {
+        RefreshTokenRequest request = new RefreshTokenRequest();
+        request.setRefreshToken(token);
+        return request;
+    }
+}
@@ -0,0 +1,154 @@
+package com.gateway.payment.service;
+
+import com.gateway.payment.domain.entity.User;
+import com.gateway.payment.domain.enums.Role;
+import com.gateway.payment.domain.enums.TransactionStatus;
+import com.gateway.payment.dto.payment.BatchPaymentItemResult;
+import com.gateway.payment.dto.payment.BatchPaymentRequest;
+import com.gateway.payment.dto.payment.BatchPaymentResponse;
+import com.gateway.payment.dto.payment.PaymentRequest;
+import com.gateway.payment.exception.BusinessException;
+import com.gateway.payment.repository.AccountRepository;
+import com.gateway.payment.repository.TransactionRepository;
+import com.gateway.payment.support.TestUsers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = {
+        "app.payment.batch.chunk-size=2",
+        "app.payment.batch.max-items=5"
+})
+@ActiveProfiles("test")
+@Import(TestUsers.class)
+class BatchPaymentServiceTest {
+
+    @Autowired
+    private BatchPaymentService batchPaymentService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TestUsers testUsers;
+
+    private User payer;
+    private User merchant;
+
+    @BeforeEach
+    void setUp() {
+        payer = testUsers.create(Role.CLIENT, new BigDecimal("100.00"));
+        merchant = testUsers.create(Role.MERCHANT, BigDecimal.ZERO);
+        TestUsers.authenticate(payer);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void invalidItemsFailIndividuallyWithoutAffectingTheRestOfTheChunk() {
+        User otherClient = testUsers.create(Role.CLIENT, BigDecimal.ZERO);
+
+        BatchPaymentResponse response = batchPaymentService.processBatch(batch(
+                payment(merchant, "30.00"),
+                payment(otherClient, "10.00"),
+                payment(merchant, "80.00"),
+                payment(Long.MAX_VALUE, "1.00", "Compra de teste"),
+                payment(merchant, "70.00")));
+
+        assertThat(response.getTotal()).isEqualTo(5);
+        assertThat(response.getApproved()).isEqualTo(2);
+        assertThat(response.getFailed()).isEqualTo(3);
+        assertThat(response.getResults())
+                .extracting(BatchPaymentItemResult::getIndex, BatchPaymentItemResult::getStatus,
+                        BatchPaymentItemResult::getError)
+                .containsExactly(
+                        tuple(0, TransactionStatus.APPROVED, null),
+                        tuple(1, TransactionStatus.FAILED, "Usuário destino não é um merchant"),
+                        tuple(2, TransactionStatus.FAILED, "Saldo insuficiente"),
+                        tuple(3, TransactionStatus.FAILED, "Merchant não encontrado"),
+                        tuple(4, TransactionStatus.APPROVED, null));
+        assertThat(response.getResults())
+                .filteredOn(result -> result.getStatus() == TransactionStatus.APPROVED)
+                .allSatisfy(result -> assertThat(transactionRepository.findById(result.getTransactionId()))
+                        .hasValueSatisfying(transaction ->
+                                assertThat(transaction.getStatus()).isEqualTo(TransactionStatus.APPROVED)));
+        assertThat(balanceOf(payer)).isEqualByComparingTo("0.00");
+        assertThat(balanceOf(merchant)).isEqualByComparingTo("100.00");
+        assertThat(balanceOf(otherClient)).isEqualByComparingTo("0.00");
+    }
+
+    @Test
+    void chunkThatFailsToCommitIsRolledBackAndOtherChunksAreKept() {
+        // Descrição maior que a coluna: o erro só aparece no flush e derruba o bloco inteiro
+        String tooLong = String.join("", Collections.nCopies(300, "x"));
+
+        BatchPaymentResponse response = batchPaymentService.processBatch(batch(
+                payment(merchant, "10.00"),
+                payment(merchant.getId(), "20.00", tooLong),
+                payment(merchant, "5.00")));
+
+        assertThat(response.getApproved()).isEqualTo(1);
+        assertThat(response.getResults())
+                .extracting(BatchPaymentItemResult::getIndex, BatchPaymentItemResult::getStatus,
+                        BatchPaymentItemResult::getError)
+                .containsExactly(
+                        tuple(0, TransactionStatus.FAILED, "Falha ao processar lote"),
+                        tuple(1, TransactionStatus.FAILED, "Falha ao processar lote"),
+                        tuple(2, TransactionStatus.APPROVED, null));
+        assertThat(balanceOf(payer)).isEqualByComparingTo("95.00");
+        assertThat(balanceOf(merchant)).isEqualByComparingTo("5.00");
+    }
+
+    @Test
+    void batchAboveTheLimitIsRejected() {
+        PaymentRequest[] payments = new PaymentRequest[6];
+        for (int i = 0; i < payments.length; i++) {
+            payments[i] = payment(merchant, "1.00");
+        }
+
+        assertThatThrownBy(() -> batchPaymentService.processBatch(batch(payments)))
+                .isInstanceOf(BusinessException.class);
+        assertThat(balanceOf(payer)).isEqualByComparingTo("100.00");
+    }
+
+    private static BatchPaymentRequest batch(PaymentRequest... payments) {
+        BatchPaymentRequest request = new BatchPaymentRequest();
+        request.setPayments(List.of(payments));
+        return request;
+    }
+
+    private static PaymentRequest payment(User merchant, String amount) {
+        return payment(merchant.getId(), amount, "Compra de teste");
+    }
+
+    private static PaymentRequest payment(Long merchantId, String amount, String description) {
+        PaymentRequest request = new PaymentRequest();
+        request.setMerchantId(merchantId);
+        request.setAmount(new BigDecimal(amount));
+        request.setDescription(description);
+        return request;
+    }
+
+    private BigDecimal balanceOf(User user) {
+        return accountRepository.findByUserId(user.getId()).orElseThrow().getBalance().toBigDecimal();
+    }
+}
@@ -0,0 +1,173 @@
+package com.gateway.payment.service;
+
+import com.gateway.payment.domain.entity.Account;
+import com.gateway.payment.domain.entity.AccountBalanceSlot;
+import com.gateway.payment.domain.entity.User;
+import com.gateway.payment.domain.enums.Role;
+import com.gateway.payment.dto.payment.PaymentRequest;
+import com.gateway.payment.exception.BusinessException;
+import com.gateway.payment.repository.AccountBalanceSlotRepository;
+import com.gateway.payment.repository.AccountRepository;
+import com.gateway.payment.support.TestUsers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Consolidador agendado desligado na prática: o teste chama consolidateAll quando quer
+@SpringBootTest(properties = "app.payment.hot-accounts.consolidation-interval-ms=3600000")
+@ActiveProfiles("test")
+@Import(TestUsers.class)
+class HotAccountServiceTest {
+
+    @Autowired
+    private HotAccountService hotAccountService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountBalanceSlotRepository slotRepository;
+
+    @Autowired
+    private TestUsers testUsers;
+
+    private User merchant;
+    private List<User> payers;
+
+    @BeforeEach
+    void setUp() {
+        merchant = testUsers.create(Role.MERCHANT, new BigDecimal("10.00"));
+        payers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            payers.add(testUsers.create(Role.CLIENT, new BigDecimal("100.00")));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void enableAcceptsOnlyMerchantsAndASlotCountWithinBounds() {
+        assertThatThrownBy(() -> hotAccountService.enable(payers.get(0).getAccount().getId(), 4))
+                .isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> hotAccountService.enable(merchant.getAccount().getId(), 1))
+                .isInstanceOf(BusinessException.class);
+
+        hotAccountService.enable(merchant.getAccount().getId(), 4);
+
+        assertThat(account(merchant).getBalanceSlots()).isEqualTo(4);
+        assertThat(slotRepository.findByAccountId(merchant.getAccount().getId()))
+                .extracting(AccountBalanceSlot::getSlot)
+                .containsExactlyInAnyOrder(0, 1, 2, 3);
+    }
+
+    @Test
+    void creditsGoToSlotsAndAreFoldedWithoutChangingTheBalance() {
+        hotAccountService.enable(merchant.getAccount().getId(), 4);
+        Long version = account(merchant).getVersion();
+
+        payAll("5.00");
+
+        // A linha da conta não é tocada pelos créditos
+        Account hot = account(merchant);
+        assertThat(hot.getVersion()).isEqualTo(version);
+        assertThat(hot.getBalance().toBigDecimal()).isEqualByComparingTo("10.00");
+        assertThat(slotTotal()).isEqualByComparingTo("40.00");
+        assertThat(slotRepository.findByAccountId(merchant.getAccount().getId()))
+                .filteredOn(slot -> slot.getBalance().signum() > 0)
+                .hasSizeGreaterThan(1);
+        assertThat(hotAccountService.currentBalance(hot).toBigDecimal()).isEqualByComparingTo("50.00");
+        assertThat(balanceSeenBy(merchant)).isEqualByComparingTo("50.00");
+
+        hotAccountService.consolidateAll();
+
+        assertThat(account(merchant).getBalance().toBigDecimal()).isEqualByComparingTo("50.00");
+        assertThat(slotTotal()).isEqualByComparingTo("0.00");
+        assertThat(balanceSeenBy(merchant)).isEqualByComparingTo("50.00");
+    }
+
+    @Test
+    void currentBalanceOfAStaleAccountIsNotSkewedByAConcurrentFold() {
+        hotAccountService.enable(merchant.getAccount().getId(), 4);
+        payAll("5.00");
+        // Conta lida antes da consolidação, como em uma leitura concorrente
+        Account loadedBeforeFold = account(merchant);
+
+        hotAccountService.consolidateAll();
+
+        assertThat(hotAccountService.currentBalance(loadedBeforeFold).toBigDecimal()).isEqualByComparingTo("50.00");
+    }
+
+    @Test
+    void disableFoldsPendingCreditsAndRemovesTheSlots() {
+        hotAccountService.enable(merchant.getAccount().getId(), 4);
+        payAll("2.50");
+
+        hotAccountService.disable(merchant.getAccount().getId());
+
+        Account account = account(merchant);
+        assertThat(account.isHot()).isFalse();
+        assertThat(account.getBalance().toBigDecimal()).isEqualByComparingTo("30.00");
+        assertThat(slotRepository.findByAccountId(account.getId())).isEmpty();
+
+        // De volta ao caminho comum: o crédito vai direto ao saldo
+        TestUsers.authenticate(payers.get(0));
+        paymentService.processPayment(request("1.00"));
+        assertThat(account(merchant).getBalance().toBigDecimal()).isEqualByComparingTo("31.00");
+    }
+
+    private void payAll(String amount) {
+        for (User payer : payers) {
+            TestUsers.authenticate(payer);
+            paymentService.processPayment(request(amount));
+        }
+        SecurityContextHolder.clearContext();
+    }
+
+    private PaymentRequest request(String amount) {
+        PaymentRequest request = new PaymentRequest();
+        request.setMerchantId(merchant.getId());
+        request.setAmount(new BigDecimal(amount));
+        request.setDescription("Compra de teste");
+        return request;
+    }
+
+    private BigDecimal balanceSeenBy(User user) {
+        TestUsers.authenticate(user);
+        try {
+            return accountService.getBalance().getBalance().toBigDecimal();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private BigDecimal slotTotal() {
+        return slotRepository.findByAccountId(merchant.getAccount().getId()).stream()
+                .map(AccountBalanceSlot::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private Account account(User user) {
+        return accountRepository.findById(user.getAccount().getId()).orElseThrow();
+    }
+}
@@ -0,0 +1,174 @@
+package com.gateway.payment.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gateway.payment.config.IdempotencyConfig;
+import com.gateway.payment.domain.enums.TransactionStatus;
+import com.gateway.payment.domain.value.Money;
+import com.gateway.payment.dto.payment.PaymentRequest;
+import com.gateway.payment.dto.payment.PaymentResponse;
+import com.gateway.payment.exception.BusinessException;
+import com.gateway.payment.exception.InsufficientBalanceException;
+import com.gateway.payment.ledger.LedgerEngine;
+import com.gateway.payment.ledger.LedgerReceipt;
+import com.gateway.payment.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * O serviço é criado à mão, por padrão no modo do engine em memória (com um
+ * engine presente), e o pagamento é simulado pelo supplier.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class IdempotencyServiceTest {
+
+    // Só a presença importa: o pagamento em si vem do supplier
+    private static final LedgerEngine ENGINE = new LedgerEngine() {
+        @Override
+        public LedgerReceipt transfer(Long payerUserId, Long merchantUserId, Money amount, String description) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public LedgerReceipt deposit(Long userId, Money amount, String description) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Money getBalance(Long userId) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private IdempotencyConfig config;
+
+    private IdempotencyService service;
+    private String key;
+    private AtomicInteger payments;
+
+    @BeforeEach
+    void setUp() {
+        service = newService();
+        key = UUID.randomUUID().toString();
+        payments = new AtomicInteger();
+    }
+
+    @Test
+    void completedPaymentIsReplayedFromTheStoredRecord() {
+        PaymentResponse first = service.execute(1L, key, request(), approved());
+
+        // Outra instância, sem o cache local
+        PaymentResponse replayed = newService().execute(1L, key, request(), approved());
+
+        assertThat(payments).hasValue(1);
+        assertThat(replayed.getTransactionId()).isEqualTo(first.getTransactionId());
+        assertThat(repository.findById("1:" + key)).hasValueSatisfying(record ->
+                assertThat(record.getResponseBody()).isNotNull());
+    }
+
+    @Test
+    void rejectedPaymentReleasesTheKey() {
+        assertThatThrownBy(() -> service.execute(1L, key, request(), () -> {
+            payments.incrementAndGet();
+            throw new InsufficientBalanceException("Saldo insuficiente");
+        })).isInstanceOf(InsufficientBalanceException.class);
+
+        service.execute(1L, key, request(), approved());
+
+        assertThat(payments).hasValue(2);
+    }
+
+    @Test
+    void paymentWithUnknownOutcomeKeepsTheKeyReserved() {
+        assertThatThrownBy(() -> service.execute(1L, key, request(), () -> {
+            payments.incrementAndGet();
+            throw new BusinessException("Tempo esgotado aguardando confirmação do ledger");
+        })).isInstanceOf(BusinessException.class);
+
+        assertThatThrownBy(() -> newService().execute(1L, key, request(), approved()))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Pagamento com esta Idempotency-Key ainda em processamento");
+        assertThat(payments).hasValue(1);
+    }
+
+    @Test
+    void expiredKeyNotYetSweptCanBeReused() {
+        service.execute(1L, key, request(), approved());
+        expire("1:" + key);
+
+        PaymentResponse second = newService().execute(1L, key, request(), approved());
+
+        assertThat(payments).hasValue(2);
+        assertThat(second.getTransactionId()).isEqualTo(2L);
+        assertThat(repository.findById("1:" + key)).hasValueSatisfying(record ->
+                assertThat(record.getExpiresAt()).isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    void expiredKeyNotYetSweptCanBeReusedWithoutTheEngine() {
+        IdempotencyService jpaService = newService(Optional.empty());
+        jpaService.execute(1L, key, request(), approved());
+        expire("1:" + key);
+
+        PaymentResponse second = newService(Optional.empty()).execute(1L, key, request(), approved());
+
+        assertThat(payments).hasValue(2);
+        assertThat(second.getTransactionId()).isEqualTo(2L);
+    }
+
+    private void expire(String id) {
+        transactionTemplate.executeWithoutResult(status -> repository.findById(id).orElseThrow()
+                .setExpiresAt(LocalDateTime.now().minusMinutes(1)));
+    }
+
+    private IdempotencyService newService() {
+        return newService(Optional.of(ENGINE));
+    }
+
+    private IdempotencyService newService(Optional<LedgerEngine> engine) {
+        return new IdempotencyService(repository, transactionTemplate, objectMapper, config, engine);
+    }
+
+    private Supplier<PaymentResponse> approved() {
+        return () -> PaymentResponse.builder()
+                .transactionId((long) payments.incrementAndGet())
+                .amount(Money.of(new BigDecimal("10.00")))
+                .status(TransactionStatus.APPROVED)
+                .merchantName("Loja")
+                .description("Compra de teste")
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static PaymentRequest request() {
+        PaymentRequest request = new PaymentRequest();
+        request.setMerchantId(2L);
+        request.setAmount(new BigDecimal("10.00"));
+        request.setDescription("Compra de teste");
+        return request;
+    }
+}
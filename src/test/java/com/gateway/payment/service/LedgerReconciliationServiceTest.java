@@ -0,0 +1,92 @@
+package com.gateway.payment.service;
+
+import com.gateway.payment.domain.entity.User;
+import com.gateway.payment.domain.enums.Role;
+import com.gateway.payment.dto.account.DepositRequest;
+import com.gateway.payment.dto.ledger.ReconciliationMismatch;
+import com.gateway.payment.dto.ledger.ReconciliationReport;
+import com.gateway.payment.dto.payment.PaymentRequest;
+import com.gateway.payment.repository.AccountRepository;
+import com.gateway.payment.support.TestUsers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "app.ledger.reconciliation.range-size=1")
+@ActiveProfiles("test")
+@Import(TestUsers.class)
+class LedgerReconciliationServiceTest {
+
+    @Autowired
+    private LedgerReconciliationService reconciliationService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestUsers testUsers;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void reportsOnlyAccountsWhoseBalanceDiffersFromApprovedTransactions() throws Exception {
+        User payer = testUsers.create(Role.CLIENT, BigDecimal.ZERO);
+        User merchant = testUsers.create(Role.MERCHANT, BigDecimal.ZERO);
+        User tampered = testUsers.create(Role.MERCHANT, BigDecimal.ZERO);
+
+        TestUsers.authenticate(payer);
+        DepositRequest deposit = new DepositRequest();
+        deposit.setAmount(new BigDecimal("500.00"));
+        accountService.deposit(deposit);
+        paymentService.processPayment(request(merchant, "120.00"));
+        paymentService.processPayment(request(tampered, "30.00"));
+
+        // Alteração fora do fluxo de pagamento
+        jdbcTemplate.update("UPDATE accounts SET balance = balance + 1 WHERE id = ?", tampered.getAccount().getId());
+
+        reconciliationService.start();
+        reconciliationService.awaitCompletion(30, TimeUnit.SECONDS);
+        ReconciliationReport report = reconciliationService.getReport();
+
+        assertThat(report.getStatus()).isEqualTo("COMPLETED");
+        assertThat(report.getPartitionsDone()).isEqualTo(report.getPartitionsTotal()).isGreaterThan(1);
+        assertThat(report.getMismatches())
+                .extracting(ReconciliationMismatch::getAccountId)
+                .contains(tampered.getAccount().getId())
+                .doesNotContain(payer.getAccount().getId(), merchant.getAccount().getId());
+        assertThat(report.getMismatches())
+                .filteredOn(mismatch -> mismatch.getAccountId().equals(tampered.getAccount().getId()))
+                .singleElement()
+                .satisfies(mismatch -> assertThat(mismatch.getDifference().toBigDecimal()).isEqualByComparingTo("1.00"));
+    }
+
+    private static PaymentRequest request(User merchant, String amount) {
+        PaymentRequest request = new PaymentRequest();
+        request.setMerchantId(merchant.getId());
+        request.setAmount(new BigDecimal(amount));
+        request.setDescription("Compra de teste");
+        return request;
+    }
+}
@@ -0,0 +1,119 @@
+package com.gateway.payment.service;
+
+import com.gateway.payment.domain.entity.BalanceSnapshot;
+import com.gateway.payment.domain.entity.User;
+import com.gateway.payment.domain.enums.Role;
+import com.gateway.payment.dto.payment.PaymentRequest;
+import com.gateway.payment.repository.BalanceSnapshotRepository;
+import com.gateway.payment.support.TestUsers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Job agendado desligado na prática: o teste gera os snapshots quando quer
+@SpringBootTest(properties = "app.ledger.snapshots.interval-ms=3600000")
+@ActiveProfiles("test")
+@Import(TestUsers.class)
+class LedgerServiceTest {
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestUsers testUsers;
+
+    private User payer;
+    private User merchant;
+
+    @BeforeEach
+    void setUp() {
+        payer = testUsers.create(Role.CLIENT, new BigDecimal("100.00"));
+        merchant = testUsers.create(Role.MERCHANT, BigDecimal.ZERO);
+        TestUsers.authenticate(payer);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void entryCommittedAfterACutoffWithAnEarlierTimestampIsNotLost() throws Exception {
+        Long accountId = payer.getAccount().getId();
+        paymentService.processPayment(request("10.00"));
+        LocalDateTime firstCutoff = cutoff();
+        ledgerService.snapshotUpTo(firstCutoff);
+        assertThat(snapshotAt(firstCutoff)).isEqualByComparingTo("90.00");
+
+        // Lançamento com created_at antes do corte, confirmado só agora (ex.: persister após uma queda)
+        commitLateDeposit(accountId, "5.00", firstCutoff.minusMinutes(1));
+        assertThat(ledgerService.balanceAt(accountId, LocalDateTime.now())).isEqualByComparingTo("95.00");
+
+        paymentService.processPayment(request("10.00"));
+        LocalDateTime secondCutoff = cutoff();
+        ledgerService.snapshotUpTo(secondCutoff);
+        assertThat(snapshotAt(secondCutoff)).isEqualByComparingTo("85.00");
+
+        paymentService.processPayment(request("20.00"));
+        LocalDateTime afterLastPayment = cutoff();
+        assertThat(ledgerService.balanceAt(accountId, secondCutoff)).isEqualByComparingTo("85.00");
+        assertThat(ledgerService.balanceAt(accountId, afterLastPayment)).isEqualByComparingTo("65.00");
+
+        ledgerService.snapshotUpTo(afterLastPayment);
+        // Entre dois snapshots: o anterior mais os lançamentos do intervalo
+        assertThat(ledgerService.balanceAt(accountId, secondCutoff)).isEqualByComparingTo("85.00");
+    }
+
+    private void commitLateDeposit(Long accountId, String amount, LocalDateTime createdAt) {
+        Long transactionId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM transactions", Long.class);
+        jdbcTemplate.update("INSERT INTO ledger_entries (id, transaction_id, account_id, direction, amount, created_at) " +
+                        "VALUES ((SELECT LEAST(COALESCE(MIN(id), 0), 0) - 1 FROM ledger_entries), ?, ?, 'CREDIT', ?, ?)",
+                transactionId, accountId, new BigDecimal(amount), createdAt);
+        jdbcTemplate.update("UPDATE accounts SET balance = balance + ? WHERE id = ?", new BigDecimal(amount), accountId);
+    }
+
+    // Cortes estritamente posteriores aos lançamentos já gravados
+    private static LocalDateTime cutoff() throws InterruptedException {
+        Thread.sleep(5);
+        LocalDateTime cutoff = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        Thread.sleep(5);
+        return cutoff;
+    }
+
+    private BigDecimal snapshotAt(LocalDateTime asOf) {
+        return balanceSnapshotRepository
+                .findFirstByAccountIdAndAsOfLessThanEqualOrderByAsOfDesc(payer.getAccount().getId(), asOf)
+                .filter(snapshot -> snapshot.getAsOf().equals(asOf))
+                .map(BalanceSnapshot::getBalance)
+                .orElseThrow();
+    }
+
+    private PaymentRequest request(String amount) {
+        PaymentRequest request = new PaymentRequest();
+        request.setMerchantId(merchant.getId());
+        request.setAmount(new BigDecimal(amount));
+        request.setDescription("Compra de teste");
+        return request;
+    }
+}
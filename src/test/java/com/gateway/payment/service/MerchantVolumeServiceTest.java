@@ -0,0 +1,173 @@
+package com.gateway.payment.service;
+
+import com.gateway.payment.domain.entity.User;
+import com.gateway.payment.domain.enums.Role;
+import com.gateway.payment.domain.enums.RollupGranularity;
+import com.gateway.payment.domain.value.Money;
+import com.gateway.payment.dto.account.DepositRequest;
+import com.gateway.payment.dto.merchant.MerchantVolumeResponse;
+import com.gateway.payment.dto.payment.PaymentRequest;
+import com.gateway.payment.dto.payment.PaymentResponse;
+import com.gateway.payment.partition.TransactionPartitionManager;
+import com.gateway.payment.repository.AccountRepository;
+import com.gateway.payment.support.TestUsers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestUsers.class)
+class MerchantVolumeServiceTest {
+
+    @Autowired
+    private MerchantVolumeService merchantVolumeService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestUsers testUsers;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void volumeIsAnsweredFromRollupsAndSurvivesFlushAndRebuild() {
+        User payer = testUsers.create(Role.CLIENT, new BigDecimal("500.00"));
+        User merchant = testUsers.create(Role.MERCHANT, BigDecimal.ZERO);
+
+        TestUsers.authenticate(payer);
+        LocalDateTime at = paymentService.processPayment(request(merchant, "100.00")).getCreatedAt();
+        paymentService.processPayment(request(merchant, "50.01"));
+
+        // Depósito do próprio merchant não é venda
+        TestUsers.authenticate(merchant);
+        DepositRequest deposit = new DepositRequest();
+        deposit.setAmount(new BigDecimal("1000.00"));
+        accountService.deposit(deposit);
+
+        assertVolume(RollupGranularity.DAY, at, 2, "150.01", "75.01");
+
+        merchantVolumeService.flush();
+        assertVolume(RollupGranularity.DAY, at, 2, "150.01", "75.01");
+
+        merchantVolumeService.rebuild();
+        assertVolume(RollupGranularity.HOUR, at, 2, "150.01", "75.01");
+    }
+
+    @Test
+    void rebuildKeepsTheMonthsThatMayCountArchivedTransactions() {
+        User payer = testUsers.create(Role.CLIENT, new BigDecimal("500.00"));
+        User merchant = testUsers.create(Role.MERCHANT, BigDecimal.ZERO);
+        User otherMerchant = testUsers.create(Role.MERCHANT, BigDecimal.ZERO);
+
+        TestUsers.authenticate(payer);
+        PaymentResponse archived = paymentService.processPayment(request(merchant, "100.00"));
+        // Continua no banco: o mês corrente tem transações a reconstruir
+        paymentService.processPayment(request(otherMerchant, "10.00"));
+        merchantVolumeService.flush();
+
+        // Mês anterior arquivado: uma transação criada nele e aprovada neste mês já saiu do banco
+        String partition = TransactionPartitionManager.partitionName(YearMonth.now().minusMonths(1));
+        jdbcTemplate.update("DELETE FROM transactions WHERE id = ?", archived.getTransactionId());
+        jdbcTemplate.update("INSERT INTO transaction_archive_totals (partition_name, account_id, net) " +
+                "VALUES (?, ?, ?)", partition, merchant.getAccount().getId(), new BigDecimal("100.00"));
+        try {
+            merchantVolumeService.rebuild();
+
+            TestUsers.authenticate(merchant);
+            assertVolume(RollupGranularity.DAY, archived.getCreatedAt(), 1, "100.00", "100.00");
+        } finally {
+            jdbcTemplate.update("DELETE FROM transaction_archive_totals WHERE partition_name = ?", partition);
+        }
+    }
+
+    @Test
+    void approvalsInClosedBucketsAreNotLostWhileTheFlushRetiresThem() throws Exception {
+        User merchant = testUsers.create(Role.MERCHANT, BigDecimal.ZERO);
+        // Intervalos já encerrados: o flush tira da memória os contadores que encontra zerados
+        LocalDateTime at = LocalDateTime.now().minusDays(2);
+        int recorders = 4;
+        int approvals = 10_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(recorders);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < recorders; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < approvals; j++) {
+                        merchantVolumeService.record(merchant.getId(), Money.ofMinor(1), at);
+                        // Pausas curtas: o flush encontra os contadores zerados e os aposenta
+                        LockSupport.parkNanos(10_000);
+                    }
+                }));
+            }
+            while (futures.stream().anyMatch(future -> !future.isDone())) {
+                merchantVolumeService.flush();
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        merchantVolumeService.flush();
+
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            Map<String, Object> row = jdbcTemplate.queryForMap("SELECT tx_count, volume FROM merchant_volume_rollups " +
+                            "WHERE merchant_id = ? AND granularity = ? AND bucket_start = ?",
+                    merchant.getId(), granularity.name(), Timestamp.valueOf(granularity.bucketOf(at)));
+            assertThat(((Number) row.get("tx_count")).longValue()).as(granularity.name())
+                    .isEqualTo((long) recorders * approvals);
+            assertThat((BigDecimal) row.get("volume")).as(granularity.name())
+                    .isEqualByComparingTo(BigDecimal.valueOf((long) recorders * approvals, Money.SCALE));
+        }
+    }
+
+    private void assertVolume(RollupGranularity granularity, LocalDateTime at,
+                              long count, String volume, String averageTicket) {
+        MerchantVolumeResponse response = merchantVolumeService.getVolume(granularity, at);
+        assertThat(response.getCount()).isEqualTo(count);
+        assertThat(response.getVolume().toBigDecimal()).isEqualByComparingTo(volume);
+        assertThat(response.getAverageTicket().toBigDecimal()).isEqualByComparingTo(averageTicket);
+    }
+
+    private static PaymentRequest request(User merchant, String amount) {
+        PaymentRequest request = new PaymentRequest();
+        request.setMerchantId(merchant.getId());
+        request.setAmount(new BigDecimal(amount));
+        request.setDescription("Compra de teste");
+        return request;
+    }
+}
@@ -0,0 +1,159 @@
+package com.gateway.payment.service;
+
+import com.gateway.payment.domain.entity.LedgerEntry;
+import com.gateway.payment.domain.entity.Transaction;
+import com.gateway.payment.domain.entity.User;
+import com.gateway.payment.domain.enums.EntryDirection;
+import com.gateway.payment.domain.enums.Role;
+import com.gateway.payment.domain.enums.TransactionStatus;
+import com.gateway.payment.dto.payment.PaymentRequest;
+import com.gateway.payment.dto.payment.PaymentResponse;
+import com.gateway.payment.exception.BusinessException;
+import com.gateway.payment.exception.InsufficientBalanceException;
+import com.gateway.payment.repository.AccountRepository;
+import com.gateway.payment.repository.LedgerEntryRepository;
+import com.gateway.payment.repository.TransactionRepository;
+import com.gateway.payment.support.TestUsers;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Com o cache de saldos ligado, como em uma instância única
+@SpringBootTest(properties = "app.accounts.balance-cache.enabled=true")
+@ActiveProfiles("test")
+@Import(TestUsers.class)
+class PaymentServiceTest {
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TestUsers testUsers;
+
+    private User payer;
+    private User merchant;
+
+    @BeforeEach
+    void setUp() {
+        payer = testUsers.create(Role.CLIENT, new BigDecimal("500.00"));
+        merchant = testUsers.create(Role.MERCHANT, BigDecimal.ZERO);
+        TestUsers.authenticate(payer);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void processPaymentMovesFundsAndRecordsApprovedTransaction() {
+        PaymentResponse response = paymentService.processPayment(request(new BigDecimal("150.50")));
+
+        assertThat(response.getStatus()).isEqualTo(TransactionStatus.APPROVED);
+        assertThat(response.getMerchantName()).isEqualTo(merchant.getName());
+        assertThat(balanceOf(payer)).isEqualByComparingTo("349.50");
+        assertThat(balanceOf(merchant)).isEqualByComparingTo("150.50");
+
+        Transaction transaction = transactionRepository.findById(response.getTransactionId()).orElseThrow();
+        assertThat(transaction.getStatus()).isEqualTo(TransactionStatus.APPROVED);
+
+        assertThat(ledgerEntryRepository.findByTransactionId(transaction.getId()))
+                .extracting(LedgerEntry::getAccountId, LedgerEntry::getDirection)
+                .containsExactlyInAnyOrder(
+                        tuple(payer.getAccount().getId(), EntryDirection.DEBIT),
+                        tuple(merchant.getAccount().getId(), EntryDirection.CREDIT));
+    }
+
+    @Test
+    void processPaymentIssuesAHandfulOfStatements() {
+        // Aquece as sequences: a primeira alocação de um bloco pooled pode consultar a sequence duas vezes
+        paymentService.processPayment(request(new BigDecimal("1.00")));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        paymentService.processPayment(request(new BigDecimal("10.00")));
+
+        // 1 select com lock das duas contas, 1 insert da transação, 1 insert em lote dos
+        // dois lançamentos, updates das contas em lote e, eventualmente, a alocação de
+        // um novo bloco das sequences
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(6);
+        assertThat(statistics.getEntityUpdateCount()).isEqualTo(2);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(3);
+    }
+
+    @Test
+    void balanceReflectsOwnPaymentRightAfterCommit() {
+        assertThat(accountService.getBalance().getBalance().toBigDecimal()).isEqualByComparingTo("500.00");
+        assertThat(accountService.getBalance().getBalance().toBigDecimal()).isEqualByComparingTo("500.00");
+
+        paymentService.processPayment(request(new BigDecimal("25.00")));
+
+        // Sem consultar o banco: o cache foi atualizado com a nova versão no commit
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        assertThat(accountService.getBalance().getBalance().toBigDecimal()).isEqualByComparingTo("475.00");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void processPaymentWithIdempotencyKeyChargesOnce() {
+        PaymentResponse first = paymentService.processPayment(request(new BigDecimal("40.00")), "pedido-123");
+        PaymentResponse replay = paymentService.processPayment(request(new BigDecimal("40.00")), "pedido-123");
+
+        assertThat(replay.getTransactionId()).isEqualTo(first.getTransactionId());
+        assertThat(balanceOf(payer)).isEqualByComparingTo("460.00");
+        assertThatThrownBy(() -> paymentService.processPayment(request(new BigDecimal("41.00")), "pedido-123"))
+                .isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    void processPaymentRejectsInsufficientBalance() {
+        assertThatThrownBy(() -> paymentService.processPayment(request(new BigDecimal("500.01"))))
+                .isInstanceOf(InsufficientBalanceException.class);
+
+        assertThat(balanceOf(payer)).isEqualByComparingTo("500.00");
+        assertThat(balanceOf(merchant)).isEqualByComparingTo("0.00");
+    }
+
+    private PaymentRequest request(BigDecimal amount) {
+        PaymentRequest request = new PaymentRequest();
+        request.setMerchantId(merchant.getId());
+        request.setAmount(amount);
+        request.setDescription("Compra de teste");
+        return request;
+    }
+
+    private BigDecimal balanceOf(User user) {
+        return accountRepository.findByUserId(user.getId()).orElseThrow().getBalance().toBigDecimal();
+    }
+}
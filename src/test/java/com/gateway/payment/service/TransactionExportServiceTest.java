@@ -0,0 +1,137 @@
+package com.gateway.payment.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gateway.payment.domain.entity.User;
+import com.gateway.payment.domain.enums.Role;
+import com.gateway.payment.domain.enums.TransactionStatus;
+import com.gateway.payment.dto.payment.PaymentRequest;
+import com.gateway.payment.dto.transaction.ExportFormat;
+import com.gateway.payment.exception.BusinessException;
+import com.gateway.payment.support.TestUsers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Limite de fetch menor que o extrato: a exportação precisa atravessar vários lotes do cursor
+@SpringBootTest(properties = "app.transactions.export.fetch-size=2")
+@ActiveProfiles("test")
+@Import(TestUsers.class)
+class TransactionExportServiceTest {
+
+    @Autowired
+    private TransactionExportService exportService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestUsers testUsers;
+
+    private User payer;
+    private User merchant;
+    private List<Long> transactionIds;
+
+    @BeforeEach
+    void setUp() {
+        payer = testUsers.create(Role.CLIENT, new BigDecimal("100.00"));
+        merchant = testUsers.create(Role.MERCHANT, BigDecimal.ZERO);
+        TestUsers.authenticate(payer);
+        transactionIds = new ArrayList<>();
+        for (String description : List.of("Compra 1", "=HYPERLINK(\"x\")", "Compra \"3\"", "Compra 4", "Compra 5")) {
+            transactionIds.add(paymentService.processPayment(payment("10.00", description)).getTransactionId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void ndjsonStreamsEveryTransactionOldestFirst() throws IOException {
+        List<JsonNode> lines = ndjson(exportService.export(ExportFormat.NDJSON, null, null, null));
+
+        assertThat(lines).extracting(line -> line.get("id").asLong()).containsExactlyElementsOf(transactionIds);
+        assertThat(lines.get(0).get("amount").decimalValue()).isEqualByComparingTo("10.00");
+        assertThat(lines.get(0).get("merchantName").asText()).isEqualTo(merchant.getName());
+        assertThat(lines.get(1).get("description").asText()).isEqualTo("=HYPERLINK(\"x\")");
+    }
+
+    @Test
+    void filtersByStatusAndPeriod() throws IOException {
+        jdbcTemplate.update("UPDATE transactions SET status = ? WHERE id = ?",
+                TransactionStatus.FAILED.name(), transactionIds.get(0));
+        assertThat(ndjson(exportService.export(ExportFormat.NDJSON, null, null, TransactionStatus.APPROVED)))
+                .extracting(line -> line.get("id").asLong())
+                .containsExactlyElementsOf(transactionIds.subList(1, transactionIds.size()));
+
+        LocalDateTime lastCreatedAt = jdbcTemplate.queryForObject(
+                "SELECT created_at FROM transactions WHERE id = ?", LocalDateTime.class,
+                transactionIds.get(transactionIds.size() - 1));
+        assertThat(ndjson(exportService.export(ExportFormat.NDJSON, lastCreatedAt, null, null)))
+                .extracting(line -> line.get("id").asLong())
+                .containsExactly(transactionIds.get(transactionIds.size() - 1));
+
+        assertThatThrownBy(() -> exportService.export(ExportFormat.NDJSON, lastCreatedAt, lastCreatedAt, null))
+                .isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    void csvQuotesUserFieldsAndNeutralizesFormulas() throws IOException {
+        String[] lines = write(exportService.export(ExportFormat.CSV, null, null, TransactionStatus.APPROVED))
+                .split("\n");
+
+        assertThat(lines).hasSize(6);
+        assertThat(lines[0]).isEqualTo("id,createdAt,amount,status,payerName,merchantName,description");
+        assertThat(lines[1]).startsWith(transactionIds.get(0) + ",").endsWith(",\"Compra 1\"");
+        assertThat(lines[2]).endsWith(",\"'=HYPERLINK(\"\"x\"\")\"");
+        assertThat(lines[3]).endsWith(",\"Compra \"\"3\"\"\"");
+    }
+
+    private List<JsonNode> ndjson(StreamingResponseBody body) throws IOException {
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : write(body).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+
+    private static String write(StreamingResponseBody body) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        body.writeTo(output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private PaymentRequest payment(String amount, String description) {
+        PaymentRequest request = new PaymentRequest();
+        request.setMerchantId(merchant.getId());
+        request.setAmount(new BigDecimal(amount));
+        request.setDescription(description);
+        return request;
+    }
+}
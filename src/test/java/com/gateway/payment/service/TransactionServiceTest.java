@@ -0,0 +1,141 @@
+package com.gateway.payment.service;
+
+import com.gateway.payment.domain.entity.User;
+import com.gateway.payment.domain.enums.Role;
+import com.gateway.payment.dto.account.DepositRequest;
+import com.gateway.payment.dto.payment.PaymentRequest;
+import com.gateway.payment.dto.transaction.TransactionPageResponse;
+import com.gateway.payment.dto.transaction.TransactionResponse;
+import com.gateway.payment.exception.BusinessException;
+import com.gateway.payment.support.TestUsers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(TestUsers.class)
+class TransactionServiceTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestUsers testUsers;
+
+    private User merchant;
+    private List<Long> transactionIds;
+
+    // Merchant com transações dos dois lados: depósitos (pagador) e pagamentos recebidos
+    @BeforeEach
+    void setUp() {
+        merchant = testUsers.create(Role.MERCHANT, BigDecimal.ZERO);
+        transactionIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            User payer = testUsers.create(Role.CLIENT, new BigDecimal("100.00"));
+            TestUsers.authenticate(payer);
+            transactionIds.add(paymentService.processPayment(payment("1" + i + ".00")).getTransactionId());
+        }
+        TestUsers.authenticate(merchant);
+        for (int i = 0; i < 2; i++) {
+            DepositRequest deposit = new DepositRequest();
+            deposit.setAmount(new BigDecimal("5.00"));
+            accountService.deposit(deposit);
+        }
+        transactionIds.addAll(jdbcTemplate.queryForList(
+                "SELECT id FROM transactions WHERE payer_account_id = ? AND merchant_account_id = ?",
+                Long.class, merchant.getAccount().getId(), merchant.getAccount().getId()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void pagesThroughTransactionsSharingTheSameCreatedAtWithoutGapsOrRepeats() {
+        sameCreatedAt(transactionIds);
+
+        List<TransactionPageResponse> pages = allPages(2);
+
+        assertThat(pages).hasSize(3);
+        assertThat(pages).extracting(page -> page.getItems().size()).containsExactly(2, 2, 1);
+        assertThat(pages.get(2).getNextCursor()).isNull();
+        assertThat(pages.stream().flatMap(page -> page.getItems().stream()).map(TransactionResponse::getId))
+                .containsExactlyElementsOf(transactionIds.stream().sorted(Comparator.reverseOrder()).toList());
+    }
+
+    @Test
+    void lastFullPageHasNoNextCursor() {
+        List<TransactionPageResponse> pages = allPages(5);
+
+        assertThat(pages).singleElement().satisfies(page -> {
+            assertThat(page.getItems()).hasSize(5);
+            assertThat(page.getNextCursor()).isNull();
+        });
+        assertThat(pages.get(0).getItems())
+                .isSortedAccordingTo(Comparator.comparing(TransactionResponse::getCreatedAt)
+                        .thenComparing(TransactionResponse::getId).reversed());
+    }
+
+    @Test
+    void rejectsInvalidCursorsAndPageSizes() {
+        assertThatThrownBy(() -> transactionService.getUserTransactions("nao-e-um-cursor", 2))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Cursor inválido");
+        assertThatThrownBy(() -> transactionService.getUserTransactions(null, 0))
+                .isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> transactionService.getUserTransactions(null, 10_000))
+                .isInstanceOf(BusinessException.class);
+    }
+
+    private List<TransactionPageResponse> allPages(int size) {
+        TestUsers.authenticate(merchant);
+        List<TransactionPageResponse> pages = new ArrayList<>();
+        String cursor = null;
+        do {
+            TransactionPageResponse page = transactionService.getUserTransactions(cursor, size);
+            pages.add(page);
+            cursor = page.getNextCursor();
+        } while (cursor != null && pages.size() <= transactionIds.size());
+        return pages;
+    }
+
+    private void sameCreatedAt(List<Long> ids) {
+        LocalDateTime createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        ids.forEach(id -> jdbcTemplate.update("UPDATE transactions SET created_at = ? WHERE id = ?", createdAt, id));
+    }
+
+    private PaymentRequest payment(String amount) {
+        PaymentRequest request = new PaymentRequest();
+        request.setMerchantId(merchant.getId());
+        request.setAmount(new BigDecimal(amount));
+        request.setDescription("Compra de teste");
+        return request;
+    }
+}
@@ -0,0 +1,61 @@
+package com.gateway.payment.support;
+
+import com.gateway.payment.domain.entity.Account;
+import com.gateway.payment.domain.entity.User;
+import com.gateway.payment.domain.enums.Role;
+import com.gateway.payment.domain.value.Money;
+import com.gateway.payment.repository.AccountRepository;
+import com.gateway.payment.repository.UserRepository;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Usuários de teste gravados pelos repositórios, com e-mail único por chamada.
+ * Importar com {@code @Import(TestUsers.class)}.
+ */
+@TestComponent
+public class TestUsers {
+
+    private final UserRepository userRepository;
+    private final AccountRepository accountRepository;
+
+    public TestUsers(UserRepository userRepository, AccountRepository accountRepository) {
+        this.userRepository = userRepository;
+        this.accountRepository = accountRepository;
+    }
+
+    public static String uniqueEmail() {
+        return UUID.randomUUID() + "@test.com";
+    }
+
+    /**
+     * Usuário com conta e o saldo informado; a senha é {@code secret} sem hash.
+     */
+    public User create(Role role, BigDecimal balance) {
+        User user = createWithoutAccount(role, "{noop}secret");
+        user.setAccount(accountRepository.save(Account.builder()
+                .user(user)
+                .balance(Money.of(balance))
+                .build()));
+        return user;
+    }
+
+    public User createWithoutAccount(Role role, String encodedPassword) {
+        String email = uniqueEmail();
+        return userRepository.save(User.builder()
+                .name(role.name() + " " + email)
+                .email(email)
+                .password(encodedPassword)
+                .role(role)
+                .build());
+    }
+
+    public static void authenticate(User user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+}